@@ -8,6 +8,7 @@ import random
 import string
 import importlib
 import hashlib
+import json
 from copy import deepcopy
 from time import sleep
 from datetime import datetime
@@ -137,37 +138,28 @@ class Desyncr():
                             cookies += [cookie]
                 info = ((Fore.CYAN + str(len(cookies))+ Fore.MAGENTA), self._logh)
                 print_info("Cookies    : %s (Appending to the attack)" % (info[0]))
+                emit_event("cookies", url=self._url, count=len(cookies))
                 self._cookies += cookies
             return True
         except Exception as exception_data:
             error = ((Fore.CYAN + "Unable to connect to host"+ Fore.MAGENTA), self._logh)
             print_info("Error      : %s" % (error[0]))
+            emit_event("error", url=self._url, message="Unable to connect to host")
             return False
 
     def run(self):
         """
         Main method to run the desynchronization attack.
         """
-        RN = "\r\n"
-        mutations = {}
-
         if not self._get_cookies():
             return
 
-        if (self._configfile[1] != '/'):
-            self._configfile = os.path.dirname(os.path.realpath(__file__)) + "/configs/" + self._configfile
-
-        try:
-            f = open(self._configfile)
-        except:
+        mutations = load_mutations(self._configfile)
+        if mutations is None:
             error = ((Fore.CYAN + "Cannot find config file"+ Fore.MAGENTA), self._logh)
             print_info("Error      : %s" % (error[0]))
-            exit(1)
-
-        script = f.read()
-        f.close()
-
-        exec(script)
+            emit_event("error", url=self._url, message="Cannot find config file")
+            abort()
 
         for mutation_name in mutations.keys():
             if self._create_exec_test(mutation_name, mutations[mutation_name]) and self._exit_early:
@@ -262,6 +254,7 @@ class Desyncr():
                     self._logh.write(plaintext)
                     self._logh.flush()
 
+        status = None
         start_time = time.time()
         tecl_res = self._check_tecl(te_payload, 0)
         tecl_time = time.time()-start_time
@@ -278,6 +271,7 @@ class Desyncr():
                     return self._create_exec_test(name, te_payload)
                 else:
                     dismsg = Fore.RED + "Potential CLTE Issue Found" + Fore.MAGENTA + " - " + Fore.CYAN + self._method + Fore.MAGENTA + " @ " + Fore.CYAN + ["http://","https://",][self.ssl_flag]+ self._host + self._endpoint + Fore.MAGENTA + " - " + Fore.CYAN + self._configfile.split('/')[-1] + "\n"
+                    self._emit_finding("CL.TE", name, te_payload, clte_res2[2], tecl_time, clte_time)
                     sys.stdout.write("START\n")
                     nn_new = str(clte_res2[2]).replace("\r\n", "\n")
                     sys.stdout.write(nn_new)
@@ -293,6 +287,7 @@ class Desyncr():
                     return self._create_exec_test(name, te_payload)
                 else:
                     dismsg = Fore.RED + "Potential TECL Issue Found" + Fore.MAGENTA + " - " + Fore.CYAN + self._method + Fore.MAGENTA + " @ " + Fore.CYAN + ["http://","https://",][self.ssl_flag]+ self._host + self._endpoint + Fore.MAGENTA + " - " + Fore.CYAN + self._configfile.split('/')[-1] + "\n"
+                    self._emit_finding("TE.CL", name, te_payload, tecl_res2[2], tecl_time, clte_time)
                     sys.stdout.write("START\n")
                     nn_new1 = str(tecl_res2[2]).replace("\r\n", "\n")
                     sys.stdout.write(nn_new1)
@@ -303,6 +298,7 @@ class Desyncr():
         elif ((tecl_res[0] == 2) or (clte_res[0] == 2)):
             dismsg = Fore.YELLOW + "DISCONNECTED" + ["\n", ""][self._quiet]
             pretty_print(name, dismsg)
+            status = "DISCONNECTED"
 
         elif ((tecl_res[0] == 0) and (clte_res[0] == 0)):
             tecl_msg = (Fore.MAGENTA + " (TECL: " + Fore.CYAN +"%.2f" + Fore.MAGENTA + " - " + \
@@ -313,10 +309,102 @@ class Desyncr():
 
             dismsg = Fore.GREEN + "OK" + tecl_msg + clte_msg + ["\n", ""][self._quiet]
             pretty_print(name, dismsg)
+            status = "OK"
 
+        if status is None:
+            status = "ERROR" if -1 in (tecl_res[0], clte_res[0]) else "UNCONFIRMED"
+        emit_event("result", url=self._url, mutation=name, status=status,
+                   tecl={"time": round(tecl_time, 3), "status": (tecl_res[1] or "")[9:12]},
+                   clte={"time": round(clte_time, 3), "status": (clte_res[1] or "")[9:12]})
         self._attempts = 0
         return False
 
+    def _emit_finding(self, technique, name, te_payload, confirm_payload, tecl_time, clte_time):
+        """
+        Emit a finding event for a confirmed issue.
+
+        Args:
+            technique (str): "CL.TE" or "TE.CL".
+            name (str): Name of the mutation.
+            te_payload (object): Payload object of the mutation.
+            confirm_payload (object): Payload object that confirmed the issue.
+            tecl_time (float): Duration of the TE.CL check in seconds.
+            clte_time (float): Duration of the CL.TE check in seconds.
+        """
+        emit_event("finding", url=self._url, method=self._method, technique=technique, mutation=name,
+                   header=te_payload.header.split("\r\n")[1], payload=str(confirm_payload),
+                   tecl_time=round(tecl_time, 3), clte_time=round(clte_time, 3))
+
+# Printed on its own line after each target in --stream mode
+DONE_MARKER = "HRS-DONE"
+
+# Event stream opened by --events-fd, None when disabled
+EVENTS = None
+
+# Whether --stream is set, so a failing target ends only that target
+STREAM = False
+
+class TargetAborted(Exception):
+    """
+    Raised in --stream mode where a single scan would exit, after the error is reported.
+    """
+
+def abort():
+    """
+    Give up on the current target: exit, or in --stream mode move on to the next target.
+    """
+    if STREAM:
+        raise TargetAborted()
+    exit(1)
+
+# Mutations of each config file already executed, by the name it was given as
+MUTATIONS = {}
+
+def load_mutations(configfile):
+    """
+    Execute a config file and return the mutations it defines. Each file is executed
+    once; later targets reuse its mutations, which the checks only ever copy.
+
+    Args:
+        configfile (str): Config file name under configs/, or a path.
+
+    Returns:
+        dict: Payload objects by mutation name, or None if the file cannot be read.
+    """
+    if configfile in MUTATIONS:
+        return MUTATIONS[configfile]
+
+    path = configfile
+    if (path[1] != '/'):
+        path = os.path.dirname(os.path.realpath(__file__)) + "/configs/" + path
+
+    try:
+        f = open(path)
+    except:
+        return None
+
+    script = f.read()
+    f.close()
+
+    mutations = {}
+    exec(script, globals(), {"mutations": mutations})
+    MUTATIONS[configfile] = mutations
+    return mutations
+
+def emit_event(event, **fields):
+    """
+    Write one event as a single-line JSON object to the event stream.
+
+    Args:
+        event (str): Event type, e.g. "target", "result", "finding", "done".
+        **fields: Event fields; must be JSON serializable.
+    """
+    if EVENTS is None:
+        return
+    fields["event"] = event
+    EVENTS.write(json.dumps(fields) + "\n")
+    EVENTS.flush()
+
 def process_uri(uri):
     """
     Process the given URI and return the host, port, path, and SSL flag.
@@ -337,13 +425,37 @@ def process_uri(uri):
         std_port = 80
     else:
         print_info("Error malformed URL not supported: %s" % (Fore.CYAN + uri))
-        exit(1)
+        emit_event("error", url=uri, message="Malformed URL not supported")
+        abort()
 
     if u.port:
         return (u.hostname, u.port, u.path, ssl_flag)
     else:
         return (u.hostname, std_port, u.path, ssl_flag)
 
+def scan_target(server, args, file_handle):
+    """
+    Scan one target.
+
+    Args:
+        server (list): Target URL and HTTP method.
+        args (object): Parsed command line arguments.
+        file_handle (file): Log file handle, or None.
+    """
+    host, port, endpoint, SSLFlagval = process_uri(server[0])
+    method = server[1].upper()
+    configfile = args.configfile
+
+    print_info("URL        : %s"%(Fore.CYAN + server[0]), file_handle)
+    print_info("Method     : %s"%(Fore.CYAN + method), file_handle)
+    print_info("Endpoint   : %s"%(Fore.CYAN + endpoint), file_handle)
+    print_info("Configfile : %s"%(Fore.CYAN + configfile), file_handle)
+    print_info("Timeout    : %s"%(Fore.CYAN + str(float(args.timeout)) + Fore.MAGENTA + " seconds"), file_handle)
+    emit_event("target", url=server[0], method=method, endpoint=endpoint, config=configfile, timeout=float(args.timeout))
+
+    sm = Desyncr(configfile, host, port, url=server[0], method=method, endpoint=endpoint, SSLFlag=SSLFlagval, logh=file_handle, smargs=args)
+    sm.run()
+
 def CF(text):
     """
     Color formatting function.
@@ -409,9 +521,14 @@ if __name__ == "__main__":
     Parser.add_argument('-t', '--timeout', default=5.0, help="Socket timeout value Default: 5")
     Parser.add_argument('--no-color', action='store_true', help="Suppress color codes")
     Parser.add_argument('-c', '--configfile', default="default.py", help="Filepath to the configuration file of payloads")
+    Parser.add_argument('--events-fd', type=int, help="Write one JSON object per event (target, cookies, result, finding, error, done) to this file descriptor")
+    Parser.add_argument('--stream', action='store_true', help="Scan URLs from stdin as they arrive and print %s after each one" % DONE_MARKER)
     Args = Parser.parse_args()
 
     NOCOLOR = Args.no_color
+    STREAM = Args.stream
+    if Args.events_fd is not None:
+        EVENTS = os.fdopen(Args.events_fd, "w", buffering=1)
     if os.name == 'nt':
         NOCOLOR = True
 
@@ -422,7 +539,9 @@ if __name__ == "__main__":
         print_info("Error: Smuggler requires Python 3.x")
         sys.exit(1)
 
-    if Args.url is None:
+    if Args.stream:
+        Servers = (line.rstrip("\r\n") for line in sys.stdin)
+    elif Args.url is None:
         if sys.stdin.isatty():
             print_info("Error: no direct URL or piped URL specified\n")
             Parser.print_help()
@@ -451,18 +570,21 @@ if __name__ == "__main__":
         if server[0].lower().strip()[0:4] != "http":
             server[0] = "https://" + server[0]
 
-        host, port, endpoint, SSLFlagval = process_uri(server[0])
-        method = server[1].upper()
-        configfile = Args.configfile
-
-        print_info("URL        : %s"%(Fore.CYAN + server[0]), FileHandle)
-        print_info("Method     : %s"%(Fore.CYAN + method), FileHandle)
-        print_info("Endpoint   : %s"%(Fore.CYAN + endpoint), FileHandle)
-        print_info("Configfile : %s"%(Fore.CYAN + configfile), FileHandle)
-        print_info("Timeout    : %s"%(Fore.CYAN + str(float(Args.timeout)) + Fore.MAGENTA + " seconds"), FileHandle)
+        if not Args.stream:
+            scan_target(server, Args, FileHandle)
+            emit_event("done", url=server[0])
+            continue
 
-        sm = Desyncr(configfile, host, port, url=server[0], method=method, endpoint=endpoint, SSLFlag=SSLFlagval, logh=FileHandle, smargs=Args)
-        sm.run()
+        try:
+            scan_target(server, Args, FileHandle)
+        except TargetAborted:
+            pass
+        except Exception as exception_data:
+            print_info("Error      : %s" % (Fore.CYAN + str(exception_data)), FileHandle)
+            emit_event("error", url=server[0], message=str(exception_data))
+        emit_event("done", url=server[0])
+        sys.stdout.write("\n" + DONE_MARKER + "\n")
+        sys.stdout.flush()
 
     if FileHandle is not None:
         FileHandle.close()
@@ -2,10 +2,16 @@ package com.hrs; // Defines the package for the class, used for organizing class
 
 import com.hrs.model.ScanResult; // Importing ScanResult model for table data
 import com.hrs.service.FileOperations; // Importing FileOperations service for file handling
+import com.hrs.service.HostLimiter; // Importing HostLimiter for the rate limit status
 import com.hrs.service.ScanService; // Importing ScanService for managing scan operations
+import com.hrs.service.UrlSource; // Importing UrlSource for reading batch URL lists lazily
 import com.hrs.ui.TableManager; // Importing TableManager for managing table UI
 import com.hrs.ui.UIHelper; // Importing UIHelper for UI utilities
+import com.hrs.utils.AppConfig; // Importing AppConfig for the default scan engine
 import com.hrs.utils.Logger; // Importing Logger for logging messages
+import javafx.animation.Animation; // Importing Animation for an endless refresh
+import javafx.animation.KeyFrame; // Importing KeyFrame for the refresh interval
+import javafx.animation.Timeline; // Importing Timeline for refreshing the rate limit status
 import javafx.application.Platform; // Importing Platform for JavaFX threading
 import javafx.collections.FXCollections; // Importing FXCollections for observable collections
 import javafx.collections.ObservableList; // Importing ObservableList for data binding
@@ -19,9 +25,10 @@ import javafx.scene.layout.VBox; // Importing VBox layout for arranging UI compo
 import javafx.stage.FileChooser; // Importing FileChooser for file selection dialogs
 import javafx.stage.Screen; // Importing Screen for getting screen bounds
 import javafx.stage.Stage; // Importing Stage for window representation
+import javafx.util.Duration; // Importing Duration for the refresh interval
 import java.io.File; // Importing File for file handling
 import java.io.IOException; // Importing IOException for handling I/O exceptions
-import java.util.List; // Importing List for handling collections
+import java.util.concurrent.CompletableFuture; // Importing CompletableFuture for opening URL files in the background
 
 /**
  * MainController class to manage the main application logic.
@@ -57,6 +64,9 @@ public class MainController {
     // CheckBox for disabling color output
     @FXML private CheckBox noColorCheckBox;
     
+    // CheckBox for running scans in-process instead of through smuggler.py
+    @FXML private CheckBox nativeEngineCheckBox;
+    
     // TextArea for displaying output logs
     @FXML private TextArea outputArea;
     
@@ -65,6 +75,9 @@ public class MainController {
     
     // Button to stop the scanning process
     @FXML private Button stopButton;
+
+    // Label showing the live state of the rate limits
+    @FXML private Label rateLabel;
     
     // TableView for displaying scan results
     @FXML private TableView<ScanResult> dataTable;
@@ -75,6 +88,9 @@ public class MainController {
     // TableColumn for displaying HTTP methods
     @FXML private TableColumn<ScanResult, String> methodColumn;
     
+    // TableColumn for displaying the detection technique
+    @FXML private TableColumn<ScanResult, String> techniqueColumn;
+    
     // TableColumn for displaying Transfer-Encoding headers
     @FXML private TableColumn<ScanResult, String> teHeaderColumn;
     
@@ -102,6 +118,9 @@ public class MainController {
     // Manager for handling table operations
     private TableManager tableManager;
 
+    // Whether a URL file is being opened for a batch scan, only touched on the JavaFX thread
+    private boolean openingUrls;
+
     /**
      * Method to clear all rows in the data table.
      */
@@ -149,7 +168,7 @@ public class MainController {
         Logger.debug("Setting up UI components");
         
         // Initialize TableManager first since we need its ObservableList
-        tableManager = new TableManager(dataTable, urlColumn, methodColumn, teHeaderColumn, payloadColumn);
+        tableManager = new TableManager(dataTable, urlColumn, methodColumn, techniqueColumn, teHeaderColumn, payloadColumn);
         
         // Initialize services with TableManager's ObservableList
         scanService = new ScanService(outputArea, tableManager.getTableData(), stopButton);
@@ -162,6 +181,14 @@ public class MainController {
         // Set default values
         timeoutSpinner.setValueFactory(new SpinnerValueFactory.IntegerSpinnerValueFactory(1, 3600, 5));
         stopButton.setDisable(true);
+        // Default scan engine from hrs.scan.engine
+        nativeEngineCheckBox.setSelected(AppConfig.useNativeEngine());
+
+        // Refreshes the rate limit status once a second
+        Timeline rateRefresh = new Timeline(new KeyFrame(Duration.seconds(1),
+                event -> rateLabel.setText(HostLimiter.status())));
+        rateRefresh.setCycleCount(Animation.INDEFINITE);
+        rateRefresh.play();
     }
 
     /**
@@ -245,17 +272,8 @@ public class MainController {
                 return;
             }
 
-            // Load URLs from the file
-            List<String> urls = fileOperations.loadUrlsFromFile(file);
-            
-            // Check if any URLs were loaded
-            if (!urls.isEmpty()) {
-                // Start the batch scan
-                startBatchScan(urls);
-            } else {
-                // Show warning message if no URLs were loaded
-                UIHelper.showWarning("No valid URLs found in the selected file");
-            }
+            // Open the file in the background and start the batch scan once it is counted
+            openBatchScan(file);
         }
     }
 
@@ -285,6 +303,7 @@ public class MainController {
         Logger.info("Starting scan for URL: " + url);
         
         // Start the single scan
+        scanService.setNativeEngine(nativeEngineCheckBox.isSelected());
         scanService.startSingleScan(
             url,
             vhostField.getText(),
@@ -325,7 +344,7 @@ public class MainController {
         Logger.debug("Choose config file button clicked");
         
         // Choose a file using the file chooser
-        File file = fileOperations.chooseFile("Select Config File", "Config Files", "*.conf", "*.config", "*.json", "*.*");
+        File file = fileOperations.chooseFile("Select Config File", "Config Files", "*.conf", "*.config", "*.json", "*.py", "*.mutations", "*.*");
         
         // Check if a file was chosen
         if (file != null) {
@@ -365,34 +384,67 @@ public class MainController {
         
         // Check if a file was chosen
         if (file != null) {
-            // Load URLs from the file
-            List<String> urls = fileOperations.loadUrlsFromFile(file);
-            
-            // Check if any URLs were loaded
-            if (!urls.isEmpty()) {
-                // Start the batch scan
-                startBatchScan(urls);
-            } else {
-                // Show warning message if no URLs were loaded
-                UIHelper.showWarning("No valid URLs found in the selected file");
-            }
+            // Open the file in the background and start the batch scan once it is counted
+            openBatchScan(file);
         }
     }
 
+    /**
+     * Method to open a URL file and start a batch scan over it. Opening counts every line
+     * of the file, which takes a while for a large list, so it runs off the JavaFX thread
+     * and the scan starts once the count is known.
+     * 
+     * @param file The URL file
+     */
+    private void openBatchScan(File file) {
+        // Ignore another start while a file is being counted
+        if (openingUrls) {
+            UIHelper.showWarning("The URL file is still being read");
+            return;
+        }
+        openingUrls = true;
+        startButton.setDisable(true);
+        outputArea.appendText("Reading URL list " + file.getName() + "...\n");
+
+        CompletableFuture.supplyAsync(() -> fileOperations.openUrlsFromFile(file))
+            .whenComplete((urls, e) -> Platform.runLater(() -> {
+                openingUrls = false;
+                startButton.setDisable(false);
+                if (e != null) {
+                    // Logs a failure the file operations did not handle
+                    Logger.error("Error opening URL file: " + file.getAbsolutePath(), e);
+                }
+
+                // Check if any URLs were loaded
+                if (urls != null && urls.getExpected() > 0) {
+                    // Start the batch scan
+                    startBatchScan(urls);
+                } else {
+                    // Release the empty file
+                    if (urls != null) {
+                        urls.close();
+                    }
+                    // Show warning message if no URLs were loaded
+                    UIHelper.showWarning("No valid URLs found in the selected file");
+                }
+            }));
+    }
+
     /**
      * Method to start a batch scan for multiple URLs.
      * 
-     * @param urls The list of URLs to scan
+     * @param urls The source of URLs to scan, read as the scan proceeds
      */
-    private void startBatchScan(List<String> urls) {
+    private void startBatchScan(UrlSource urls) {
         // Logs the start of the batch scan
-        Logger.info("Starting batch scan with " + urls.size() + " URLs");
+        Logger.info("Starting batch scan with " + urls.getExpected() + " URLs");
         
         try {
             // Get the timeout value from the spinner
             int timeout = timeoutSpinner.getValue();
             
             // Start the batch scan
+            scanService.setNativeEngine(nativeEngineCheckBox.isSelected());
             scanService.startBatchScan(
                 urls,
                 vhostField.getText(),
@@ -1,6 +1,10 @@
 package com.hrs;
 
+import com.hrs.network.LastByteSyncSender;
 import com.hrs.network.RawHttpClient;
+import com.hrs.network.RawHttpMessage;
+import com.hrs.network.RequestOptions;
+import com.hrs.network.SyncGroupResult;
 import com.hrs.ui.LineNumberedTextArea;
 import javafx.application.Platform;
 import javafx.fxml.FXML;
@@ -26,8 +30,13 @@ public class RepeaterController {
     @FXML private TableColumn<Header, String> responseHeaderValueColumn;
     @FXML private Label statusLabel;
     @FXML private Label responseTimeLabel;
+    @FXML private Label timingBreakdownLabel;
     @FXML private Button reqLengthButton;
     @FXML private Button updateTeButton;
+    @FXML private CheckBox freshConnectionCheckBox;
+    @FXML private ComboBox<String> tlsVersionComboBox;
+    @FXML private Spinner<Integer> groupSizeSpinner;
+    @FXML private ComboBox<String> groupModeComboBox;
 
     private RawHttpClient httpClient;
     private ObservableList<Header> requestHeaders = FXCollections.observableArrayList();
@@ -35,7 +44,8 @@ public class RepeaterController {
 
     @FXML
     private void initialize() {
-        httpClient = new RawHttpClient();
+        // All Repeater windows share one client so they also share its connection pool
+        httpClient = RawHttpClient.shared();
         
         // Initialize tables
         setupHeadersTable(requestHeadersTable, headerNameColumn, headerValueColumn, requestHeaders);
@@ -44,7 +54,28 @@ public class RepeaterController {
         // Add default headers
         requestHeaders.add(new Header("User-Agent", "HRS-Repeater"));
         requestHeaders.add(new Header("Accept", "*/*"));
-        requestHeaders.add(new Header("Connection", "close"));
+        requestHeaders.add(new Header("Connection", "keep-alive"));
+
+        // TLS versions offered for HTTPS targets
+        tlsVersionComboBox.getItems().addAll("TLS 1.3 / 1.2", "TLS 1.3", "TLS 1.2");
+        tlsVersionComboBox.setValue("TLS 1.3 / 1.2");
+
+        // Group sends: same request N times with the final bytes released together
+        groupSizeSpinner.setValueFactory(new SpinnerValueFactory.IntegerSpinnerValueFactory(2, 64, 10));
+        groupSizeSpinner.setEditable(true);
+        groupModeComboBox.getItems().addAll("Connections", "Pipelined");
+        groupModeComboBox.setValue("Connections");
+    }
+
+    private String[] selectedTlsProtocols() {
+        String selected = tlsVersionComboBox.getValue();
+        if ("TLS 1.3".equals(selected)) {
+            return new String[]{"TLSv1.3"};
+        }
+        if ("TLS 1.2".equals(selected)) {
+            return new String[]{"TLSv1.2"};
+        }
+        return new String[]{"TLSv1.3", "TLSv1.2"};
     }
 
     private void setupHeadersTable(TableView<Header> table, 
@@ -85,7 +116,7 @@ public class RepeaterController {
                                   (parser.getPort() != (parser.isHttps() ? 443 : 80) ? ":" + parser.getPort() : "") + "\r\n" +
                                   "User-Agent: HRS-Repeater\r\n" +
                                   "Accept: */*\r\n" +
-                                  "Connection: close\r\n" +
+                                  "Connection: keep-alive\r\n" +
                                   "\r\n";
             rawRequestArea.setText(defaultRequest);
         } catch (Exception e) {
@@ -105,13 +136,18 @@ public class RepeaterController {
             // Clear previous response
             rawResponseArea.setText("");
             responseTimeLabel.setText("");
+            timingBreakdownLabel.setText("");
             responseHeaders.clear();
             
             RawHttpClient.UrlParser parser = new RawHttpClient.UrlParser(url);
             String rawRequest = rawRequestArea.getText();
 
             statusLabel.setText("Sending request...");
-            httpClient.sendRawRequest(parser.getHost(), parser.getPort(), rawRequest)
+            RequestOptions options = RequestOptions.defaults()
+                .withFreshConnection(freshConnectionCheckBox.isSelected())
+                .withTls(parser.isHttps())
+                .withTlsProtocols(selectedTlsProtocols());
+            httpClient.sendRawRequest(parser.getHost(), parser.getPort(), rawRequest, options)
                 .thenAccept(response -> Platform.runLater(() -> {
                     if (response.hasError()) {
                         statusLabel.setText("Error: " + response.getError());
@@ -122,8 +158,9 @@ public class RepeaterController {
                     // Update response area
                     rawResponseArea.setText(response.getRawResponse());
                     
-                    // Update response time
+                    // Update response time and its per-phase breakdown
                     responseTimeLabel.setText(response.getResponseTimeMs() + " ms");
+                    timingBreakdownLabel.setText(response.getTiming().summary());
                     
                     // Update status
                     statusLabel.setText("Response received");
@@ -145,6 +182,70 @@ public class RepeaterController {
         }
     }
 
+    @FXML
+    private void sendGroup() {
+        String url = targetUrlField.getText();
+        if (url.isEmpty()) {
+            statusLabel.setText("Error: Please enter a target URL");
+            return;
+        }
+
+        try {
+            // Clear previous response
+            rawResponseArea.setText("");
+            responseTimeLabel.setText("");
+            timingBreakdownLabel.setText("");
+            responseHeaders.clear();
+
+            RawHttpClient.UrlParser parser = new RawHttpClient.UrlParser(url);
+            RawHttpMessage request = RawHttpClient.prepareRequest(rawRequestArea.getText());
+            int count = groupSizeSpinner.getValue();
+            List<RawHttpMessage> requests = Collections.nCopies(count, request);
+            LastByteSyncSender.Mode mode = "Pipelined".equals(groupModeComboBox.getValue())
+                ? LastByteSyncSender.Mode.PIPELINED : LastByteSyncSender.Mode.CONNECTIONS;
+
+            statusLabel.setText("Sending group of " + count + "...");
+            RequestOptions options = RequestOptions.defaults().withTls(parser.isHttps()).withTlsProtocols(selectedTlsProtocols());
+            new LastByteSyncSender(httpClient).send(parser.getHost(), parser.getPort(), requests, mode, options)
+                .thenAccept(result -> Platform.runLater(() -> showGroupResult(result)));
+        } catch (Exception e) {
+            statusLabel.setText("Error: " + e.getMessage());
+            rawResponseArea.setText("Error occurred: " + e.getMessage());
+        }
+    }
+
+    private void showGroupResult(SyncGroupResult result) {
+        if (result.hasError()) {
+            statusLabel.setText("Error: " + result.getError());
+            rawResponseArea.setText("Error occurred: " + result.getError());
+            return;
+        }
+
+        // One section per response, with its own timing and release offset
+        StringBuilder text = new StringBuilder();
+        long[] offsets = result.getReleaseOffsetsNanos();
+        long fastest = Long.MAX_VALUE;
+        long slowest = 0;
+        List<RawHttpClient.RawHttpResponse> responses = result.getResponses();
+        for (int i = 0; i < responses.size(); i++) {
+            RawHttpClient.RawHttpResponse response = responses.get(i);
+            long offset = i < offsets.length ? offsets[i] : 0;
+            text.append(String.format("=== #%d  %d ms  released +%.1f µs  %s ===%n", i + 1,
+                response.getResponseTimeMs(), offset / 1000.0, response.getTiming().summary()));
+            text.append(response.hasError() ? "Error: " + response.getError() : response.getRawResponse()).append("\n\n");
+            if (!response.hasError()) {
+                fastest = Math.min(fastest, response.getResponseTimeMs());
+                slowest = Math.max(slowest, response.getResponseTimeMs());
+            }
+        }
+        rawResponseArea.setText(text.toString());
+
+        responseTimeLabel.setText(fastest == Long.MAX_VALUE ? "" : fastest + "-" + slowest + " ms");
+        timingBreakdownLabel.setText(String.format("Release skew %.1f µs", result.getReleaseSkewNanos() / 1000.0));
+        statusLabel.setText("Group of " + responses.size() + " completed"
+            + (result.getPipelineResult() != null ? " (" + result.getPipelineResult().getOutcome() + ")" : ""));
+    }
+
     @FXML
     private void calculateRequestLength() {
         String rawRequest = rawRequestArea.getText();
@@ -15,6 +15,10 @@ public class ScanResult {
     private final StringProperty teHeader;
     // Property for the payload
     private final StringProperty payload;
+    // Property for the detection technique, e.g. CL.TE or TE.CL
+    private final StringProperty technique;
+    // Property for the name of the header mutation that triggered the finding
+    private final StringProperty mutation;
 
     /**
      * Constructor to initialize a ScanResult.
@@ -24,6 +28,20 @@ public class ScanResult {
      * @param payload The payload of the scan result
      */
     public ScanResult(String url, String method, String teHeader, String payload) {
+        // Findings scraped from smuggler.py output carry no technique or mutation name
+        this(url, method, teHeader, payload, "", "");
+    }
+
+    /**
+     * Constructor to initialize a ScanResult from the native detection engine.
+     * @param url The URL of the scan result
+     * @param method The HTTP method used
+     * @param teHeader The Transfer-Encoding header
+     * @param payload The payload of the scan result
+     * @param technique The detection technique, e.g. CL.TE or TE.CL
+     * @param mutation The name of the header mutation
+     */
+    public ScanResult(String url, String method, String teHeader, String payload, String technique, String mutation) {
         // Initializes the URL property
         this.url = new SimpleStringProperty(url); 
         // Initializes the method property
@@ -32,6 +50,10 @@ public class ScanResult {
         this.teHeader = new SimpleStringProperty(teHeader); 
         // Initializes the payload property
         this.payload = new SimpleStringProperty(payload); 
+        // Initializes the technique property
+        this.technique = new SimpleStringProperty(technique);
+        // Initializes the mutation property
+        this.mutation = new SimpleStringProperty(mutation);
     }
 
     /**
@@ -133,4 +155,54 @@ public class ScanResult {
         // Sets the payload value
         this.payload.set(payload); 
     }
+
+    /**
+     * Gets the detection technique.
+     * @return The detection technique
+     */
+    public String getTechnique() {
+        // Returns the technique value
+        return technique.get();
+    }
+    /**
+     * Gets the technique property.
+     * @return The technique property
+     */
+    public StringProperty techniqueProperty() {
+        // Returns the technique property for JavaFX binding
+        return technique;
+    }
+    /**
+     * Sets the detection technique.
+     * @param technique The technique to set
+     */
+    public void setTechnique(String technique) {
+        // Sets the technique value
+        this.technique.set(technique);
+    }
+
+    /**
+     * Gets the mutation name.
+     * @return The mutation name
+     */
+    public String getMutation() {
+        // Returns the mutation value
+        return mutation.get();
+    }
+    /**
+     * Gets the mutation property.
+     * @return The mutation property
+     */
+    public StringProperty mutationProperty() {
+        // Returns the mutation property for JavaFX binding
+        return mutation;
+    }
+    /**
+     * Sets the mutation name.
+     * @param mutation The mutation to set
+     */
+    public void setMutation(String mutation) {
+        // Sets the mutation value
+        this.mutation.set(mutation);
+    }
 }
@@ -0,0 +1,292 @@
+package com.hrs.network;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Bounded keep-alive pool of raw sockets keyed by host, port, TLS and SNI.
+ * Leased poolable connections are capped per key; idle ones are health-checked before
+ * reuse and evicted in the background once they have been idle for too long. Fresh
+ * connections never enter the pool and are not counted against the cap.
+ */
+public class ConnectionPool {
+    private static final int DEFAULT_MAX_PER_HOST = 6;
+    private static final int DEFAULT_MAX_IDLE_PER_HOST = 4;
+    private static final long DEFAULT_IDLE_TIMEOUT = 30000; // 30 seconds
+    private static final long EVICTION_INTERVAL = 5000; // 5 seconds
+    private static final int HEALTH_CHECK_TIMEOUT = 1; // 1 ms
+
+    /**
+     * Opens a new connected socket for a key when the pool has nothing to reuse.
+     */
+    public interface Connector {
+        Socket connect(ConnectionKey key) throws IOException;
+    }
+
+    private final int maxPerHost;
+    private final int maxIdlePerHost;
+    private final long idleTimeoutMs;
+    private final Map<ConnectionKey, Deque<PooledConnection>> idle = new ConcurrentHashMap<>();
+    private final Map<ConnectionKey, Semaphore> leases = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService evictor;
+
+    public ConnectionPool() {
+        this(DEFAULT_MAX_PER_HOST, DEFAULT_MAX_IDLE_PER_HOST, DEFAULT_IDLE_TIMEOUT);
+    }
+
+    public ConnectionPool(int maxPerHost, int maxIdlePerHost, long idleTimeoutMs) {
+        this.maxPerHost = maxPerHost;
+        this.maxIdlePerHost = maxIdlePerHost;
+        this.idleTimeoutMs = idleTimeoutMs;
+        this.evictor = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "hrs-pool-evictor");
+            t.setDaemon(true);
+            return t;
+        });
+        evictor.scheduleWithFixedDelay(this::evictIdle, EVICTION_INTERVAL, EVICTION_INTERVAL, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Leases a connection for the key, reusing a healthy idle one unless a fresh
+     * connection is requested. Fresh connections are never returned to the pool and do
+     * not take a place under the per-host cap, so they are opened at once; otherwise this
+     * blocks for up to {@code waitMs} when the cap is reached.
+     */
+    public PooledConnection acquire(ConnectionKey key, boolean fresh, Connector connector, long waitMs) throws IOException {
+        return lease(key, !fresh, !fresh, connector, waitMs);
+    }
+
+    /**
+     * Leases a newly opened connection that may still go back to the pool afterwards,
+     * e.g. to retry after a reused socket turned out to be dead.
+     */
+    public PooledConnection acquireNew(ConnectionKey key, Connector connector, long waitMs) throws IOException {
+        return lease(key, false, true, connector, waitMs);
+    }
+
+    private PooledConnection lease(ConnectionKey key, boolean reuse, boolean poolable, Connector connector, long waitMs) throws IOException {
+        if (!poolable) {
+            return new PooledConnection(key, connector.connect(key), true);
+        }
+        Semaphore permits = leases.computeIfAbsent(key, k -> new Semaphore(maxPerHost));
+        try {
+            if (!permits.tryAcquire(waitMs, TimeUnit.MILLISECONDS)) {
+                throw new IOException("Connection limit (" + maxPerHost + ") reached for " + key);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while waiting for a connection to " + key, e);
+        }
+
+        try {
+            if (reuse) {
+                PooledConnection reused = pollHealthy(key);
+                if (reused != null) {
+                    NetworkLogger.log("Reusing pooled connection to " + key);
+                    reused.reused = true;
+                    return reused;
+                }
+            }
+            return new PooledConnection(key, connector.connect(key), false);
+        } catch (IOException | RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+    }
+
+    /**
+     * Returns a leased connection. It goes back to the idle set only when the caller
+     * says the exchange left it reusable; otherwise it is closed.
+     */
+    public void release(PooledConnection connection, boolean reusable) {
+        if (connection.fresh) {
+            connection.close();
+            return;
+        }
+        Semaphore permits = leases.get(connection.key);
+        try {
+            if (reusable && !connection.socket.isClosed()) {
+                Deque<PooledConnection> deque = idle.computeIfAbsent(connection.key, k -> new ArrayDeque<>());
+                synchronized (deque) {
+                    if (deque.size() < maxIdlePerHost) {
+                        connection.lastUsed = System.currentTimeMillis();
+                        deque.push(connection);
+                        return;
+                    }
+                }
+            }
+            connection.close();
+        } finally {
+            if (permits != null) {
+                permits.release();
+            }
+        }
+    }
+
+    /**
+     * Closes every idle connection.
+     */
+    public void clear() {
+        for (Deque<PooledConnection> deque : idle.values()) {
+            synchronized (deque) {
+                deque.forEach(PooledConnection::close);
+                deque.clear();
+            }
+        }
+    }
+
+    private PooledConnection pollHealthy(ConnectionKey key) {
+        Deque<PooledConnection> deque = idle.get(key);
+        if (deque == null) {
+            return null;
+        }
+        while (true) {
+            PooledConnection candidate;
+            synchronized (deque) {
+                candidate = deque.poll();
+            }
+            if (candidate == null) {
+                return null;
+            }
+            if (isHealthy(candidate)) {
+                return candidate;
+            }
+            NetworkLogger.log("Discarding stale pooled connection to " + key);
+            candidate.close();
+        }
+    }
+
+    private boolean isHealthy(PooledConnection connection) {
+        Socket socket = connection.socket;
+        if (socket.isClosed() || !socket.isConnected() || socket.isInputShutdown() || socket.isOutputShutdown()) {
+            return false;
+        }
+        if (System.currentTimeMillis() - connection.lastUsed > idleTimeoutMs) {
+            return false;
+        }
+        // A live idle keep-alive socket has nothing to read: EOF means the peer closed it,
+        // unsolicited bytes mean it is out of sync with us.
+        int originalTimeout = 0;
+        try {
+            originalTimeout = socket.getSoTimeout();
+            socket.setSoTimeout(HEALTH_CHECK_TIMEOUT);
+            InputStream in = socket.getInputStream();
+            in.read();
+            return false;
+        } catch (SocketTimeoutException e) {
+            return true;
+        } catch (IOException e) {
+            return false;
+        } finally {
+            try {
+                socket.setSoTimeout(originalTimeout);
+            } catch (IOException ignored) {
+                // Socket is already unusable and will be closed by the caller
+            }
+        }
+    }
+
+    private void evictIdle() {
+        long now = System.currentTimeMillis();
+        for (Deque<PooledConnection> deque : idle.values()) {
+            synchronized (deque) {
+                Iterator<PooledConnection> it = deque.iterator();
+                while (it.hasNext()) {
+                    PooledConnection connection = it.next();
+                    if (now - connection.lastUsed > idleTimeoutMs || connection.socket.isClosed()) {
+                        it.remove();
+                        connection.close();
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Identity of a reusable connection.
+     */
+    public static final class ConnectionKey {
+        private final String host;
+        private final int port;
+        private final boolean tls;
+        private final String sni;
+        private final String tlsProtocols;
+
+        public ConnectionKey(String host, int port, boolean tls, String sni) {
+            this(host, port, tls, sni, null);
+        }
+
+        public ConnectionKey(String host, int port, boolean tls, String sni, String tlsProtocols) {
+            this.host = host.toLowerCase();
+            this.port = port;
+            this.tls = tls;
+            this.sni = tls ? sni : null;
+            this.tlsProtocols = tls ? tlsProtocols : null;
+        }
+
+        public String getHost() { return host; }
+        public int getPort() { return port; }
+        public boolean isTls() { return tls; }
+        public String getSni() { return sni; }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof ConnectionKey)) return false;
+            ConnectionKey other = (ConnectionKey) o;
+            return port == other.port && tls == other.tls && host.equals(other.host)
+                    && Objects.equals(sni, other.sni) && Objects.equals(tlsProtocols, other.tlsProtocols);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(host, port, tls, sni, tlsProtocols);
+        }
+
+        @Override
+        public String toString() {
+            return (tls ? "https://" : "http://") + host + ":" + port + (sni != null && !sni.equals(host) ? " (SNI " + sni + ")" : "");
+        }
+    }
+
+    /**
+     * A socket leased from the pool.
+     */
+    public static final class PooledConnection {
+        private final ConnectionKey key;
+        private final Socket socket;
+        private final boolean fresh;
+        private volatile long lastUsed = System.currentTimeMillis();
+        private boolean reused;
+
+        PooledConnection(ConnectionKey key, Socket socket, boolean fresh) {
+            this.key = key;
+            this.socket = socket;
+            this.fresh = fresh;
+        }
+
+        public Socket getSocket() { return socket; }
+        public ConnectionKey getKey() { return key; }
+        public boolean isReused() { return reused; }
+
+        void close() {
+            try {
+                socket.close();
+            } catch (IOException e) {
+                NetworkLogger.error("Error closing pooled connection", e);
+            }
+        }
+    }
+}
@@ -0,0 +1,262 @@
+package com.hrs.network;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Incremental HTTP/1.x response framing parser.
+ * Bytes are pushed in as they arrive and the parser says exactly when the message is
+ * complete: Content-Length bodies, chunked bodies (including trailers), bodies delimited
+ * by connection close, and the no-body rules for HEAD, 1xx, 204 and 304.
+ * Interim 1xx responses are skipped and parsing continues with the final response.
+ */
+public class HttpResponseParser {
+    private enum State { HEADERS, FIXED_BODY, CHUNK_SIZE, CHUNK_DATA, CHUNK_DATA_END, TRAILERS, UNTIL_CLOSE, COMPLETE }
+
+    private final boolean headRequest;
+    private final ByteArrayOutputStream headerBlock = new ByteArrayOutputStream();
+
+    private State state = State.HEADERS;
+    private int lineLength;
+    private long remaining;
+    private final StringBuilder chunkLine = new StringBuilder();
+
+    private String httpVersion = "";
+    private int statusCode = -1;
+    private boolean connectionClose;
+    private boolean connectionKeepAlive;
+    private boolean closeDelimited;
+    private boolean malformed;
+    private boolean trailingData;
+
+    /**
+     * @param headRequest true if the request was HEAD, whose response never has a body
+     */
+    public HttpResponseParser(boolean headRequest) {
+        this.headRequest = headRequest;
+    }
+
+    /**
+     * @return A parser for the response to the given raw request
+     */
+    public static HttpResponseParser forRequest(byte[] request, int offset, int length) {
+        boolean head = length >= 5 && request[offset] == 'H' && request[offset + 1] == 'E'
+                && request[offset + 2] == 'A' && request[offset + 3] == 'D' && request[offset + 4] == ' ';
+        return new HttpResponseParser(head);
+    }
+
+    /**
+     * Feeds received bytes to the parser.
+     * @return How many bytes belong to this message; anything after that is not part of it
+     */
+    public int feed(byte[] buffer, int offset, int length) {
+        int pos = offset;
+        int end = offset + length;
+        while (pos < end && state != State.COMPLETE) {
+            switch (state) {
+                case HEADERS:
+                    pos = readHeaders(buffer, pos, end);
+                    break;
+                case FIXED_BODY:
+                case CHUNK_DATA: {
+                    int take = (int) Math.min(remaining, end - pos);
+                    pos += take;
+                    remaining -= take;
+                    if (remaining == 0) {
+                        state = state == State.FIXED_BODY ? State.COMPLETE : State.CHUNK_DATA_END;
+                    }
+                    break;
+                }
+                case CHUNK_SIZE:
+                case CHUNK_DATA_END:
+                case TRAILERS:
+                    pos = readChunkLine(buffer, pos, end);
+                    break;
+                case UNTIL_CLOSE:
+                    pos = end;
+                    break;
+                default:
+                    break;
+            }
+        }
+        return pos - offset;
+    }
+
+    /**
+     * Signals that the peer closed the connection. A close-delimited body ends here;
+     * any other unfinished message stays incomplete.
+     */
+    public void onEof() {
+        if (state == State.UNTIL_CLOSE) {
+            state = State.COMPLETE;
+        }
+    }
+
+    /**
+     * Records that the peer sent bytes beyond the end of this message, which leaves the
+     * connection out of step with our requests.
+     */
+    public void onTrailingData() {
+        trailingData = true;
+    }
+
+    public boolean isComplete() { return state == State.COMPLETE; }
+    public boolean hasTrailingData() { return trailingData; }
+    public boolean hasHeaders() { return statusCode != -1 && state != State.HEADERS; }
+    public int getStatusCode() { return statusCode; }
+    public boolean isMalformed() { return malformed; }
+
+    /**
+     * @return true if the connection may carry another request after this response
+     */
+    public boolean isKeepAlive() {
+        if (closeDelimited || connectionClose || malformed || trailingData) {
+            return false;
+        }
+        return "HTTP/1.1".equals(httpVersion) || connectionKeepAlive;
+    }
+
+    private int readHeaders(byte[] buffer, int pos, int end) {
+        while (pos < end) {
+            byte b = buffer[pos++];
+            headerBlock.write(b);
+            if (b == '\n') {
+                if (lineLength == 0) {
+                    onHeadersComplete();
+                    return pos;
+                }
+                lineLength = 0;
+            } else if (b != '\r') {
+                lineLength++;
+            }
+        }
+        return pos;
+    }
+
+    private void onHeadersComplete() {
+        String block = new String(headerBlock.toByteArray(), StandardCharsets.ISO_8859_1);
+        headerBlock.reset();
+        lineLength = 0;
+
+        String[] lines = block.split("\r?\n");
+        String[] statusLine = lines[0].split(" ", 3);
+        httpVersion = statusLine[0];
+        try {
+            statusCode = statusLine.length > 1 ? Integer.parseInt(statusLine[1].trim()) : -1;
+        } catch (NumberFormatException e) {
+            statusCode = -1;
+        }
+        if (!httpVersion.startsWith("HTTP/") || statusCode < 100) {
+            // Not an HTTP response we can frame; take whatever arrives until close
+            malformed = true;
+            closeDelimited = true;
+            state = State.UNTIL_CLOSE;
+            return;
+        }
+
+        long contentLength = -1;
+        boolean chunked = false;
+        connectionClose = false;
+        connectionKeepAlive = false;
+        for (int i = 1; i < lines.length; i++) {
+            int colon = lines[i].indexOf(':');
+            if (colon <= 0) {
+                continue;
+            }
+            String name = lines[i].substring(0, colon).trim().toLowerCase();
+            String value = lines[i].substring(colon + 1).trim().toLowerCase();
+            if (name.equals("content-length")) {
+                try {
+                    contentLength = Long.parseLong(value);
+                } catch (NumberFormatException e) {
+                    malformed = true;
+                }
+            } else if (name.equals("transfer-encoding")) {
+                chunked = value.endsWith("chunked");
+            } else if (name.equals("connection")) {
+                connectionClose |= value.contains("close");
+                connectionKeepAlive |= value.contains("keep-alive");
+            }
+        }
+
+        if (statusCode >= 100 && statusCode < 200 && statusCode != 101) {
+            // Interim response: the final one follows on the same stream
+            state = State.HEADERS;
+            return;
+        }
+        if (headRequest || statusCode == 101 || statusCode == 204 || statusCode == 304) {
+            state = State.COMPLETE;
+        } else if (chunked) {
+            state = State.CHUNK_SIZE;
+        } else if (contentLength >= 0) {
+            remaining = contentLength;
+            state = contentLength == 0 ? State.COMPLETE : State.FIXED_BODY;
+        } else {
+            closeDelimited = true;
+            state = State.UNTIL_CLOSE;
+        }
+    }
+
+    private int readChunkLine(byte[] buffer, int pos, int end) {
+        while (pos < end) {
+            byte b = buffer[pos++];
+            if (b != '\n') {
+                if (b != '\r') {
+                    chunkLine.append((char) (b & 0xff));
+                }
+                continue;
+            }
+            String line = chunkLine.toString();
+            chunkLine.setLength(0);
+            switch (state) {
+                case CHUNK_SIZE:
+                    onChunkSize(line);
+                    break;
+                case CHUNK_DATA_END:
+                    // CRLF after chunk data
+                    state = State.CHUNK_SIZE;
+                    break;
+                case TRAILERS:
+                    if (line.isEmpty()) {
+                        state = State.COMPLETE;
+                    }
+                    break;
+                default:
+                    break;
+            }
+            return pos;
+        }
+        return pos;
+    }
+
+    private void onChunkSize(String line) {
+        int extension = line.indexOf(';');
+        String size = (extension >= 0 ? line.substring(0, extension) : line).trim();
+        try {
+            // parseLong would also take a sign or non-ASCII digits; a negative size breaks the framing
+            if (!isHex(size)) {
+                throw new NumberFormatException("Chunk size is not hex: " + size);
+            }
+            remaining = Long.parseLong(size, 16);
+        } catch (NumberFormatException e) {
+            malformed = true;
+            closeDelimited = true;
+            state = State.UNTIL_CLOSE;
+            return;
+        }
+        state = remaining == 0 ? State.TRAILERS : State.CHUNK_DATA;
+    }
+
+    private static boolean isHex(String value) {
+        if (value.isEmpty()) {
+            return false;
+        }
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (!(c >= '0' && c <= '9') && !(c >= 'a' && c <= 'f') && !(c >= 'A' && c <= 'F')) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,212 @@
+package com.hrs.network;
+
+import com.hrs.utils.TaskExecutors;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Last-byte synchronization: every request is written except its final byte, and then
+ * all final bytes are released together from a single thread, so the server completes
+ * the requests within microseconds of each other. Useful for race conditions and for
+ * timing comparisons that should not be skewed by connection setup.
+ */
+public class LastByteSyncSender {
+    /**
+     * How the group is sent: one connection per request, or all requests pipelined on
+     * one connection with only the final byte of the last request held back.
+     */
+    public enum Mode { CONNECTIONS, PIPELINED }
+
+    private static final int WORKER_THREADS = 64;
+    private static ExecutorService workers;
+
+    private final RawHttpClient client;
+
+    public LastByteSyncSender(RawHttpClient client) {
+        this.client = client;
+    }
+
+    private static synchronized ExecutorService workers() {
+        if (workers == null) {
+            workers = TaskExecutors.newExecutor("hrs-sync", WORKER_THREADS);
+        }
+        return workers;
+    }
+
+    /**
+     * Sends the group and completes with a result, never exceptionally.
+     * Connections are always fresh and closed afterwards.
+     */
+    public CompletableFuture<SyncGroupResult> send(String host, int port, List<RawHttpMessage> requests, Mode mode,
+                                                   RequestOptions options) {
+        // Coordinate on the client's executor; connect and read tasks run on the worker pool,
+        // so a coordinator never waits for tasks queued behind itself
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                if (requests.isEmpty()) {
+                    throw new IllegalArgumentException("No requests to send");
+                }
+                for (RawHttpMessage request : requests) {
+                    if (request.length() == 0) {
+                        throw new IllegalArgumentException("Cannot hold back the last byte of an empty request");
+                    }
+                }
+                return mode == Mode.PIPELINED
+                        ? sendPipelined(host, port, requests, options)
+                        : sendOnConnections(host, port, requests, options);
+            } catch (Exception e) {
+                NetworkLogger.log("Synchronized send failed: " + e.getMessage());
+                return SyncGroupResult.failed(mode, e.getMessage());
+            }
+        }, RawHttpClient.requestExecutor());
+    }
+
+    private SyncGroupResult sendOnConnections(String host, int port, List<RawHttpMessage> requests,
+                                              RequestOptions options) throws IOException {
+        int n = requests.size();
+        RequestTiming[] timings = new RequestTiming[n];
+        List<CompletableFuture<Socket>> connecting = new ArrayList<>();
+        for (int i = 0; i < n; i++) {
+            RequestTiming timing = new RequestTiming();
+            timings[i] = timing;
+            connecting.add(CompletableFuture.supplyAsync(() -> {
+                try {
+                    return client.openSocket(host, port, options, timing);
+                } catch (IOException e) {
+                    throw new CompletionException(e);
+                }
+            }, workers()));
+        }
+
+        Socket[] sockets = new Socket[n];
+        try {
+            IOException failure = null;
+            for (int i = 0; i < n; i++) {
+                try {
+                    sockets[i] = connecting.get(i).join();
+                } catch (CompletionException e) {
+                    failure = e.getCause() instanceof IOException ? (IOException) e.getCause() : new IOException(e.getCause());
+                }
+            }
+            if (failure != null) {
+                throw failure;
+            }
+            NetworkLogger.log("Opened " + n + " connections to " + host + ":" + port + " for synchronized send");
+
+            // Everything but the final byte goes out first
+            OutputStream[] outs = new OutputStream[n];
+            for (int i = 0; i < n; i++) {
+                RawHttpMessage request = requests.get(i);
+                outs[i] = sockets[i].getOutputStream();
+                long writeStart = System.nanoTime();
+                outs[i].write(request.array(), request.arrayOffset(), request.length() - 1);
+                outs[i].flush();
+                timings[i].setWriteNanos(System.nanoTime() - writeStart);
+            }
+
+            // Release: one single-byte write per socket in a tight loop
+            long[] released = new long[n];
+            for (int i = 0; i < n; i++) {
+                RawHttpMessage request = requests.get(i);
+                outs[i].write(request.array()[request.arrayOffset() + request.length() - 1]);
+                outs[i].flush();
+                released[i] = System.nanoTime();
+            }
+            long[] offsets = new long[n];
+            for (int i = 0; i < n; i++) {
+                offsets[i] = released[i] - released[0];
+            }
+            NetworkLogger.log(String.format("Released %d final bytes within %.1f µs", n, offsets[n - 1] / 1000.0));
+
+            List<CompletableFuture<RawHttpClient.RawHttpResponse>> reading = new ArrayList<>();
+            for (int i = 0; i < n; i++) {
+                int index = i;
+                reading.add(CompletableFuture.supplyAsync(() -> read(sockets[index], requests.get(index),
+                        timings[index], released[index]), workers()));
+            }
+            List<RawHttpClient.RawHttpResponse> responses = new ArrayList<>();
+            for (CompletableFuture<RawHttpClient.RawHttpResponse> future : reading) {
+                responses.add(future.join());
+            }
+            return new SyncGroupResult(Mode.CONNECTIONS, responses, offsets, null, null);
+        } finally {
+            // Also closes sockets that finish connecting after another one failed
+            for (CompletableFuture<Socket> future : connecting) {
+                future.thenAccept(LastByteSyncSender::close);
+            }
+        }
+    }
+
+    private RawHttpClient.RawHttpResponse read(Socket socket, RawHttpMessage request, RequestTiming timing, long releasedAt) {
+        try {
+            HttpResponseParser parser = HttpResponseParser.forRequest(request.array(), request.arrayOffset(), request.length());
+            RawHttpMessage response = client.readResponse(socket.getInputStream(), parser, timing, releasedAt);
+            timing.setTotalNanos(System.nanoTime() - releasedAt);
+            return new RawHttpClient.RawHttpResponse(response, TimeUnit.NANOSECONDS.toMillis(timing.getTotalNanos()), null, timing);
+        } catch (IOException e) {
+            timing.setTotalNanos(System.nanoTime() - releasedAt);
+            return new RawHttpClient.RawHttpResponse(null, TimeUnit.NANOSECONDS.toMillis(timing.getTotalNanos()),
+                    e.getMessage(), timing, RawHttpClient.classify(e, true));
+        }
+    }
+
+    private SyncGroupResult sendPipelined(String host, int port, List<RawHttpMessage> requests,
+                                          RequestOptions options) throws IOException {
+        RequestTiming timing = new RequestTiming();
+        long startTime = System.nanoTime();
+        Socket socket = client.openSocket(host, port, options, timing);
+        try {
+            int total = 0;
+            for (RawHttpMessage request : requests) {
+                total += request.length();
+            }
+            OutputStream out = new BufferedOutputStream(socket.getOutputStream(), total);
+            long writeStart = System.nanoTime();
+            int last = requests.size() - 1;
+            for (int i = 0; i < last; i++) {
+                requests.get(i).writeTo(out);
+            }
+            RawHttpMessage lastRequest = requests.get(last);
+            out.write(lastRequest.array(), lastRequest.arrayOffset(), lastRequest.length() - 1);
+            out.flush();
+            timing.setWriteNanos(System.nanoTime() - writeStart);
+
+            out.write(lastRequest.array()[lastRequest.arrayOffset() + lastRequest.length() - 1]);
+            out.flush();
+            long releasedAt = System.nanoTime();
+            NetworkLogger.log("Released final byte of " + requests.size() + " pipelined requests to " + host + ":" + port);
+
+            PipelineResult pipeline = client.readPipelined(socket, requests, timing, releasedAt, startTime);
+            List<RawHttpClient.RawHttpResponse> responses = new ArrayList<>();
+            for (int i = 0; i < requests.size(); i++) {
+                RawHttpMessage response = pipeline.getResponse(i);
+                responses.add(response != null
+                        ? new RawHttpClient.RawHttpResponse(response, pipeline.getResponseTimeMs(), null, timing)
+                        : new RawHttpClient.RawHttpResponse(null, pipeline.getResponseTimeMs(),
+                                "No response to pipelined request " + (i + 1) + " (" + pipeline.getOutcome() + ")", timing));
+            }
+            return new SyncGroupResult(Mode.PIPELINED, responses, new long[]{0}, pipeline, null);
+        } finally {
+            close(socket);
+        }
+    }
+
+    private static void close(Socket socket) {
+        if (socket != null) {
+            try {
+                socket.close();
+            } catch (IOException e) {
+                NetworkLogger.error("Error closing synchronized connection", e);
+            }
+        }
+    }
+}
@@ -2,22 +2,117 @@ package com.hrs.network; // Package for network-related classes
 
 import java.time.LocalDateTime; // Importing LocalDateTime for handling date and time
 import java.time.format.DateTimeFormatter; // Importing DateTimeFormatter for formatting date and time
+import java.util.concurrent.ArrayBlockingQueue; // Importing ArrayBlockingQueue for the bounded wire dump queue
+import java.util.concurrent.BlockingQueue; // Importing BlockingQueue for handing chunks to the dump thread
+import java.util.concurrent.atomic.AtomicLong; // Importing AtomicLong for counting dropped chunks
+import java.util.function.Supplier; // Importing Supplier for lazily built messages
 
 /**
  * NetworkLogger provides logging functionalities for network operations.
+ * Messages below the current level are skipped before they are built, and hex dumps of
+ * the bytes on the wire are only produced when wire dumping is switched on.
  */
 public class NetworkLogger {
+    /**
+     * Log levels, from most to least verbose.
+     */
+    public enum Level { DEBUG, INFO, WARN, ERROR, OFF }
+
     // Formatter for timestamps in log messages
     private static final DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss.SSS");
+    // Lowercase hex digits used to encode each nibble
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+    // Maximum number of chunks waiting to be dumped before new ones are dropped
+    private static final int WIRE_QUEUE_CAPACITY = 1024;
+
+    // Current minimum level; -Dhrs.network.log=DEBUG enables verbose output
+    private static volatile Level level = parseLevel(System.getProperty("hrs.network.log"), Level.INFO);
+    // Whether raw bytes are hex dumped; off by default, -Dhrs.network.wiredump=true turns it on
+    private static volatile boolean wireDump = Boolean.getBoolean("hrs.network.wiredump");
+    // Chunks waiting for the background dump thread
+    private static final BlockingQueue<WireChunk> wireQueue = new ArrayBlockingQueue<>(WIRE_QUEUE_CAPACITY);
+    // Number of chunks dropped because the dump thread could not keep up
+    private static final AtomicLong droppedChunks = new AtomicLong();
+    // Background thread that formats the hex dumps, started on first use
+    private static Thread wireDumpThread;
+
+    /**
+     * Sets the minimum level that is printed.
+     * @param newLevel The new log level
+     */
+    public static void setLevel(Level newLevel) {
+        level = newLevel; // Stores the new level
+    }
+
+    /**
+     * @return The current log level
+     */
+    public static Level getLevel() {
+        return level; // Returns the current level
+    }
+
+    /**
+     * Checks whether messages at a level would be printed.
+     * @param messageLevel The level to check
+     * @return true if messages at that level are printed
+     */
+    public static boolean isEnabled(Level messageLevel) {
+        return messageLevel.compareTo(level) >= 0 && messageLevel != Level.OFF; // Compares against the current level
+    }
+
+    /**
+     * Switches hex dumping of request and response bytes on or off.
+     * @param enabled true to dump bytes on the wire
+     */
+    public static void setWireDump(boolean enabled) {
+        wireDump = enabled; // Stores the new setting
+    }
 
     /**
-     * Logs a message with a timestamp.
+     * @return true if wire dumping is on
+     */
+    public static boolean isWireDumpEnabled() {
+        return wireDump; // Returns the current setting
+    }
+
+    /**
+     * Logs a message with a timestamp at INFO level.
      * @param message The message to log
      */
     public static void log(String message) {
-        String timestamp = LocalDateTime.now().format(formatter); // Formats the current time
-        String logMessage = String.format("[%s] %s", timestamp, message); // Creates the log message
-        System.out.println(logMessage); // Prints the log message to standard output
+        if (isEnabled(Level.INFO)) { // Skips the message when INFO is disabled
+            print(message); // Prints the message
+        }
+    }
+
+    /**
+     * Logs a lazily built message at DEBUG level; the supplier is not called when DEBUG is off.
+     * @param message Supplier of the message to log
+     */
+    public static void debug(Supplier<String> message) {
+        if (isEnabled(Level.DEBUG)) { // Builds the message only when it will be printed
+            print(message.get()); // Prints the message
+        }
+    }
+
+    /**
+     * Logs a lazily built message at INFO level; the supplier is not called when INFO is off.
+     * @param message Supplier of the message to log
+     */
+    public static void info(Supplier<String> message) {
+        if (isEnabled(Level.INFO)) { // Builds the message only when it will be printed
+            print(message.get()); // Prints the message
+        }
+    }
+
+    /**
+     * Logs a warning with a timestamp.
+     * @param message The warning to log
+     */
+    public static void warn(String message) {
+        if (isEnabled(Level.WARN)) { // Skips the message when WARN is disabled
+            print("WARN: " + message); // Prints the message
+        }
     }
 
     /**
@@ -26,9 +121,123 @@ public class NetworkLogger {
      * @param e The exception to log
      */
     public static void error(String message, Throwable e) {
+        if (!isEnabled(Level.ERROR)) { // Skips the message when logging is off
+            return;
+        }
         String timestamp = LocalDateTime.now().format(formatter); // Formats the current time
         String logMessage = String.format("[%s] ERROR: %s - %s", timestamp, message, e.getMessage()); // Creates the log message
         System.err.println(logMessage); // Prints the log message to standard error
         e.printStackTrace(); // Prints the stack trace of the exception
     }
+
+    /**
+     * Queues a hex dump of raw bytes when wire dumping is on. The bytes are copied, so the
+     * caller may reuse its buffer straight away; encoding happens on a background thread.
+     * @param label Heading printed above the dump, e.g. "Request bytes"
+     * @param data The buffer holding the bytes
+     * @param offset Offset of the first byte
+     * @param length Number of bytes
+     */
+    public static void wire(String label, byte[] data, int offset, int length) {
+        if (!wireDump || length <= 0) { // Nothing to do unless wire dumping is on
+            return;
+        }
+        byte[] copy = new byte[length]; // Copies the bytes, since the caller's buffer is reused
+        System.arraycopy(data, offset, copy, 0, length);
+        ensureWireDumpThread(); // Starts the dump thread on first use
+        if (!wireQueue.offer(new WireChunk(label, copy))) { // Drops the chunk rather than blocking I/O
+            droppedChunks.incrementAndGet();
+        }
+    }
+
+    /**
+     * Prints a message with a timestamp to standard output.
+     * @param message The message to print
+     */
+    private static void print(String message) {
+        String timestamp = LocalDateTime.now().format(formatter); // Formats the current time
+        System.out.println("[" + timestamp + "] " + message); // Prints the log message to standard output
+    }
+
+    /**
+     * Starts the background dump thread if it is not running yet.
+     */
+    private static synchronized void ensureWireDumpThread() {
+        if (wireDumpThread != null) { // Already running
+            return;
+        }
+        wireDumpThread = new Thread(NetworkLogger::drainWireQueue, "hrs-wire-dump"); // Creates the dump thread
+        wireDumpThread.setDaemon(true); // Does not keep the JVM alive
+        wireDumpThread.start(); // Starts the thread
+    }
+
+    /**
+     * Dump thread loop: encodes queued chunks into one reused buffer and prints them.
+     */
+    private static void drainWireQueue() {
+        StringBuilder out = new StringBuilder(8192); // Reused for every chunk
+        while (true) {
+            try {
+                WireChunk chunk = wireQueue.take(); // Waits for the next chunk
+                long dropped = droppedChunks.getAndSet(0); // Reports chunks lost since the last dump
+                if (dropped > 0) {
+                    print(dropped + " wire dump chunk(s) dropped");
+                }
+                out.setLength(0); // Resets the reused buffer
+                out.append(chunk.label).append(" in hex (").append(chunk.bytes.length).append(" bytes):\n");
+                appendHex(out, chunk.bytes); // Encodes the bytes
+                print(out.toString()); // Prints the dump
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt(); // Restores the interrupt flag
+                return;
+            }
+        }
+    }
+
+    /**
+     * Appends bytes as hex from a lookup table, marking CR and LF, 16 bytes per line.
+     * @param out The buffer to append to
+     * @param bytes The bytes to encode
+     */
+    private static void appendHex(StringBuilder out, byte[] bytes) {
+        for (int i = 0; i < bytes.length; i++) {
+            int b = bytes[i] & 0xff; // Unsigned byte value
+            out.append(HEX[b >>> 4]).append(HEX[b & 0x0f]).append(' '); // Two hex digits and a separator
+            if (b == '\r') out.append("[CR]"); // Marks carriage returns
+            if (b == '\n') out.append("[LF]"); // Marks line feeds
+            if ((i + 1) % 16 == 0) out.append('\n'); // Wraps every 16 bytes
+        }
+    }
+
+    /**
+     * Parses a level name, falling back to a default when it is missing or unknown.
+     * @param value The level name
+     * @param fallback The level to use otherwise
+     * @return The parsed level
+     */
+    private static Level parseLevel(String value, Level fallback) {
+        if (value == null) { // No level configured
+            return fallback;
+        }
+        try {
+            return Level.valueOf(value.trim().toUpperCase()); // Parses the level name
+        } catch (IllegalArgumentException e) {
+            return fallback; // Unknown level name
+        }
+    }
+
+    /**
+     * A copied chunk of bytes waiting to be dumped.
+     */
+    private static final class WireChunk {
+        // Heading printed above the dump
+        private final String label;
+        // The bytes to dump
+        private final byte[] bytes;
+
+        WireChunk(String label, byte[] bytes) {
+            this.label = label; // Stores the heading
+            this.bytes = bytes; // Stores the bytes
+        }
+    }
 }
@@ -0,0 +1,547 @@
+package com.hrs.network;
+
+import com.hrs.utils.TaskExecutors;
+
+import javax.net.ssl.SNIHostName;
+import javax.net.ssl.SNIServerName;
+import javax.net.ssl.SSLEngine;
+import javax.net.ssl.SSLEngineResult;
+import javax.net.ssl.SSLException;
+import javax.net.ssl.SSLParameters;
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.SocketTimeoutException;
+import java.net.StandardSocketOptions;
+import java.net.UnknownHostException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedSelectorException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Selector-based engine for raw HTTP exchanges.
+ * A few event-loop threads multiplex every in-flight request over non-blocking
+ * SocketChannels (with an SSLEngine for TLS), so an open probe costs a handful of
+ * buffers instead of a parked thread. An exchange completes as soon as
+ * {@link HttpResponseParser} sees the end of the response. Host names are resolved on a
+ * small separate pool, so neither the caller nor an event loop waits on DNS.
+ */
+public class NioHttpEngine implements Closeable {
+    private static final int READ_BUFFER_SIZE = 32768;
+    private static final long SELECT_INTERVAL = 50;
+    private static final ByteBuffer EMPTY = ByteBuffer.allocate(0);
+    private static final int RESOLVER_THREADS = 4;
+
+    private final EventLoop[] loops;
+    private final ExecutorService resolver = TaskExecutors.newExecutor("hrs-nio-dns", RESOLVER_THREADS);
+    private final AtomicInteger nextLoop = new AtomicInteger();
+
+    public NioHttpEngine(int threads) throws IOException {
+        this.loops = new EventLoop[Math.max(1, threads)];
+        for (int i = 0; i < loops.length; i++) {
+            loops[i] = new EventLoop("hrs-nio-" + i);
+            loops[i].start();
+        }
+        NetworkLogger.log("NIO engine started with " + loops.length + " event loop(s)");
+    }
+
+    /**
+     * Sends the message bytes unchanged and completes with the raw response.
+     * Like the blocking path, the future never completes exceptionally: failures are
+     * reported through {@link RawHttpClient.RawHttpResponse#getError()}.
+     */
+    public CompletableFuture<RawHttpClient.RawHttpResponse> send(String host, int port, RawHttpMessage request,
+                                                                 RequestOptions options) {
+        Exchange exchange = new Exchange(host, port, request, options);
+        try {
+            resolver.execute(() -> resolve(exchange));
+        } catch (RejectedExecutionException e) {
+            exchange.fail(new IOException("NIO engine is shut down"));
+        }
+        return exchange.future;
+    }
+
+    /**
+     * Looks up the exchange's host, then hands it to the next event loop.
+     */
+    private void resolve(Exchange exchange) {
+        try {
+            long dnsStart = System.nanoTime();
+            exchange.address = new InetSocketAddress(exchange.host, exchange.port);
+            exchange.timing.setDnsNanos(System.nanoTime() - dnsStart);
+            if (exchange.address.isUnresolved()) {
+                throw new UnknownHostException(exchange.host);
+            }
+        } catch (Exception e) {
+            exchange.fail(e);
+            return;
+        }
+        loops[Math.floorMod(nextLoop.getAndIncrement(), loops.length)].register(exchange);
+    }
+
+    @Override
+    public void close() {
+        resolver.shutdown();
+        for (EventLoop loop : loops) {
+            loop.shutdown();
+        }
+    }
+
+    private enum Phase { CONNECTING, HANDSHAKING, WRITING, READING, DONE }
+
+    private final class EventLoop extends Thread {
+        private final Selector selector;
+        private final Queue<Exchange> pending = new ConcurrentLinkedQueue<>();
+        private volatile boolean running = true;
+
+        EventLoop(String name) throws IOException {
+            super(name);
+            setDaemon(true);
+            this.selector = Selector.open();
+        }
+
+        void register(Exchange exchange) {
+            if (!running) {
+                exchange.fail(new IOException("NIO engine is shut down"));
+                return;
+            }
+            pending.add(exchange);
+            selector.wakeup();
+        }
+
+        void shutdown() {
+            running = false;
+            selector.wakeup();
+        }
+
+        @Override
+        public void run() {
+            while (running) {
+                try {
+                    selector.select(SELECT_INTERVAL);
+
+                    Exchange exchange;
+                    while ((exchange = pending.poll()) != null) {
+                        exchange.open(selector);
+                    }
+
+                    Iterator<SelectionKey> it = selector.selectedKeys().iterator();
+                    while (it.hasNext()) {
+                        SelectionKey key = it.next();
+                        it.remove();
+                        Exchange ready = (Exchange) key.attachment();
+                        try {
+                            ready.onReady(key);
+                        } catch (Exception e) {
+                            ready.fail(e);
+                        }
+                    }
+
+                    expire();
+                } catch (ClosedSelectorException e) {
+                    break;
+                } catch (IOException e) {
+                    NetworkLogger.error("NIO event loop failure", e);
+                }
+            }
+
+            IOException shutdown = new IOException("NIO engine is shut down");
+            Exchange exchange;
+            while ((exchange = pending.poll()) != null) {
+                exchange.fail(shutdown);
+            }
+            for (SelectionKey key : new ArrayList<>(selector.keys())) {
+                ((Exchange) key.attachment()).fail(shutdown);
+            }
+            try {
+                selector.close();
+            } catch (IOException e) {
+                NetworkLogger.error("Error closing selector", e);
+            }
+        }
+
+        private void expire() {
+            long now = System.currentTimeMillis();
+            List<SelectionKey> keys = new ArrayList<>(selector.keys());
+            for (SelectionKey key : keys) {
+                Exchange exchange = (Exchange) key.attachment();
+                if (exchange.state != Phase.DONE && now >= exchange.deadline) {
+                    exchange.onTimeout();
+                }
+            }
+        }
+    }
+
+    private final class Exchange {
+        private final String host;
+        private final int port;
+        private final boolean tls;
+        private final String[] tlsProtocols;
+        private final int connectTimeout;
+        private final int readTimeout;
+        private final RawHttpMessage requestMessage;
+        private final ByteBuffer request;
+        private final CompletableFuture<RawHttpClient.RawHttpResponse> future = new CompletableFuture<>();
+        private final RawHttpMessage.Builder response = new RawHttpMessage.Builder();
+        private final HttpResponseParser parser;
+        private final RequestTiming timing = new RequestTiming();
+        private final long startTime = System.nanoTime();
+        private long phaseStart;
+        private long writeEnd;
+        private long firstByte;
+
+        private InetSocketAddress address;
+        private SocketChannel channel;
+        private SelectionKey key;
+        private SSLEngine ssl;
+        private ByteBuffer netOut;
+        private ByteBuffer netIn;
+        private ByteBuffer appIn;
+        private volatile Phase state = Phase.CONNECTING;
+        private long deadline;
+
+        Exchange(String host, int port, RawHttpMessage request, RequestOptions options) {
+            this.host = host;
+            this.port = port;
+            this.tls = options.useTls(port);
+            this.tlsProtocols = options.getTlsProtocols();
+            this.connectTimeout = options.getConnectTimeoutMs();
+            this.readTimeout = options.getReadTimeoutMs();
+            // A read-only view of the caller's bytes: nothing is copied before the socket write
+            this.requestMessage = request;
+            this.request = request.asByteBuffer();
+            this.parser = HttpResponseParser.forRequest(request.array(), request.arrayOffset(), request.length());
+        }
+
+        void open(Selector selector) {
+            try {
+                NetworkLogger.log("NIO connecting to " + host + ":" + port);
+                channel = SocketChannel.open();
+                channel.configureBlocking(false);
+                channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+                channel.setOption(StandardSocketOptions.SO_KEEPALIVE, true);
+                deadline = System.currentTimeMillis() + connectTimeout;
+                phaseStart = System.nanoTime();
+                boolean connected = channel.connect(address);
+                key = channel.register(selector, connected ? 0 : SelectionKey.OP_CONNECT, this);
+                if (connected) {
+                    onConnected();
+                }
+            } catch (Exception e) {
+                fail(e);
+            }
+        }
+
+        void onReady(SelectionKey key) throws IOException {
+            if (!key.isValid()) {
+                return;
+            }
+            switch (state) {
+                case CONNECTING:
+                    if (key.isConnectable() && channel.finishConnect()) {
+                        onConnected();
+                    }
+                    break;
+                case HANDSHAKING:
+                    handshake();
+                    break;
+                case WRITING:
+                    write();
+                    break;
+                case READING:
+                    read();
+                    break;
+                default:
+                    break;
+            }
+        }
+
+        private void onConnected() throws IOException {
+            timing.setConnectNanos(System.nanoTime() - phaseStart);
+            NetworkLogger.log("NIO connected to " + host + ":" + port);
+            deadline = System.currentTimeMillis() + (tls ? connectTimeout : readTimeout);
+            if (tls) {
+                // host:port lets the cached context's session cache offer resumption
+                ssl = TlsContextCache.get(tlsProtocols).createSSLEngine(host, port);
+                ssl.setUseClientMode(true);
+                ssl.setEnabledProtocols(TlsContextCache.supportedProtocols(tlsProtocols));
+                SSLParameters params = ssl.getSSLParameters();
+                List<SNIServerName> sniNames = new ArrayList<>();
+                sniNames.add(new SNIHostName(host));
+                params.setServerNames(sniNames);
+                ssl.setSSLParameters(params);
+
+                int packetSize = ssl.getSession().getPacketBufferSize();
+                netOut = ByteBuffer.allocate(packetSize);
+                netIn = ByteBuffer.allocate(packetSize);
+                appIn = ByteBuffer.allocate(Math.max(READ_BUFFER_SIZE, ssl.getSession().getApplicationBufferSize()));
+
+                state = Phase.HANDSHAKING;
+                phaseStart = System.nanoTime();
+                ssl.beginHandshake();
+                handshake();
+            } else {
+                appIn = ByteBuffer.allocate(READ_BUFFER_SIZE);
+                state = Phase.WRITING;
+                phaseStart = System.nanoTime();
+                write();
+            }
+        }
+
+        private void handshake() throws IOException {
+            if (netOut.position() > 0 && !flush()) {
+                interest(SelectionKey.OP_WRITE);
+                return;
+            }
+            while (true) {
+                SSLEngineResult.HandshakeStatus status = ssl.getHandshakeStatus();
+                switch (status) {
+                    case NEED_WRAP: {
+                        SSLEngineResult result = ssl.wrap(EMPTY, netOut);
+                        if (result.getStatus() == SSLEngineResult.Status.BUFFER_OVERFLOW) {
+                            netOut = enlarge(netOut, ssl.getSession().getPacketBufferSize());
+                            continue;
+                        }
+                        if (result.getStatus() == SSLEngineResult.Status.CLOSED) {
+                            throw new SSLException("TLS engine closed during handshake");
+                        }
+                        if (!flush()) {
+                            interest(SelectionKey.OP_WRITE);
+                            return;
+                        }
+                        break;
+                    }
+                    case NEED_UNWRAP:
+                    case NEED_UNWRAP_AGAIN: {
+                        netIn.flip();
+                        SSLEngineResult result = ssl.unwrap(netIn, appIn);
+                        netIn.compact();
+                        if (result.getStatus() == SSLEngineResult.Status.BUFFER_UNDERFLOW) {
+                            if (!netIn.hasRemaining()) {
+                                netIn = enlarge(netIn, ssl.getSession().getPacketBufferSize());
+                            }
+                            int read = channel.read(netIn);
+                            if (read < 0) {
+                                throw new EOFException("Connection closed during TLS handshake");
+                            }
+                            if (read == 0) {
+                                interest(SelectionKey.OP_READ);
+                                return;
+                            }
+                        } else if (result.getStatus() == SSLEngineResult.Status.BUFFER_OVERFLOW) {
+                            appIn = enlarge(appIn, ssl.getSession().getApplicationBufferSize());
+                        } else if (result.getStatus() == SSLEngineResult.Status.CLOSED) {
+                            throw new SSLException("TLS engine closed during handshake");
+                        }
+                        break;
+                    }
+                    case NEED_TASK:
+                        runDelegatedTasks();
+                        break;
+                    default:
+                        timing.setTlsNanos(System.nanoTime() - phaseStart);
+                        NetworkLogger.log("NIO TLS handshake completed with " + host + ": "
+                                + ssl.getSession().getProtocol() + " / " + ssl.getSession().getCipherSuite());
+                        state = Phase.WRITING;
+                        phaseStart = System.nanoTime();
+                        write();
+                        return;
+                }
+            }
+        }
+
+        private void write() throws IOException {
+            if (ssl == null) {
+                channel.write(request);
+            } else {
+                if (netOut.position() > 0 && !flush()) {
+                    interest(SelectionKey.OP_WRITE);
+                    return;
+                }
+                while (request.hasRemaining()) {
+                    SSLEngineResult result = ssl.wrap(request, netOut);
+                    if (result.getStatus() == SSLEngineResult.Status.BUFFER_OVERFLOW) {
+                        netOut = enlarge(netOut, ssl.getSession().getPacketBufferSize());
+                        continue;
+                    }
+                    if (result.getStatus() == SSLEngineResult.Status.CLOSED) {
+                        throw new SSLException("TLS engine closed while writing request");
+                    }
+                    if (!flush()) {
+                        interest(SelectionKey.OP_WRITE);
+                        return;
+                    }
+                }
+            }
+
+            if (request.hasRemaining() || (netOut != null && netOut.position() > 0)) {
+                interest(SelectionKey.OP_WRITE);
+                return;
+            }
+            writeEnd = System.nanoTime();
+            timing.setWriteNanos(writeEnd - phaseStart);
+            NetworkLogger.log("NIO request written to " + host + ":" + port + " (" + request.limit() + " bytes)");
+            NetworkLogger.wire("Request bytes", requestMessage.array(), requestMessage.arrayOffset(), requestMessage.length());
+            state = Phase.READING;
+            deadline = System.currentTimeMillis() + readTimeout;
+            interest(SelectionKey.OP_READ);
+        }
+
+        private void read() throws IOException {
+            boolean closed;
+            if (ssl == null) {
+                appIn.clear();
+                int read = channel.read(appIn);
+                closed = read < 0;
+                drainAppIn();
+            } else {
+                int read = channel.read(netIn);
+                closed = read < 0;
+                netIn.flip();
+                while (netIn.hasRemaining()) {
+                    SSLEngineResult result = ssl.unwrap(netIn, appIn);
+                    drainAppIn();
+                    if (result.getHandshakeStatus() == SSLEngineResult.HandshakeStatus.NEED_TASK) {
+                        runDelegatedTasks();
+                    }
+                    if (result.getStatus() == SSLEngineResult.Status.CLOSED) {
+                        closed = true;
+                        break;
+                    }
+                    if (result.getStatus() == SSLEngineResult.Status.BUFFER_UNDERFLOW) {
+                        break;
+                    }
+                    if (result.getStatus() == SSLEngineResult.Status.BUFFER_OVERFLOW) {
+                        appIn = enlarge(appIn, ssl.getSession().getApplicationBufferSize());
+                    }
+                }
+                netIn.compact();
+                if (!netIn.hasRemaining()) {
+                    netIn = enlarge(netIn, ssl.getSession().getPacketBufferSize());
+                }
+            }
+
+            if (parser.isComplete()) {
+                complete();
+            } else if (closed) {
+                NetworkLogger.log("NIO connection closed by " + host + ":" + port);
+                parser.onEof();
+                complete();
+            } else {
+                deadline = System.currentTimeMillis() + readTimeout;
+            }
+        }
+
+        void onTimeout() {
+            if (state == Phase.READING && response.size() > 0) {
+                NetworkLogger.log("NIO read timeout from " + host + ":" + port + ", returning " + response.size() + " bytes");
+                complete();
+                return;
+            }
+            String phase = state == Phase.CONNECTING ? "Connect" : state == Phase.HANDSHAKING ? "TLS handshake" : "Read";
+            fail(new SocketTimeoutException(phase + " timed out"));
+        }
+
+        private void complete() {
+            if (state == Phase.DONE) {
+                return;
+            }
+            state = Phase.DONE;
+            closeChannel();
+            long now = System.nanoTime();
+            timing.setTotalNanos(now - startTime);
+            if (response.size() > 0) {
+                timing.setBodyNanos(now - firstByte);
+            }
+            long elapsed = TimeUnit.NANOSECONDS.toMillis(timing.getTotalNanos());
+            if (response.size() > 0) {
+                NetworkLogger.log(String.format("Response received in %d ms (%s)", elapsed, timing.summary()));
+            }
+            future.complete(new RawHttpClient.RawHttpResponse(response.build(), elapsed, null, timing));
+        }
+
+        void fail(Exception e) {
+            if (state == Phase.DONE) {
+                return;
+            }
+            boolean written = state == Phase.READING;
+            state = Phase.DONE;
+            closeChannel();
+            NetworkLogger.log("Failed to send/receive request: " + e.getMessage());
+            timing.setTotalNanos(System.nanoTime() - startTime);
+            future.complete(new RawHttpClient.RawHttpResponse(null, TimeUnit.NANOSECONDS.toMillis(timing.getTotalNanos()),
+                    e.getMessage(), timing, RawHttpClient.classify(e, written)));
+        }
+
+        private void drainAppIn() {
+            appIn.flip();
+            if (appIn.hasRemaining()) {
+                if (response.size() == 0) {
+                    firstByte = System.nanoTime();
+                    timing.setFirstByteNanos(firstByte - writeEnd);
+                }
+                int offset = appIn.arrayOffset() + appIn.position();
+                NetworkLogger.wire("Received bytes", appIn.array(), offset, appIn.remaining());
+                response.append(appIn.array(), offset, appIn.remaining());
+                if (parser.feed(appIn.array(), offset, appIn.remaining()) < appIn.remaining()) {
+                    parser.onTrailingData();
+                }
+            }
+            appIn.clear();
+        }
+
+        private boolean flush() throws IOException {
+            netOut.flip();
+            channel.write(netOut);
+            boolean done = !netOut.hasRemaining();
+            netOut.compact();
+            return done;
+        }
+
+        private void runDelegatedTasks() {
+            Runnable task;
+            while ((task = ssl.getDelegatedTask()) != null) {
+                task.run();
+            }
+        }
+
+        private void interest(int ops) {
+            if (key != null && key.isValid()) {
+                key.interestOps(ops);
+            }
+        }
+
+        private void closeChannel() {
+            if (key != null) {
+                key.cancel();
+            }
+            if (channel != null) {
+                try {
+                    channel.close();
+                } catch (IOException e) {
+                    NetworkLogger.error("Error closing channel", e);
+                }
+            }
+        }
+    }
+
+    private static ByteBuffer enlarge(ByteBuffer buffer, int minimum) {
+        ByteBuffer larger = ByteBuffer.allocate(Math.max(buffer.capacity() * 2, minimum));
+        buffer.flip();
+        larger.put(buffer);
+        return larger;
+    }
+}
@@ -0,0 +1,98 @@
+package com.hrs.network;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Outcome of sending several requests back to back on one connection.
+ * Responses are attributed to requests in order by framing each one with the parser for
+ * its own request; a server that splits or merges requests differently from us shows up
+ * as an extra or missing response.
+ */
+public class PipelineResult {
+    public enum Outcome {
+        /** One complete response per request and nothing after the last one. */
+        MATCHED,
+        /** Bytes arrived after the last expected response: the server saw more requests than we sent. */
+        EXTRA_RESPONSE,
+        /** The connection closed or went quiet before every request had a response. */
+        MISSING_RESPONSE,
+        /** The exchange failed before any response could be attributed. */
+        ERROR
+    }
+
+    private final Outcome outcome;
+    private final int expected;
+    private final List<RawHttpMessage> responses;
+    private final List<RawHttpMessage> extraResponses;
+    private final RawHttpMessage unframedBytes;
+    private final long responseTimeMs;
+    private final RequestTiming timing;
+    private final String error;
+
+    PipelineResult(Outcome outcome, int expected, List<RawHttpMessage> responses, List<RawHttpMessage> extraResponses,
+                   RawHttpMessage unframedBytes, long responseTimeMs, RequestTiming timing, String error) {
+        this.outcome = outcome;
+        this.expected = expected;
+        this.responses = Collections.unmodifiableList(responses);
+        this.extraResponses = Collections.unmodifiableList(extraResponses);
+        this.unframedBytes = unframedBytes;
+        this.responseTimeMs = responseTimeMs;
+        this.timing = timing;
+        this.error = error;
+    }
+
+    static PipelineResult failed(int expected, long responseTimeMs, RequestTiming timing, String error) {
+        return new PipelineResult(Outcome.ERROR, expected, Collections.emptyList(), Collections.emptyList(),
+                null, responseTimeMs, timing, error);
+    }
+
+    public Outcome getOutcome() { return outcome; }
+
+    /**
+     * @return Number of requests that were sent
+     */
+    public int getExpected() { return expected; }
+
+    /**
+     * @return Complete responses in request order; fewer than {@link #getExpected()} when one is missing
+     */
+    public List<RawHttpMessage> getResponses() { return responses; }
+
+    /**
+     * @return The response to the request at {@code index}, or null if none arrived
+     */
+    public RawHttpMessage getResponse(int index) {
+        return index < responses.size() ? responses.get(index) : null;
+    }
+
+    /**
+     * @return Complete responses framed from the bytes after the last expected one
+     */
+    public List<RawHttpMessage> getExtraResponses() { return extraResponses; }
+
+    /**
+     * @return Bytes not attributed to any request (a surplus or a truncated response), or null if there were none
+     */
+    public RawHttpMessage getUnframedBytes() { return unframedBytes; }
+
+    public long getResponseTimeMs() { return responseTimeMs; }
+    public RequestTiming getTiming() { return timing; }
+    public String getError() { return error; }
+    public boolean hasError() { return error != null && !error.isEmpty(); }
+
+    /**
+     * @return true if response framing disagreed with the requests we sent
+     */
+    public boolean isDesync() {
+        return outcome == Outcome.EXTRA_RESPONSE || outcome == Outcome.MISSING_RESPONSE;
+    }
+
+    @Override
+    public String toString() {
+        return outcome + ": " + responses.size() + "/" + expected + " responses"
+                + (extraResponses.isEmpty() ? "" : ", " + extraResponses.size() + " extra")
+                + (unframedBytes == null ? "" : ", " + unframedBytes.length() + " unframed bytes")
+                + (hasError() ? " (" + error + ")" : "");
+    }
+}
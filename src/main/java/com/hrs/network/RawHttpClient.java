@@ -1,17 +1,20 @@
 package com.hrs.network;
 
+import com.hrs.utils.AppConfig;
+import com.hrs.utils.TaskExecutors;
+
 import javax.net.ssl.*;
 import java.io.*;
 import java.net.*;
-import java.nio.charset.StandardCharsets;
-import java.security.SecureRandom;
-import java.security.cert.X509Certificate;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Semaphore;
 import java.util.concurrent.TimeUnit;
 import javax.net.ssl.SNIHostName;
 import javax.net.ssl.SSLParameters;
+import javax.net.ssl.SSLSession;
 import javax.net.ssl.SSLSocket;
 import javax.net.ssl.SSLSocketFactory;
 
@@ -19,214 +22,507 @@ public class RawHttpClient {
     private static final int DEFAULT_BUFFER_SIZE = 8192;
     private static final int DEFAULT_TIMEOUT = 30000; // 30 seconds
     private static final int MAX_RESPONSE_WAIT = 10000; // 10 seconds
+    private static final int EXTRA_RESPONSE_GRACE = 1000; // 1 second
+    private static final String NO_RESPONSE = "No response received from server";
+
+    /**
+     * I/O engine used by {@link #sendRawRequest}: one blocking socket per request on a
+     * pool thread, or non-blocking channels multiplexed on a few selector threads.
+     */
+    public enum Engine { BLOCKING, NIO }
+
+    /**
+     * Why an exchange produced no usable response. Smuggling probes tell a back end that
+     * sat waiting for more body bytes (TIMEOUT) from one that dropped the connection
+     * (DISCONNECTED).
+     */
+    public enum Failure {
+        /** A response arrived. */
+        NONE,
+        /** The request was sent and nothing came back before the read timeout. */
+        TIMEOUT,
+        /** The request was sent and the connection was closed or reset without a response. */
+        DISCONNECTED,
+        /** The request could not be sent: DNS, connect or TLS failure. */
+        ERROR
+    }
+
+    private static NioHttpEngine nioEngine;
+    private static ExecutorService requestExecutor;
+    private static Semaphore inFlight;
+    private static RawHttpClient shared;
 
-    private final SSLSocketFactory sslSocketFactory;
+    private final Engine engine;
+    private final ConnectionPool connectionPool = new ConnectionPool();
 
     public RawHttpClient() {
-        this.sslSocketFactory = createSSLSocketFactory();
+        this(Engine.BLOCKING);
     }
 
-    private SSLSocketFactory createSSLSocketFactory() {
-        try {
-            TrustManager[] trustAllCerts = new TrustManager[]{
-                new X509TrustManager() {
-                    public X509Certificate[] getAcceptedIssuers() { return new X509Certificate[0]; }
-                    public void checkClientTrusted(X509Certificate[] certs, String authType) {}
-                    public void checkServerTrusted(X509Certificate[] certs, String authType) {}
-                }
-            };
-
-            SSLContext sc = SSLContext.getInstance("TLS");
-            sc.init(null, trustAllCerts, new java.security.SecureRandom());
-            return sc.getSocketFactory();
-        } catch (Exception e) {
-            NetworkLogger.error("Failed to create SSL socket factory", e);
-            return (SSLSocketFactory) SSLSocketFactory.getDefault();
+    public RawHttpClient(Engine engine) {
+        this.engine = engine;
+    }
+
+    /**
+     * @return The process-wide client, so every Repeater window shares one connection pool;
+     *         its engine is chosen by hrs.http.engine
+     */
+    public static synchronized RawHttpClient shared() {
+        if (shared == null) {
+            shared = new RawHttpClient(AppConfig.useNioHttpEngine() ? Engine.NIO : Engine.BLOCKING);
+            NetworkLogger.log("Raw HTTP client uses the " + shared.engine + " engine");
         }
+        return shared;
+    }
+
+    private static synchronized NioHttpEngine nioEngine() throws IOException {
+        if (nioEngine == null) {
+            int threads = Math.max(1, Math.min(4, Runtime.getRuntime().availableProcessors() / 2));
+            nioEngine = new NioHttpEngine(threads);
+        }
+        return nioEngine;
+    }
+
+    /**
+     * Blocking requests run here instead of the common ForkJoin pool: one virtual thread per
+     * request with hrs.executor=virtual, otherwise a fixed pool. Either way at most
+     * hrs.http.concurrency requests are in flight.
+     */
+    static synchronized ExecutorService requestExecutor() {
+        if (requestExecutor == null) {
+            int limit = AppConfig.httpConcurrency();
+            inFlight = new Semaphore(limit);
+            requestExecutor = TaskExecutors.newExecutor("hrs-http", limit);
+        }
+        return requestExecutor;
     }
 
     public String sendRequest(String host, int port, String path, boolean isHttps, String rawRequest) throws IOException {
+        return sendRequest(host, port, path, isHttps, rawRequest, RequestOptions.defaults());
+    }
+
+    public String sendRequest(String host, int port, String path, boolean isHttps, String rawRequest,
+                              RequestOptions options) throws IOException {
         NetworkLogger.log("Parsed URL - Host: " + host + ", Port: " + port + ", Path: " + path + ", HTTPS: " + isHttps);
-        NetworkLogger.log("Connecting to " + host + ":" + port);
-        
-        try (Socket socket = createSocket(host, port)) {
-            // Use the provided raw request
-            NetworkLogger.log("Sending request:\n" + rawRequest);
-            
-            // Convert request to bytes and log hex
-            byte[] requestBytes = rawRequest.getBytes(StandardCharsets.UTF_8);
-            StringBuilder hexLog = new StringBuilder("Request bytes in hex:\n");
-            for (int i = 0; i < requestBytes.length; i++) {
-                String hex = String.format("%02x", requestBytes[i]);
-                hexLog.append(hex).append(" ");
-                if (requestBytes[i] == '\r') hexLog.append("[CR]");
-                if (requestBytes[i] == '\n') hexLog.append("[LF]");
-                if ((i + 1) % 16 == 0) hexLog.append("\n");
+        RawHttpMessage response = execute(host, port, RawHttpMessage.fromText(rawRequest), options);
+        return response.length() == 0 ? NO_RESPONSE : response.toText();
+    }
+
+    /**
+     * Sends the message bytes exactly as given and reads one framed response.
+     * @return The response bytes, empty if the server sent nothing
+     */
+    public RawHttpMessage execute(String host, int port, RawHttpMessage request, RequestOptions options) throws IOException {
+        return execute(host, port, request, options, new RequestTiming());
+    }
+
+    /**
+     * Same as {@link #execute(String, int, RawHttpMessage, RequestOptions)}, recording each phase into {@code timing}.
+     */
+    public RawHttpMessage execute(String host, int port, RawHttpMessage request, RequestOptions options,
+                                  RequestTiming timing) throws IOException {
+        NetworkLogger.log("Connecting to " + host + ":" + port + (options.isFreshConnection() ? " (fresh connection)" : ""));
+
+        // Use the provided raw request
+        NetworkLogger.debug(() -> "Sending request:\n" + request.toText());
+
+        // Hex dump of the exact bytes going on the wire, only when wire dumping is on
+        byte[] requestBytes = request.array();
+        int requestOffset = request.arrayOffset();
+        NetworkLogger.wire("Request bytes", requestBytes, requestOffset, request.length());
+
+        String[] tlsProtocols = options.getTlsProtocols();
+        ConnectionPool.ConnectionKey key = new ConnectionPool.ConnectionKey(host, port, options.useTls(port), host,
+                TlsContextCache.key(tlsProtocols));
+        ConnectionPool.Connector connector = k -> createSocket(k.getHost(), k.getPort(), options, timing);
+        ConnectionPool.PooledConnection connection =
+                connectionPool.acquire(key, options.isFreshConnection(), connector, DEFAULT_TIMEOUT);
+        timing.setConnectionReused(connection.isReused());
+        // A pooled socket keeps the timeout of whoever opened it
+        connection.getSocket().setSoTimeout(options.getReadTimeoutMs());
+
+        RawHttpMessage response;
+        HttpResponseParser parser = HttpResponseParser.forRequest(requestBytes, requestOffset, request.length());
+        try {
+            response = exchange(connection.getSocket(), request, parser, timing);
+            if (connection.isReused() && response.length() == 0) {
+                throw new IOException("Pooled connection closed by peer");
             }
-            NetworkLogger.log(hexLog.toString());
-            
-            // Get streams
-            OutputStream out = socket.getOutputStream();
-            InputStream in = socket.getInputStream();
-            
-            // Write request
-            NetworkLogger.log("Writing " + requestBytes.length + " bytes to socket");
-            out.write(requestBytes);
-            out.flush();
-            NetworkLogger.log("Request written and flushed to socket");
-            
-            // Small delay to ensure request is sent
+        } catch (IOException e) {
+            connectionPool.release(connection, false);
+            // Only a reused socket that failed before answering can be one the peer dropped while idle.
+            // A read timeout or a partial response means the server saw the request, so it is not sent twice.
+            boolean answered = timing.getFirstByteNanos() >= 0;
+            if (!connection.isReused() || answered || e instanceof SocketTimeoutException) {
+                throw e;
+            }
+            // The peer dropped the idle socket after our health check; retry once on a new connection
+            NetworkLogger.log("Pooled connection to " + key + " failed (" + e.getMessage() + "), retrying on a new connection");
+            timing.resetConnection();
+            connection = connectionPool.acquireNew(key, connector, DEFAULT_TIMEOUT);
+            connection.getSocket().setSoTimeout(options.getReadTimeoutMs());
+            parser = HttpResponseParser.forRequest(requestBytes, requestOffset, request.length());
             try {
-                Thread.sleep(100);
-            } catch (InterruptedException e) {
-                Thread.currentThread().interrupt();
+                response = exchange(connection.getSocket(), request, parser, timing);
+            } catch (IOException retryFailure) {
+                connectionPool.release(connection, false);
+                throw retryFailure;
             }
-            
-            // Read response
-            String response = readResponse(in);
-            
-            // Don't close the socket here - let try-with-resources handle it
-            return response;
         }
+
+        // Only a completely framed response with no stray bytes leaves the socket in sync
+        boolean reusable = parser.isComplete() && parser.isKeepAlive() && !request.hasHeaderToken("Connection", "close");
+        connectionPool.release(connection, reusable);
+        return response;
+    }
+
+    private RawHttpMessage exchange(Socket socket, RawHttpMessage request, HttpResponseParser parser,
+                                    RequestTiming timing) throws IOException {
+        // Get streams
+        OutputStream out = socket.getOutputStream();
+        InputStream in = socket.getInputStream();
+
+        // Write request
+        NetworkLogger.log("Writing " + request.length() + " bytes to socket");
+        long writeStart = System.nanoTime();
+        request.writeTo(out);
+        out.flush();
+        long writeEnd = System.nanoTime();
+        timing.setWriteNanos(writeEnd - writeStart);
+        NetworkLogger.log("Request written and flushed to socket");
+
+        // Read response straight away; the read blocks until the first byte arrives
+        return readResponse(in, parser, timing, writeEnd);
     }
 
     public CompletableFuture<RawHttpResponse> sendRawRequest(String host, int port, String rawRequest) {
+        return sendRawRequest(host, port, rawRequest, RequestOptions.defaults());
+    }
+
+    public CompletableFuture<RawHttpResponse> sendRawRequest(String host, int port, String rawRequest, RequestOptions options) {
+        return sendRawRequest(host, port, prepareRequest(rawRequest), options);
+    }
+
+    /**
+     * Turns editor text into request bytes. Only existing line endings are normalized to
+     * CRLF; nothing is added.
+     */
+    public static RawHttpMessage prepareRequest(String rawRequest) {
+        return RawHttpMessage.fromText(normalizeLineEndings(rawRequest));
+    }
+
+    /**
+     * Sends the message bytes unchanged; no line-ending normalization or re-encoding.
+     */
+    public CompletableFuture<RawHttpResponse> sendRawRequest(String host, int port, RawHttpMessage request, RequestOptions options) {
+        if (engine == Engine.NIO) {
+            return sendRawRequestNio(host, port, request, options);
+        }
+        ExecutorService executor = requestExecutor();
         return CompletableFuture.supplyAsync(() -> {
-            long startTime = System.currentTimeMillis();
+            RequestTiming timing = new RequestTiming();
             try {
-                // Only normalize existing line endings to CRLF, no automatic additions
-                String normalizedRequest = rawRequest.replaceAll("\\r\\n|\\n", "\r\n");
-
-                // Parse the first line to get method and path
-                String[] lines = normalizedRequest.split("\r\n", 2);
-                String firstLine = lines[0];
-                String path = "/";
-                if (firstLine.contains(" ")) {
-                    String[] parts = firstLine.split(" ");
-                    if (parts.length > 1) {
-                        path = parts[1];
-                    }
-                }
+                inFlight.acquire();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return new RawHttpResponse(null, 0, "Interrupted while waiting to send", timing);
+            }
+            long startTime = System.nanoTime();
+            try {
+                RawHttpMessage response = execute(host, port, request, options, timing);
 
-                // Send the request using the normalized raw request
-                String response = sendRequest(host, port, path, port == 443, normalizedRequest);
-                
-                long endTime = System.currentTimeMillis();
-                NetworkLogger.log(String.format("Response received in %d ms", endTime - startTime));
-                NetworkLogger.log("Response:\n" + response);
-                
-                return new RawHttpResponse(response, endTime - startTime, null);
+                timing.setTotalNanos(System.nanoTime() - startTime);
+                long elapsed = TimeUnit.NANOSECONDS.toMillis(timing.getTotalNanos());
+                NetworkLogger.log(String.format("Response received in %d ms (%s)", elapsed, timing.summary()));
+                NetworkLogger.debug(() -> "Response:\n" + response.toText());
+
+                return new RawHttpResponse(response, elapsed, null, timing);
             } catch (Exception e) {
                 NetworkLogger.log("Failed to send/receive request: " + e.getMessage());
-                long endTime = System.currentTimeMillis();
-                return new RawHttpResponse(null, endTime - startTime, e.getMessage());
+                timing.setTotalNanos(System.nanoTime() - startTime);
+                return new RawHttpResponse(null, TimeUnit.NANOSECONDS.toMillis(timing.getTotalNanos()), e.getMessage(),
+                        timing, classify(e, timing.getWriteNanos() >= 0));
+            } finally {
+                inFlight.release();
+            }
+        }, executor);
+    }
+
+    private CompletableFuture<RawHttpResponse> sendRawRequestNio(String host, int port, RawHttpMessage request, RequestOptions options) {
+        NioHttpEngine nio;
+        try {
+            nio = nioEngine();
+        } catch (IOException e) {
+            NetworkLogger.log("Failed to start NIO engine: " + e.getMessage());
+            return CompletableFuture.completedFuture(new RawHttpResponse(null, 0, e.getMessage(), new RequestTiming()));
+        }
+        NetworkLogger.log("Sending request via NIO engine to " + host + ":" + port + " (" + request.length() + " bytes)");
+        return nio.send(host, port, request, options);
+    }
+
+    /**
+     * Classifies an exchange failure. Once the request is on the wire, a read timeout
+     * means the server is still waiting and any other I/O error means it hung up.
+     * @param written true if the whole request had been written when {@code e} was thrown
+     */
+    static Failure classify(Exception e, boolean written) {
+        if (!written) {
+            return Failure.ERROR;
+        }
+        if (e instanceof SocketTimeoutException) {
+            return Failure.TIMEOUT;
+        }
+        return e instanceof IOException ? Failure.DISCONNECTED : Failure.ERROR;
+    }
+
+    /**
+     * Writes every request back to back on one fresh connection and attributes the
+     * responses to them in order. Completes with a result, never exceptionally.
+     */
+    public CompletableFuture<PipelineResult> sendPipelined(String host, int port, List<RawHttpMessage> requests,
+                                                           RequestOptions options) {
+        ExecutorService executor = requestExecutor();
+        return CompletableFuture.supplyAsync(() -> {
+            RequestTiming timing = new RequestTiming();
+            try {
+                inFlight.acquire();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return PipelineResult.failed(requests.size(), 0, timing, "Interrupted while waiting to send");
+            }
+            long startTime = System.nanoTime();
+            try {
+                return executePipelined(host, port, requests, options, timing);
+            } catch (Exception e) {
+                NetworkLogger.log("Failed to send/receive pipelined requests: " + e.getMessage());
+                timing.setTotalNanos(System.nanoTime() - startTime);
+                return PipelineResult.failed(requests.size(), TimeUnit.NANOSECONDS.toMillis(timing.getTotalNanos()),
+                        timing, e.getMessage());
+            } finally {
+                inFlight.release();
+            }
+        }, executor);
+    }
+
+    /**
+     * Blocking form of {@link #sendPipelined}. The connection is always fresh and never
+     * pooled afterwards, since a pipelined probe may leave it out of sync.
+     */
+    public PipelineResult executePipelined(String host, int port, List<RawHttpMessage> requests, RequestOptions options,
+                                           RequestTiming timing) throws IOException {
+        if (requests.isEmpty()) {
+            throw new IllegalArgumentException("No requests to pipeline");
+        }
+        long startTime = System.nanoTime();
+        String[] tlsProtocols = options.getTlsProtocols();
+        ConnectionPool.ConnectionKey key = new ConnectionPool.ConnectionKey(host, port, options.useTls(port), host,
+                TlsContextCache.key(tlsProtocols));
+        ConnectionPool.PooledConnection connection = connectionPool.acquire(key, true,
+                k -> createSocket(k.getHost(), k.getPort(), options, timing), DEFAULT_TIMEOUT);
+        try {
+            Socket socket = connection.getSocket();
+            int total = 0;
+            for (RawHttpMessage request : requests) {
+                total += request.length();
+            }
+            NetworkLogger.log("Pipelining " + requests.size() + " requests (" + total + " bytes) to " + key);
+
+            // One buffered write so the requests leave together rather than one segment per request
+            OutputStream out = new BufferedOutputStream(socket.getOutputStream(), Math.max(total, 1));
+            long writeStart = System.nanoTime();
+            for (RawHttpMessage request : requests) {
+                NetworkLogger.wire("Pipelined request bytes", request.array(), request.arrayOffset(), request.length());
+                request.writeTo(out);
             }
-        });
+            out.flush();
+            long writeEnd = System.nanoTime();
+            timing.setWriteNanos(writeEnd - writeStart);
+
+            PipelineResult result = readPipelined(socket, requests, timing, writeEnd, startTime);
+            NetworkLogger.log("Pipeline to " + key + " finished: " + result);
+            return result;
+        } finally {
+            connectionPool.release(connection, false);
+        }
     }
 
-    private String readResponse(InputStream in) throws IOException {
-        StringBuilder response = new StringBuilder();
+    /**
+     * Frames responses one after another, each with the parser for its own request.
+     * After the last expected response, waits briefly for anything else the server sends.
+     */
+    PipelineResult readPipelined(Socket socket, List<RawHttpMessage> requests, RequestTiming timing,
+                                         long writeEnd, long startTime) throws IOException {
+        InputStream in = socket.getInputStream();
+        RawHttpMessage.Builder received = new RawHttpMessage.Builder(DEFAULT_BUFFER_SIZE);
+        List<int[]> bounds = new ArrayList<>();
         byte[] buffer = new byte[32768];
-        int bytesRead;
-        int totalBytesRead = 0;
-        int readAttempts = 0;
-        final int maxAttempts = 10; // Increased max attempts
-        
-        NetworkLogger.log("Starting to read response...");
-        
+        int index = 0;
+        int messageStart = 0;
+        long firstByte = 0;
+        long framedEnd = 0;
+        boolean eof = false;
+        HttpResponseParser parser = parserFor(requests.get(0));
+
         try {
-            while (readAttempts < maxAttempts) {
-                readAttempts++;
-                
-                try {
-                    // Try to read available data
-                    int available = in.available();
-                    if (available > 0) {
-                        NetworkLogger.log("Data available: " + available + " bytes");
-                        bytesRead = in.read(buffer, 0, Math.min(available, buffer.length));
-                    } else {
-                        // If no data is available, do a blocking read with timeout
-                        NetworkLogger.log("No data available, attempting blocking read (attempt " + readAttempts + ")");
-                        bytesRead = in.read(buffer);
-                    }
-                    
-                    if (bytesRead == -1) {
-                        NetworkLogger.log("End of stream reached on attempt " + readAttempts);
-                        if (totalBytesRead > 0) {
-                            // If we have data, consider the response complete
-                            break;
-                        }
-                        // No data yet, wait longer between attempts
-                        Thread.sleep(200);
-                        continue;
-                    }
-                    
-                    totalBytesRead += bytesRead;
-                    String chunk = new String(buffer, 0, bytesRead, StandardCharsets.UTF_8);
-                    response.append(chunk);
-                    
-                    // Log received data
-                    StringBuilder hexLog = new StringBuilder("Received bytes in hex:\n");
-                    for (int i = 0; i < bytesRead; i++) {
-                        String hex = String.format("%02x", buffer[i]);
-                        hexLog.append(hex).append(" ");
-                        if (buffer[i] == '\r') hexLog.append("[CR]");
-                        if (buffer[i] == '\n') hexLog.append("[LF]");
-                        if ((i + 1) % 16 == 0) hexLog.append("\n");
+            while (index < requests.size()) {
+                int bytesRead = in.read(buffer);
+                if (bytesRead == -1) {
+                    eof = true;
+                    parser.onEof();
+                    if (parser.isComplete()) {
+                        bounds.add(new int[]{messageStart, received.size()});
+                        messageStart = received.size();
+                        index++;
                     }
-                    NetworkLogger.log(hexLog.toString());
-                    
-                    // If we have a complete response with headers and some body, we can stop
-                    if (response.indexOf("\r\n\r\n") != -1) {
-                        String headers = response.substring(0, response.indexOf("\r\n\r\n"));
-                        NetworkLogger.log("Received headers:\n" + headers);
-                        
-                        // Check if we have some body data after headers
-                        if (response.length() > headers.length() + 4) {
-                            NetworkLogger.log("Got complete response with body");
-                            break;
-                        }
-                        
-                        // If headers indicate no body, we can stop
-                        String lowerHeaders = headers.toLowerCase();
-                        if (lowerHeaders.contains("content-length: 0") || 
-                            (lowerHeaders.contains("transfer-encoding: chunked") && response.toString().endsWith("0\r\n\r\n"))) {
-                            NetworkLogger.log("Response complete based on headers");
-                            break;
-                        }
+                    break;
+                }
+                if (firstByte == 0) {
+                    firstByte = System.nanoTime();
+                    timing.setFirstByteNanos(firstByte - writeEnd);
+                }
+                NetworkLogger.wire("Received bytes", buffer, 0, bytesRead);
+                int base = received.size();
+                received.append(buffer, 0, bytesRead);
+                int pos = 0;
+                while (pos < bytesRead && index < requests.size()) {
+                    pos += parser.feed(buffer, pos, bytesRead - pos);
+                    if (!parser.isComplete()) {
+                        break;
                     }
-                    
-                    // Wait a bit between reads if we haven't found the end yet
-                    if (readAttempts < maxAttempts) {
-                        Thread.sleep(100);
+                    bounds.add(new int[]{messageStart, base + pos});
+                    messageStart = base + pos;
+                    if (++index < requests.size()) {
+                        parser = parserFor(requests.get(index));
                     }
-                    
-                } catch (SocketTimeoutException e) {
-                    NetworkLogger.log("Read timeout on attempt " + readAttempts);
-                    if (response.length() > 0) break;
-                    if (readAttempts >= maxAttempts) throw e;
-                } catch (InterruptedException e) {
-                    Thread.currentThread().interrupt();
+                }
+            }
+
+            if (index == requests.size() && !eof) {
+                framedEnd = System.nanoTime();
+                // Anything the server sends now answers a request we did not send
+                socket.setSoTimeout(EXTRA_RESPONSE_GRACE);
+                int bytesRead;
+                while ((bytesRead = in.read(buffer)) != -1) {
+                    NetworkLogger.wire("Received bytes", buffer, 0, bytesRead);
+                    received.append(buffer, 0, bytesRead);
+                }
+            }
+        } catch (SocketTimeoutException e) {
+            NetworkLogger.log("Pipeline read timed out after " + received.size() + " bytes");
+        }
+        // The grace wait for surplus bytes is ours, not the server's, so it is not timed
+        long end = framedEnd != 0 ? framedEnd : System.nanoTime();
+        if (firstByte != 0) {
+            timing.setBodyNanos(end - firstByte);
+        }
+        timing.setTotalNanos(end - startTime);
+
+        RawHttpMessage all = received.build();
+        List<RawHttpMessage> responses = new ArrayList<>();
+        for (int[] bound : bounds) {
+            responses.add(RawHttpMessage.wrap(all.array(), bound[0], bound[1] - bound[0]));
+        }
+        int leftover = all.length() - messageStart;
+        RawHttpMessage unframed = leftover > 0 ? RawHttpMessage.wrap(all.array(), messageStart, leftover) : null;
+
+        PipelineResult.Outcome outcome;
+        List<RawHttpMessage> extra = new ArrayList<>();
+        if (index < requests.size()) {
+            outcome = PipelineResult.Outcome.MISSING_RESPONSE;
+        } else if (unframed != null) {
+            outcome = PipelineResult.Outcome.EXTRA_RESPONSE;
+            extra = frameAll(all.array(), messageStart, leftover);
+        } else {
+            outcome = PipelineResult.Outcome.MATCHED;
+        }
+        return new PipelineResult(outcome, requests.size(), responses, extra, unframed,
+                TimeUnit.NANOSECONDS.toMillis(timing.getTotalNanos()), timing, null);
+    }
+
+    private static HttpResponseParser parserFor(RawHttpMessage request) {
+        return HttpResponseParser.forRequest(request.array(), request.arrayOffset(), request.length());
+    }
+
+    /**
+     * Splits surplus bytes into complete responses, assuming they answer non-HEAD requests.
+     */
+    private static List<RawHttpMessage> frameAll(byte[] data, int offset, int length) {
+        List<RawHttpMessage> framed = new ArrayList<>();
+        int pos = offset;
+        int end = offset + length;
+        while (pos < end) {
+            HttpResponseParser parser = new HttpResponseParser(false);
+            int consumed = parser.feed(data, pos, end - pos);
+            if (!parser.isComplete()) {
+                parser.onEof();
+                if (!parser.isComplete()) {
                     break;
                 }
             }
-            
-            NetworkLogger.log("Finished reading response. Total bytes read: " + totalBytesRead + " in " + readAttempts + " attempts");
-            
-            if (totalBytesRead == 0) {
-                NetworkLogger.log("Warning: No bytes were read from the response after " + readAttempts + " attempts");
-                return "No response received from server";
+            framed.add(RawHttpMessage.wrap(data, pos, consumed));
+            pos += consumed;
+        }
+        return framed;
+    }
+
+    private static String normalizeLineEndings(String rawRequest) {
+        return rawRequest.replaceAll("\\r\\n|\\n", "\r\n");
+    }
+
+    /**
+     * Reads exactly one response, as framed by the parser, and returns as soon as it is
+     * complete. Bytes arriving in the same read after the end of the message are kept in
+     * the returned message but mark the connection as out of sync.
+     */
+    RawHttpMessage readResponse(InputStream in, HttpResponseParser parser, RequestTiming timing,
+                                        long writeEnd) throws IOException {
+        RawHttpMessage.Builder response = new RawHttpMessage.Builder(DEFAULT_BUFFER_SIZE);
+        byte[] buffer = new byte[32768];
+        int bytesRead;
+        int reads = 0;
+        long firstByte = 0;
+
+        NetworkLogger.log("Starting to read response...");
+
+        try {
+            while (!parser.isComplete()) {
+                bytesRead = in.read(buffer);
+                if (bytesRead == -1) {
+                    NetworkLogger.log("End of stream reached after " + response.size() + " bytes");
+                    parser.onEof();
+                    break;
+                }
+                if (reads++ == 0) {
+                    firstByte = System.nanoTime();
+                    timing.setFirstByteNanos(firstByte - writeEnd);
+                }
+                response.append(buffer, 0, bytesRead);
+                int consumed = parser.feed(buffer, 0, bytesRead);
+                if (consumed < bytesRead) {
+                    NetworkLogger.log((bytesRead - consumed) + " unexpected bytes after end of response");
+                    parser.onTrailingData();
+                }
+
+                // Log received data
+                NetworkLogger.wire("Received bytes", buffer, 0, bytesRead);
             }
-            
-            return response.toString();
-            
-        } catch (Exception e) {
-            NetworkLogger.log("Exception while reading response: " + e.getMessage());
-            if (totalBytesRead > 0) {
-                return response.toString();
+        } catch (SocketTimeoutException e) {
+            NetworkLogger.log("Read timeout after " + response.size() + " bytes");
+            if (response.size() == 0) {
+                throw e;
             }
-            throw new IOException("Failed to read response: " + e.getMessage(), e);
         }
+
+        if (reads > 0) {
+            timing.setBodyNanos(System.nanoTime() - firstByte);
+        }
+        NetworkLogger.log("Finished reading response. Total bytes read: " + response.size() + " in " + reads
+                + " reads" + (parser.isComplete() ? "" : " (incomplete)"));
+
+        if (response.size() == 0) {
+            NetworkLogger.log("Warning: No bytes were read from the response");
+        }
+        return response.build();
     }
 
     private void quietlyClose(Closeable closeable) {
@@ -239,36 +535,49 @@ public class RawHttpClient {
         }
     }
 
-    private Socket createSocket(String host, int port) throws IOException {
+    /**
+     * Opens a connected socket, completing the TLS handshake when the options call for
+     * TLS, without going through the pool. Used by senders that need to manage
+     * connections themselves.
+     */
+    Socket openSocket(String host, int port, RequestOptions options, RequestTiming timing) throws IOException {
+        return createSocket(host, port, options, timing);
+    }
+
+    private Socket createSocket(String host, int port, RequestOptions options, RequestTiming timing) throws IOException {
+        String[] tlsProtocols = options.getTlsProtocols();
+        int connectTimeout = options.getConnectTimeoutMs();
+        int readTimeout = options.getReadTimeoutMs();
+        // Resolve up front so DNS is timed separately from the TCP connect
+        long dnsStart = System.nanoTime();
+        InetAddress address = InetAddress.getByName(host);
+        timing.setDnsNanos(System.nanoTime() - dnsStart);
+
         Socket socket;
-        if (port == 443) {
+        if (options.useTls(port)) {
             NetworkLogger.log("Creating SSL socket for HTTPS connection");
             try {
                 // Create socket and connect first
                 socket = new Socket();
                 socket.setTcpNoDelay(true);
-                socket.setSoTimeout(10000);
+                socket.setSoTimeout(connectTimeout); // Also bounds the handshake
                 socket.setKeepAlive(true);
                 socket.setReceiveBufferSize(32768); // Increase receive buffer
                 socket.setSendBufferSize(32768);    // Increase send buffer
                 
                 NetworkLogger.log("Connecting socket to " + host + ":" + port);
-                socket.connect(new InetSocketAddress(host, port), 10000);
-                
-                // Create SSLContext with TLSv1.2
-                SSLContext sslContext = SSLContext.getInstance("TLSv1.2");
-                sslContext.init(null, new TrustManager[]{
-                    new X509TrustManager() {
-                        public X509Certificate[] getAcceptedIssuers() { return new X509Certificate[0]; }
-                        public void checkClientTrusted(X509Certificate[] certs, String authType) {}
-                        public void checkServerTrusted(X509Certificate[] certs, String authType) {}
-                    }
-                }, new SecureRandom());
+                long connectStart = System.nanoTime();
+                socket.connect(new InetSocketAddress(address, port), connectTimeout);
+                timing.setConnectNanos(System.nanoTime() - connectStart);
                 
+                // Reuse the cached context for these protocol versions so its session cache
+                // lets repeat connections resume instead of doing a full handshake
+                SSLContext sslContext = TlsContextCache.get(tlsProtocols);
+
                 // Create SSLSocket with SNI extension
                 SSLSocketFactory factory = sslContext.getSocketFactory();
                 SSLSocket sslSocket = (SSLSocket) factory.createSocket(socket, host, port, true);
-                
+
                 // Enable SNI
                 SNIHostName sniHostname = new SNIHostName(host);
                 List<SNIServerName> sniNames = new ArrayList<>();
@@ -276,27 +585,26 @@ public class RawHttpClient {
                 SSLParameters params = sslSocket.getSSLParameters();
                 params.setServerNames(sniNames);
                 sslSocket.setSSLParameters(params);
-                
-                // Set TLSv1.2 only
-                sslSocket.setEnabledProtocols(new String[]{"TLSv1.2"});
-                
+
+                // Restrict to the requested protocol versions
+                sslSocket.setEnabledProtocols(TlsContextCache.supportedProtocols(tlsProtocols));
+
                 // Log protocols and start handshake
-                NetworkLogger.log("Available protocols: " + String.join(", ", sslSocket.getSupportedProtocols()));
+                NetworkLogger.log("Enabled protocols: " + String.join(", ", sslSocket.getEnabledProtocols()));
                 NetworkLogger.log("Starting SSL handshake with SNI: " + host);
+                long handshakeStart = System.currentTimeMillis();
+                long handshakeStartNanos = System.nanoTime();
                 sslSocket.startHandshake();
-                NetworkLogger.log("SSL handshake completed");
-                
+                timing.setTlsNanos(System.nanoTime() - handshakeStartNanos);
+                SSLSession session = sslSocket.getSession();
+                boolean resumed = session.getCreationTime() < handshakeStart;
+                NetworkLogger.log("SSL handshake completed" + (resumed ? " (session resumed)" : " (full handshake)"));
+
                 // Log the negotiated protocol and cipher suite
-                NetworkLogger.log("Negotiated protocol: " + sslSocket.getSession().getProtocol());
-                NetworkLogger.log("Negotiated cipher suite: " + sslSocket.getSession().getCipherSuite());
-                
-                // Small delay after handshake
-                try {
-                    Thread.sleep(100);
-                } catch (InterruptedException e) {
-                    Thread.currentThread().interrupt();
-                }
-                
+                NetworkLogger.log("Negotiated protocol: " + session.getProtocol());
+                NetworkLogger.log("Negotiated cipher suite: " + session.getCipherSuite());
+
+                sslSocket.setSoTimeout(readTimeout);
                 socket = sslSocket;
                 
             } catch (Exception e) {
@@ -306,31 +614,77 @@ public class RawHttpClient {
             NetworkLogger.log("Creating plain socket for HTTP connection");
             socket = new Socket();
             socket.setTcpNoDelay(true);
-            socket.setSoTimeout(10000);
+            socket.setSoTimeout(readTimeout);
             socket.setKeepAlive(true);
             
             NetworkLogger.log("Connecting socket to " + host + ":" + port);
-            socket.connect(new InetSocketAddress(host, port), 10000);
+            long connectStart = System.nanoTime();
+            socket.connect(new InetSocketAddress(address, port), connectTimeout);
+            timing.setConnectNanos(System.nanoTime() - connectStart);
         }
         
         return socket;
     }
 
     public static class RawHttpResponse {
-        private final String rawResponse;
+        private final RawHttpMessage message;
         private final long responseTimeMs;
         private final String error;
+        private final RequestTiming timing;
+        private final Failure failure;
+        private volatile String rawResponse;
 
         public RawHttpResponse(String rawResponse, long responseTimeMs, String error) {
+            this.message = rawResponse == null ? null : RawHttpMessage.fromText(rawResponse);
             this.rawResponse = rawResponse;
             this.responseTimeMs = responseTimeMs;
             this.error = error;
+            this.timing = new RequestTiming();
+            this.failure = error != null ? Failure.ERROR : Failure.NONE;
+        }
+
+        public RawHttpResponse(RawHttpMessage message, long responseTimeMs, String error, RequestTiming timing) {
+            this(message, responseTimeMs, error, timing, error != null ? Failure.ERROR
+                    : message != null && message.length() == 0 ? Failure.DISCONNECTED : Failure.NONE);
+        }
+
+        public RawHttpResponse(RawHttpMessage message, long responseTimeMs, String error, RequestTiming timing,
+                               Failure failure) {
+            this.message = message;
+            this.responseTimeMs = responseTimeMs;
+            this.error = error;
+            this.timing = timing;
+            this.failure = failure;
         }
 
-        public String getRawResponse() { return rawResponse; }
+        /**
+         * @return The response as text with one char per byte, for display. Requests are
+         *         encoded the same way, so a response pasted into the editor sends the same bytes
+         */
+        public String getRawResponse() {
+            if (rawResponse == null && message != null) {
+                rawResponse = message.length() == 0 ? NO_RESPONSE : message.toText();
+            }
+            return rawResponse;
+        }
+
+        /**
+         * @return The exact response bytes, or null if the request failed
+         */
+        public RawHttpMessage getMessage() { return message; }
         public long getResponseTimeMs() { return responseTimeMs; }
+
+        /**
+         * @return Per-phase breakdown of {@link #getResponseTimeMs()}
+         */
+        public RequestTiming getTiming() { return timing; }
         public String getError() { return error; }
         public boolean hasError() { return error != null && !error.isEmpty(); }
+
+        /**
+         * @return Why there is no response; an empty response counts as {@link Failure#DISCONNECTED}
+         */
+        public Failure getFailure() { return failure; }
     }
 
     public static class UrlParser {
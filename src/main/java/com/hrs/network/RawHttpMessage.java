@@ -0,0 +1,221 @@
+package com.hrs.network;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Byte-exact raw HTTP message backed by a region of a byte array.
+ * The bytes are never re-encoded: what was written is what goes on the wire, including
+ * control bytes and 0x80-0xFF header mutations. Offsets of the start line, header block
+ * and body are located once, and the accessors return views rather than copies.
+ */
+public final class RawHttpMessage {
+    private final byte[] data;
+    private final int offset;
+    private final int length;
+    private final int startLineEnd;
+    private final int headersStart;
+    private final int headersEnd;
+    private final int bodyStart;
+
+    private RawHttpMessage(byte[] data, int offset, int length) {
+        if (offset < 0 || length < 0 || offset + length > data.length) {
+            throw new IndexOutOfBoundsException("Invalid message region " + offset + "+" + length + " of " + data.length);
+        }
+        this.data = data;
+        this.offset = offset;
+        this.length = length;
+
+        int end = offset + length;
+        int firstLf = indexOf((byte) '\n', offset, end);
+        if (firstLf == -1) {
+            startLineEnd = end;
+            headersStart = end;
+            headersEnd = end;
+            bodyStart = end;
+            return;
+        }
+        startLineEnd = firstLf > offset && data[firstLf - 1] == '\r' ? firstLf - 1 : firstLf;
+        headersStart = firstLf + 1;
+
+        int lineStart = headersStart;
+        int blankLine = -1;
+        int blankLineEnd = end;
+        while (lineStart < end) {
+            int lf = indexOf((byte) '\n', lineStart, end);
+            if (lf == -1) {
+                break;
+            }
+            if (lf == lineStart || (lf == lineStart + 1 && data[lineStart] == '\r')) {
+                blankLine = lineStart;
+                blankLineEnd = lf + 1;
+                break;
+            }
+            lineStart = lf + 1;
+        }
+        headersEnd = blankLine == -1 ? end : blankLine;
+        bodyStart = blankLine == -1 ? end : blankLineEnd;
+    }
+
+    /**
+     * Wraps the whole array without copying it. The caller must not modify it afterwards.
+     */
+    public static RawHttpMessage wrap(byte[] data) {
+        return new RawHttpMessage(data, 0, data.length);
+    }
+
+    /**
+     * Wraps a region of the array without copying it. The caller must not modify it afterwards.
+     */
+    public static RawHttpMessage wrap(byte[] data, int offset, int length) {
+        return new RawHttpMessage(data, offset, length);
+    }
+
+    /**
+     * Encodes editor text byte for byte: characters up to U+00FF become that single byte,
+     * so a pasted 0xFF stays 0xFF; anything above is written as UTF-8.
+     */
+    public static RawHttpMessage fromText(String text) {
+        byte[] bytes = new byte[text.length()];
+        int n = 0;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c <= 0xFF) {
+                if (n == bytes.length) {
+                    bytes = Arrays.copyOf(bytes, bytes.length * 2 + 4);
+                }
+                bytes[n++] = (byte) c;
+                continue;
+            }
+            int codePoint = text.codePointAt(i);
+            byte[] utf8 = new String(Character.toChars(codePoint)).getBytes(StandardCharsets.UTF_8);
+            if (n + utf8.length > bytes.length) {
+                bytes = Arrays.copyOf(bytes, (bytes.length + utf8.length) * 2);
+            }
+            System.arraycopy(utf8, 0, bytes, n, utf8.length);
+            n += utf8.length;
+            i += Character.charCount(codePoint) - 1;
+        }
+        return new RawHttpMessage(bytes, 0, n);
+    }
+
+    public int length() { return length; }
+    public byte[] array() { return data; }
+    public int arrayOffset() { return offset; }
+    public int bodyLength() { return offset + length - bodyStart; }
+
+    /**
+     * @return Read-only view of the whole message
+     */
+    public ByteBuffer asByteBuffer() {
+        return ByteBuffer.wrap(data, offset, length).slice().asReadOnlyBuffer();
+    }
+
+    /**
+     * @return Read-only view of the start line, without its line terminator
+     */
+    public ByteBuffer startLine() {
+        return view(offset, startLineEnd);
+    }
+
+    /**
+     * @return Read-only view of the header lines, without the blank line that ends them
+     */
+    public ByteBuffer headers() {
+        return view(headersStart, headersEnd);
+    }
+
+    /**
+     * @return Read-only view of everything after the blank line
+     */
+    public ByteBuffer body() {
+        return view(bodyStart, offset + length);
+    }
+
+    public String startLineText() {
+        return new String(data, offset, startLineEnd - offset, StandardCharsets.ISO_8859_1);
+    }
+
+    /**
+     * Checks a header for a comma-separated token, e.g. {@code hasHeaderToken("Connection", "close")}.
+     * Names and tokens are compared case-insensitively.
+     */
+    public boolean hasHeaderToken(String name, String token) {
+        String block = new String(data, headersStart, headersEnd - headersStart, StandardCharsets.ISO_8859_1);
+        for (String line : block.split("\r?\n")) {
+            int colon = line.indexOf(':');
+            if (colon > 0 && line.substring(0, colon).trim().equalsIgnoreCase(name)
+                    && line.substring(colon + 1).toLowerCase().contains(token.toLowerCase())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public void writeTo(OutputStream out) throws IOException {
+        out.write(data, offset, length);
+    }
+
+    /**
+     * @return The message as text with one char per byte, which round-trips exactly through {@link #fromText}
+     */
+    public String toText() {
+        return decode(StandardCharsets.ISO_8859_1);
+    }
+
+    public String decode(Charset charset) {
+        return new String(data, offset, length, charset);
+    }
+
+    @Override
+    public String toString() {
+        return toText();
+    }
+
+    private ByteBuffer view(int from, int to) {
+        return ByteBuffer.wrap(data, from, Math.max(0, to - from)).slice().asReadOnlyBuffer();
+    }
+
+    private int indexOf(byte b, int from, int to) {
+        for (int i = from; i < to; i++) {
+            if (data[i] == b) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Growable receive buffer that hands its array to a message without a final copy.
+     */
+    public static final class Builder {
+        private byte[] buffer;
+        private int size;
+
+        public Builder() {
+            this(8192);
+        }
+
+        public Builder(int initialCapacity) {
+            this.buffer = new byte[Math.max(16, initialCapacity)];
+        }
+
+        public void append(byte[] bytes, int off, int len) {
+            if (size + len > buffer.length) {
+                buffer = Arrays.copyOf(buffer, Math.max(buffer.length * 2, size + len));
+            }
+            System.arraycopy(bytes, off, buffer, size, len);
+            size += len;
+        }
+
+        public int size() { return size; }
+
+        public RawHttpMessage build() {
+            return new RawHttpMessage(buffer, 0, size);
+        }
+    }
+}
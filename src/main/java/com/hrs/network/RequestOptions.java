@@ -0,0 +1,86 @@
+package com.hrs.network;
+
+/**
+ * Per-request settings for {@link RawHttpClient}.
+ */
+public class RequestOptions {
+    private static final int DEFAULT_TIMEOUT = 10000; // 10 seconds
+
+    private boolean freshConnection;
+    private String[] tlsProtocols = TlsContextCache.DEFAULT_PROTOCOLS;
+    private Boolean tls;
+    private int connectTimeoutMs = DEFAULT_TIMEOUT;
+    private int readTimeoutMs = DEFAULT_TIMEOUT;
+
+    /**
+     * @return Options for an ordinary request that may reuse a pooled connection
+     */
+    public static RequestOptions defaults() {
+        return new RequestOptions();
+    }
+
+    /**
+     * Forces a brand-new connection that is closed after the exchange. Smuggling probes
+     * need this so that a poisoned socket is never handed to a later request.
+     * @param freshConnection true to bypass the connection pool
+     * @return The current RequestOptions instance
+     */
+    public RequestOptions withFreshConnection(boolean freshConnection) {
+        this.freshConnection = freshConnection;
+        return this;
+    }
+
+    /**
+     * Sets the TLS versions offered in the handshake, e.g. "TLSv1.3", "TLSv1.2".
+     * @param tlsProtocols The protocol versions to enable
+     * @return The current RequestOptions instance
+     */
+    public RequestOptions withTlsProtocols(String... tlsProtocols) {
+        if (tlsProtocols != null && tlsProtocols.length > 0) {
+            this.tlsProtocols = tlsProtocols.clone();
+        }
+        return this;
+    }
+
+    /**
+     * Forces TLS on or off. Without this, TLS is used only for port 443.
+     * @param tls true to wrap the connection in TLS
+     * @return The current RequestOptions instance
+     */
+    public RequestOptions withTls(boolean tls) {
+        this.tls = tls;
+        return this;
+    }
+
+    /**
+     * @param connectTimeoutMs Maximum time for the TCP connect and the TLS handshake
+     * @return The current RequestOptions instance
+     */
+    public RequestOptions withConnectTimeout(int connectTimeoutMs) {
+        this.connectTimeoutMs = Math.max(1, connectTimeoutMs);
+        return this;
+    }
+
+    /**
+     * Sets how long to wait for response bytes. A probe that gets nothing back within
+     * this time reports {@link RawHttpClient.Failure#TIMEOUT}.
+     * @param readTimeoutMs Maximum wait for the first and each following response read
+     * @return The current RequestOptions instance
+     */
+    public RequestOptions withReadTimeout(int readTimeoutMs) {
+        this.readTimeoutMs = Math.max(1, readTimeoutMs);
+        return this;
+    }
+
+    /**
+     * @return true if a connection to {@code port} should use TLS
+     */
+    public boolean useTls(int port) {
+        return tls != null ? tls : port == 443;
+    }
+
+    public boolean isFreshConnection() { return freshConnection; }
+    public String[] getTlsProtocols() { return tlsProtocols.clone(); }
+    public int getConnectTimeoutMs() { return connectTimeoutMs; }
+    public int getReadTimeoutMs() { return readTimeoutMs; }
+}
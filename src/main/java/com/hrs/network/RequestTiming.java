@@ -0,0 +1,88 @@
+package com.hrs.network;
+
+import java.util.Locale;
+
+/**
+ * Per-phase {@link System#nanoTime()} breakdown of one raw exchange.
+ * Phases that did not happen, such as DNS, connect and TLS on a reused pooled
+ * connection, stay at -1.
+ */
+public class RequestTiming {
+    private long dnsNanos = -1;
+    private long connectNanos = -1;
+    private long tlsNanos = -1;
+    private long writeNanos = -1;
+    private long firstByteNanos = -1;
+    private long bodyNanos = -1;
+    private long totalNanos = -1;
+    private boolean connectionReused;
+
+    void setDnsNanos(long dnsNanos) { this.dnsNanos = dnsNanos; }
+    void setConnectNanos(long connectNanos) { this.connectNanos = connectNanos; }
+    void setTlsNanos(long tlsNanos) { this.tlsNanos = tlsNanos; }
+    void setWriteNanos(long writeNanos) { this.writeNanos = writeNanos; }
+    void setFirstByteNanos(long firstByteNanos) { this.firstByteNanos = firstByteNanos; }
+    void setBodyNanos(long bodyNanos) { this.bodyNanos = bodyNanos; }
+    void setTotalNanos(long totalNanos) { this.totalNanos = totalNanos; }
+    void setConnectionReused(boolean connectionReused) { this.connectionReused = connectionReused; }
+
+    /**
+     * Clears the connection phases before a retry on a new connection.
+     */
+    void resetConnection() {
+        dnsNanos = -1;
+        connectNanos = -1;
+        tlsNanos = -1;
+        connectionReused = false;
+    }
+
+    public long getDnsNanos() { return dnsNanos; }
+    public long getConnectNanos() { return connectNanos; }
+    public long getTlsNanos() { return tlsNanos; }
+    public long getWriteNanos() { return writeNanos; }
+
+    /**
+     * @return Time from the end of the request write to the first response byte
+     */
+    public long getFirstByteNanos() { return firstByteNanos; }
+
+    /**
+     * @return Time from the first response byte to the end of the response
+     */
+    public long getBodyNanos() { return bodyNanos; }
+    public long getTotalNanos() { return totalNanos; }
+    public boolean isConnectionReused() { return connectionReused; }
+
+    /**
+     * @return A one-line breakdown, e.g. "DNS 0.3 | TCP 1.2 | TLS 8.4 | Write 0.1 | TTFB 20.5 | Body 0.4 ms"
+     */
+    public String summary() {
+        StringBuilder sb = new StringBuilder();
+        if (connectionReused) {
+            sb.append("Reused connection");
+        } else {
+            append(sb, "DNS", dnsNanos);
+            append(sb, "TCP", connectNanos);
+            append(sb, "TLS", tlsNanos);
+        }
+        append(sb, "Write", writeNanos);
+        append(sb, "TTFB", firstByteNanos);
+        append(sb, "Body", bodyNanos);
+        return sb.length() == 0 ? "" : sb.append(" ms").toString();
+    }
+
+    private static void append(StringBuilder sb, String name, long nanos) {
+        if (nanos < 0) {
+            return;
+        }
+        if (sb.length() > 0) {
+            sb.append(" | ");
+        }
+        sb.append(name).append(' ').append(String.format(Locale.ROOT, "%.1f", nanos / 1_000_000.0));
+    }
+
+    @Override
+    public String toString() {
+        return summary();
+    }
+}
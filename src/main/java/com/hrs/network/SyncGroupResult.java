@@ -0,0 +1,57 @@
+package com.hrs.network;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Outcome of a {@link LastByteSyncSender} group: one response per request plus how
+ * tightly the final bytes were released.
+ */
+public class SyncGroupResult {
+    private final LastByteSyncSender.Mode mode;
+    private final List<RawHttpClient.RawHttpResponse> responses;
+    private final long[] releaseOffsetsNanos;
+    private final PipelineResult pipelineResult;
+    private final String error;
+
+    SyncGroupResult(LastByteSyncSender.Mode mode, List<RawHttpClient.RawHttpResponse> responses,
+                    long[] releaseOffsetsNanos, PipelineResult pipelineResult, String error) {
+        this.mode = mode;
+        this.responses = Collections.unmodifiableList(responses);
+        this.releaseOffsetsNanos = releaseOffsetsNanos;
+        this.pipelineResult = pipelineResult;
+        this.error = error;
+    }
+
+    static SyncGroupResult failed(LastByteSyncSender.Mode mode, String error) {
+        return new SyncGroupResult(mode, Collections.emptyList(), new long[0], null, error);
+    }
+
+    public LastByteSyncSender.Mode getMode() { return mode; }
+
+    /**
+     * @return Responses in request order. Their response time runs from the request's own
+     *         final-byte release to its last response byte.
+     */
+    public List<RawHttpClient.RawHttpResponse> getResponses() { return responses; }
+
+    /**
+     * @return For each request, when its final byte was written relative to the first one
+     */
+    public long[] getReleaseOffsetsNanos() { return releaseOffsetsNanos.clone(); }
+
+    /**
+     * @return Time between the first and the last final-byte write
+     */
+    public long getReleaseSkewNanos() {
+        return releaseOffsetsNanos.length == 0 ? 0 : releaseOffsetsNanos[releaseOffsetsNanos.length - 1];
+    }
+
+    /**
+     * @return Response attribution for {@link LastByteSyncSender.Mode#PIPELINED}, otherwise null
+     */
+    public PipelineResult getPipelineResult() { return pipelineResult; }
+
+    public String getError() { return error; }
+    public boolean hasError() { return error != null && !error.isEmpty(); }
+}
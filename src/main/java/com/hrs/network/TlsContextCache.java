@@ -0,0 +1,85 @@
+package com.hrs.network;
+
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.SSLSessionContext;
+import javax.net.ssl.TrustManager;
+import javax.net.ssl.X509TrustManager;
+import java.security.SecureRandom;
+import java.security.cert.X509Certificate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Process-wide cache of trust-all SSLContexts, one per set of enabled protocol versions.
+ * Reusing a context keeps its client session cache, so a second connection to the same
+ * host:port can resume the TLS session (session ID or ticket) instead of doing a full handshake.
+ */
+public final class TlsContextCache {
+    /** TLS 1.3 first, falling back to TLS 1.2. */
+    public static final String[] DEFAULT_PROTOCOLS = {"TLSv1.3", "TLSv1.2"};
+
+    private static final int SESSION_CACHE_SIZE = 4096;
+    private static final int SESSION_TIMEOUT = 3600; // 1 hour, in seconds
+
+    private static final Map<String, SSLContext> contexts = new ConcurrentHashMap<>();
+
+    private TlsContextCache() {
+    }
+
+    /**
+     * @param protocols Enabled protocol versions, e.g. {"TLSv1.3", "TLSv1.2"}
+     * @return The shared context for that configuration
+     */
+    public static SSLContext get(String[] protocols) {
+        return contexts.computeIfAbsent(key(protocols), k -> create());
+    }
+
+    /**
+     * Keeps only the requested protocols this JVM can actually negotiate.
+     * @throws IllegalArgumentException If none of them is supported
+     */
+    public static String[] supportedProtocols(String[] protocols) {
+        List<String> supported = Arrays.asList(get(protocols).getSupportedSSLParameters().getProtocols());
+        List<String> enabled = new ArrayList<>();
+        for (String protocol : protocols) {
+            if (supported.contains(protocol)) {
+                enabled.add(protocol);
+            }
+        }
+        if (enabled.isEmpty()) {
+            throw new IllegalArgumentException("None of the TLS versions " + Arrays.toString(protocols) + " is supported by this JVM");
+        }
+        return enabled.toArray(new String[0]);
+    }
+
+    /**
+     * @return A stable identifier for a protocol configuration, also used in connection pool keys
+     */
+    public static String key(String[] protocols) {
+        return String.join(",", protocols);
+    }
+
+    private static SSLContext create() {
+        try {
+            TrustManager[] trustAllCerts = new TrustManager[]{
+                new X509TrustManager() {
+                    public X509Certificate[] getAcceptedIssuers() { return new X509Certificate[0]; }
+                    public void checkClientTrusted(X509Certificate[] certs, String authType) {}
+                    public void checkServerTrusted(X509Certificate[] certs, String authType) {}
+                }
+            };
+
+            SSLContext sc = SSLContext.getInstance("TLS");
+            sc.init(null, trustAllCerts, new SecureRandom());
+            SSLSessionContext sessions = sc.getClientSessionContext();
+            sessions.setSessionCacheSize(SESSION_CACHE_SIZE);
+            sessions.setSessionTimeout(SESSION_TIMEOUT);
+            return sc;
+        } catch (Exception e) {
+            throw new IllegalStateException("Failed to create trust-all SSL context", e);
+        }
+    }
+}
@@ -0,0 +1,440 @@
+package com.hrs.service; // Package for service classes
+
+import com.hrs.model.ScanResult; // Importing ScanResult model for journaled findings
+import com.hrs.utils.Logger; // Importing Logger for logging messages
+import java.io.BufferedInputStream; // Importing BufferedInputStream for reading segments
+import java.io.ByteArrayOutputStream; // Importing ByteArrayOutputStream for batching records
+import java.io.Closeable; // Importing Closeable for flushing on close
+import java.io.DataInputStream; // Importing DataInputStream for the binary record format
+import java.io.DataOutputStream; // Importing DataOutputStream for the binary record format
+import java.io.EOFException; // Importing EOFException for a record torn by a crash
+import java.io.File; // Importing File for the URL list
+import java.io.IOException; // Importing IOException for handling I/O exceptions
+import java.nio.ByteBuffer; // Importing ByteBuffer for writing batches
+import java.nio.channels.FileChannel; // Importing FileChannel for fsync
+import java.nio.charset.StandardCharsets; // Importing StandardCharsets for encoding strings
+import java.nio.file.DirectoryStream; // Importing DirectoryStream for listing segments
+import java.nio.file.Files; // Importing Files for file operations
+import java.nio.file.Path; // Importing Path for journal locations
+import java.nio.file.Paths; // Importing Paths for building paths
+import java.nio.file.StandardOpenOption; // Importing StandardOpenOption for creating segments
+import java.security.MessageDigest; // Importing MessageDigest for naming the journal
+import java.security.NoSuchAlgorithmException; // Importing NoSuchAlgorithmException for the digest
+import java.util.ArrayList; // Importing ArrayList for segment and finding lists
+import java.util.BitSet; // Importing BitSet for finished targets
+import java.util.Collections; // Importing Collections for sorting segments
+import java.util.LinkedHashMap; // Importing LinkedHashMap for findings in order
+import java.util.List; // Importing List interface for list operations
+import java.util.Map; // Importing Map interface for findings by key
+import java.util.concurrent.Executors; // Importing Executors for the flush thread
+import java.util.concurrent.ScheduledExecutorService; // Importing ScheduledExecutorService for interval flushes
+import java.util.concurrent.TimeUnit; // Importing TimeUnit for the flush interval
+
+/**
+ * BatchJournal records the progress of a batch scan over a URL list file so a stopped or
+ * crashed batch can be resumed. Targets are identified by their position among the
+ * targets {@link UrlSource} hands out for the same, unchanged file. Each target is
+ * pending until it is started, in flight until it is done or failed; findings are
+ * recorded as they reach the results table.
+ * The journal is a directory of append-only segment files. Records are collected in
+ * memory and written and fsynced together on an interval, so journaling costs no disk
+ * round trip per target; a crash loses at most one interval, whose targets are scanned
+ * again. Every run appends a new segment and never rewrites an old one, so a record torn
+ * by a crash is simply ignored on the next load. Positions are kept in int-indexed bit
+ * sets, so only the first {@link #MAX_POSITION} + 1 targets of a list are journaled; any
+ * target after them is scanned again on resume.
+ */
+public final class BatchJournal implements Closeable {
+    // First bytes of every segment
+    private static final int MAGIC = 0x48524a31; // "HRJ1"
+    // Layout version of the records
+    private static final int VERSION = 1;
+    // Highest position journaled, the last index of a BitSet
+    public static final long MAX_POSITION = Integer.MAX_VALUE;
+    // Size at which a new segment is started
+    private static final long SEGMENT_LIMIT = 16L << 20;
+    // Name of the file describing the journaled list
+    private static final String META_FILE = "list.meta";
+    // Suffix of segment files
+    private static final String SEGMENT_SUFFIX = ".seg";
+
+    // A target was handed to a slot
+    private static final byte STARTED = 1;
+    // A target was scanned to the end
+    private static final byte DONE = 2;
+    // A target could not be scanned
+    private static final byte FAILED = 3;
+    // A finding reached the results table
+    private static final byte FINDING = 4;
+
+    // Directory holding this list's segments
+    private final Path dir;
+    // Targets done in earlier runs
+    private final BitSet done = new BitSet();
+    // Targets whose last state in earlier runs was failed
+    private final BitSet failed = new BitSet();
+    // Findings of earlier runs, without repeats
+    private final List<ScanResult> findings = new ArrayList<>();
+    // Records not written yet, guarded by this
+    private ByteArrayOutputStream pending = new ByteArrayOutputStream();
+    // Writer over the pending records, guarded by this
+    private DataOutputStream records = new DataOutputStream(pending);
+    // Failed targets recorded in this run, guarded by this
+    private long failures;
+    // Whether the journal was closed, guarded by this
+    private boolean closed;
+    // Number of the current segment
+    private int segmentNumber;
+    // Current segment, guarded by the flush lock
+    private FileChannel segment;
+    // Serializes writes to the segment
+    private final Object flushLock = new Object();
+    // Writes the pending records on an interval
+    private final ScheduledExecutorService flusher;
+
+    /**
+     * Constructor to initialize a BatchJournal.
+     * @param dir Directory holding this list's segments
+     * @param flushMs Interval between writes to disk
+     */
+    private BatchJournal(Path dir, long flushMs) {
+        this.dir = dir; // Assigns the directory
+        this.flusher = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "hrs-journal"); // Names the thread
+            thread.setDaemon(true); // Does not keep the JVM alive
+            return thread;
+        });
+        flusher.scheduleWithFixedDelay(this::flushQuietly, flushMs, flushMs, TimeUnit.MILLISECONDS); // Batches the writes
+    }
+
+    /**
+     * Opens the journal of a URL list, loading the progress of earlier runs. A journal
+     * written for a different version of the file is discarded.
+     * @param list The URL list file
+     * @param root Directory holding the journals of all lists
+     * @param flushMs Interval between writes to disk
+     * @param settings Anything else that decides which targets the list yields, e.g. the
+     *                 duplicate filter's rate; a journal written with other settings is discarded
+     * @return The journal
+     * @throws IOException If the journal cannot be read or created
+     */
+    public static BatchJournal open(File list, String root, long flushMs, String settings) throws IOException {
+        Path dir = Paths.get(root, list.getName() + "-" + sha256(list.getAbsolutePath()).substring(0, 16)); // One journal per list
+        Files.createDirectories(dir); // Creates the journal directory
+        String meta = list.length() + " " + list.lastModified() + " " + settings; // Identifies this version of the list
+        Path metaFile = dir.resolve(META_FILE); // Describes the journaled list
+        if (!Files.isRegularFile(metaFile) || !new String(Files.readAllBytes(metaFile), StandardCharsets.UTF_8).equals(meta)) {
+            for (Path old : segments(dir)) {
+                Files.delete(old); // Positions refer to another version of the list
+            }
+            Files.write(metaFile, meta.getBytes(StandardCharsets.UTF_8)); // Records the current version
+        }
+        BatchJournal journal = new BatchJournal(dir, flushMs); // Starts the flush thread
+        try {
+            journal.load(); // Reads earlier runs
+            journal.startSegment(); // Appends to a fresh segment
+        } catch (IOException e) {
+            journal.flusher.shutdownNow(); // Stops the flush thread
+            throw e;
+        }
+        return journal;
+    }
+
+    /**
+     * Gets the targets done in earlier runs.
+     * @return The positions of the done targets
+     */
+    public BitSet getDone() {
+        return (BitSet) done.clone(); // Returns a copy
+    }
+
+    /**
+     * Gets the number of targets whose last recorded state was failed.
+     * @return The number of failed targets
+     */
+    public int getFailed() {
+        return failed.cardinality(); // Counts the failed targets
+    }
+
+    /**
+     * Gets the findings of earlier runs.
+     * @return The findings, each once, in the order they were recorded
+     */
+    public List<ScanResult> getFindings() {
+        return new ArrayList<>(findings); // Returns a copy
+    }
+
+    /**
+     * Records that a target was handed to a slot.
+     * @param position The target's position in the list
+     */
+    public void started(long position) {
+        state(STARTED, position); // Appends the record
+    }
+
+    /**
+     * Records that a target was scanned to the end.
+     * @param position The target's position in the list
+     */
+    public void done(long position) {
+        state(DONE, position); // Appends the record
+    }
+
+    /**
+     * Records that a target could not be scanned; it is scanned again on resume.
+     * @param position The target's position in the list
+     */
+    public synchronized void failed(long position) {
+        if (!closed) {
+            failures++; // Keeps the journal when the batch ends
+        }
+        state(FAILED, position); // Appends the record
+    }
+
+    /**
+     * Records a finding.
+     * @param result The finding
+     */
+    public synchronized void finding(ScanResult result) {
+        if (closed) {
+            return; // Arrived after the batch ended
+        }
+        try {
+            records.writeByte(FINDING); // Record type
+            writeString(result.getUrl()); // Target URL
+            writeString(result.getMethod()); // HTTP method
+            writeString(result.getTeHeader()); // Transfer-Encoding header
+            writeString(result.getPayload()); // Confirming payload
+            writeString(result.getTechnique()); // CL.TE or TE.CL
+            writeString(result.getMutation()); // Mutation name
+        } catch (IOException e) {
+            throw new IllegalStateException(e); // Writes to memory do not fail
+        }
+    }
+
+    /**
+     * Ends a batch that went through the whole list. Without failures there is nothing
+     * left to resume and the journal is deleted; otherwise it is kept so the next run
+     * of the list only scans the failed targets.
+     */
+    public void finish() {
+        close(); // Writes the last records
+        boolean keep; // Whether a later run has work left
+        synchronized (this) {
+            keep = failures > 0;
+        }
+        if (keep) {
+            Logger.info("Keeping batch journal " + dir + " for the failed targets"); // Logs the kept journal
+            return;
+        }
+        try {
+            for (Path old : segments(dir)) {
+                Files.delete(old); // Removes the segments
+            }
+            Files.deleteIfExists(dir.resolve(META_FILE)); // Removes the list description
+            Files.deleteIfExists(dir); // Removes the directory
+        } catch (IOException e) {
+            Logger.warn("Could not delete batch journal " + dir + ": " + e.getMessage()); // Logs the failure
+        }
+    }
+
+    /**
+     * Writes the last records and stops the flush thread. Records arriving later are dropped.
+     */
+    @Override
+    public void close() {
+        synchronized (this) {
+            if (closed) {
+                return; // Already closed
+            }
+            closed = true; // Drops later records
+        }
+        flusher.shutdown(); // No more interval flushes
+        try {
+            flusher.awaitTermination(5, TimeUnit.SECONDS); // Lets a running flush finish
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt(); // Preserves the interrupt
+        }
+        flushQuietly(); // Writes what is left
+        synchronized (flushLock) {
+            try {
+                segment.close(); // Releases the segment
+            } catch (IOException e) {
+                Logger.warn("Could not close batch journal " + dir + ": " + e.getMessage()); // Logs the failure
+            }
+        }
+    }
+
+    /**
+     * Appends a state record.
+     * @param type The record type
+     * @param position The target's position in the list
+     */
+    private synchronized void state(byte type, long position) {
+        if (closed || position < 0 || position > MAX_POSITION) {
+            return; // Arrived after the batch ended, or beyond what a resume can skip
+        }
+        try {
+            records.writeByte(type); // Record type
+            records.writeLong(position); // Target position
+        } catch (IOException e) {
+            throw new IllegalStateException(e); // Writes to memory do not fail
+        }
+    }
+
+    /**
+     * Appends a string as its UTF-8 length and bytes; payloads may exceed writeUTF's limit.
+     * @param value The string, or null
+     * @throws IOException Never, the records are in memory
+     */
+    private void writeString(String value) throws IOException {
+        byte[] bytes = (value == null ? "" : value).getBytes(StandardCharsets.UTF_8); // Encodes the string
+        records.writeInt(bytes.length); // Length
+        records.write(bytes); // Bytes
+    }
+
+    /**
+     * Writes the pending records and fsyncs the segment, logging failures.
+     */
+    private void flushQuietly() {
+        try {
+            flush(); // Writes the pending records
+        } catch (IOException e) {
+            Logger.error("Could not write batch journal " + dir, e); // Logs the failure
+        }
+    }
+
+    /**
+     * Writes the pending records and fsyncs the segment, starting a new segment once the
+     * current one is full.
+     * @throws IOException If the segment cannot be written
+     */
+    private void flush() throws IOException {
+        synchronized (flushLock) {
+            byte[] batch; // Records collected since the last flush
+            synchronized (this) {
+                if (pending.size() == 0) {
+                    return; // Nothing to write
+                }
+                batch = pending.toByteArray(); // Takes the records
+                pending = new ByteArrayOutputStream(); // Collects the next batch separately
+                records = new DataOutputStream(pending);
+            }
+            ByteBuffer buffer = ByteBuffer.wrap(batch); // Writes the whole batch
+            while (buffer.hasRemaining()) {
+                segment.write(buffer);
+            }
+            segment.force(false); // One fsync per batch
+            if (segment.size() >= SEGMENT_LIMIT) {
+                segment.close(); // Seals the full segment
+                startSegment(); // Continues in a new one
+            }
+        }
+    }
+
+    /**
+     * Creates the next segment and writes its header.
+     * @throws IOException If the segment cannot be created
+     */
+    private void startSegment() throws IOException {
+        segmentNumber++; // Numbers segments in write order
+        Path file = dir.resolve(String.format("%06d%s", segmentNumber, SEGMENT_SUFFIX)); // Next segment file
+        segment = FileChannel.open(file, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE); // Never overwrites a segment
+        ByteBuffer header = ByteBuffer.allocate(8).putInt(MAGIC).putInt(VERSION); // Segment header
+        header.flip();
+        while (header.hasRemaining()) {
+            segment.write(header);
+        }
+    }
+
+    /**
+     * Reads all segments of earlier runs in order.
+     * @throws IOException If a segment cannot be read
+     */
+    private void load() throws IOException {
+        Map<String, ScanResult> unique = new LinkedHashMap<>(); // Findings without repeats from rescanned targets
+        for (Path file : segments(dir)) {
+            String name = file.getFileName().toString(); // Segment file name
+            segmentNumber = Math.max(segmentNumber, Integer.parseInt(name.substring(0, name.length() - SEGMENT_SUFFIX.length()))); // Highest number so far
+            try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+                if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+                    Logger.warn("Ignoring foreign batch journal segment " + file); // Not written by this version
+                    continue;
+                }
+                while (true) {
+                    int type = in.read(); // Record type
+                    if (type == -1) {
+                        break; // End of the segment
+                    }
+                    if (type == FINDING) {
+                        ScanResult result = new ScanResult(readString(in), readString(in), readString(in),
+                                readString(in), readString(in), readString(in)); // Restores the finding
+                        unique.putIfAbsent(result.getUrl() + "\n" + result.getTechnique() + "\n" + result.getMutation()
+                                + "\n" + result.getTeHeader(), result); // Keeps the first copy
+                        continue;
+                    }
+                    long read = in.readLong(); // Target position
+                    if (read < 0 || read > MAX_POSITION) {
+                        Logger.warn("Ignoring out-of-range position " + read + " in batch journal segment " + file); // Never written by this version
+                        continue;
+                    }
+                    int position = (int) read; // Fits, checked above
+                    if (type == DONE) {
+                        done.set(position); // Never scanned again
+                        failed.clear(position);
+                    } else if (type == FAILED && !done.get(position)) {
+                        failed.set(position); // Scanned again on resume
+                    }
+                }
+            } catch (EOFException e) {
+                Logger.warn("Batch journal segment " + file + " ends in a partial record, ignoring it"); // Torn by a crash
+            }
+        }
+        findings.addAll(unique.values()); // Findings in recorded order
+    }
+
+    /**
+     * Reads a string written by {@link #writeString(String)}.
+     * @param in The segment
+     * @return The string
+     * @throws IOException If the segment ends early
+     */
+    private static String readString(DataInputStream in) throws IOException {
+        byte[] bytes = new byte[in.readInt()]; // Length
+        in.readFully(bytes); // Bytes
+        return new String(bytes, StandardCharsets.UTF_8); // Decodes the string
+    }
+
+    /**
+     * Lists the segments of a journal in write order.
+     * @param dir The journal directory
+     * @return The segment files
+     * @throws IOException If the directory cannot be listed
+     */
+    private static List<Path> segments(Path dir) throws IOException {
+        List<Path> files = new ArrayList<>(); // Holds the segments
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(dir, "*" + SEGMENT_SUFFIX)) {
+            for (Path file : stream) {
+                files.add(file); // Collects the segment
+            }
+        }
+        Collections.sort(files); // Zero-padded numbers sort in write order
+        return files;
+    }
+
+    /**
+     * @param text The text to hash
+     * @return The SHA-256 digest as lowercase hex
+     */
+    private static String sha256(String text) {
+        try {
+            StringBuilder hex = new StringBuilder(); // Holds the digest
+            for (byte b : MessageDigest.getInstance("SHA-256").digest(text.getBytes(StandardCharsets.UTF_8))) {
+                hex.append(String.format("%02x", b)); // Two digits per byte
+            }
+            return hex.toString(); // Returns the digest
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e); // Every JVM ships SHA-256
+        }
+    }
+}
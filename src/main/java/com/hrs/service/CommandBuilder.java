@@ -130,6 +130,26 @@ public class CommandBuilder {
         return this; // Returns the current instance for method chaining
     }
 
+    /**
+     * Adds the stream flag, making smuggler.py read URLs from stdin as they arrive and
+     * print a done marker after each one.
+     * @return The current CommandBuilder instance.
+     */
+    public CommandBuilder withStream() {
+        command.add("--stream"); // Adds the stream flag to the command
+        return this; // Returns the current instance for method chaining
+    }
+
+    /**
+     * Adds the events flag, making smuggler.py write one JSON object per event to stderr.
+     * @return The current CommandBuilder instance.
+     */
+    public CommandBuilder withEvents() {
+        command.add("--events-fd"); // Adds the events flag to the command
+        command.add("2"); // Uses stderr as the event stream
+        return this; // Returns the current instance for method chaining
+    }
+
     /**
      * Builds and returns the complete command as a list of strings.
      * @return The command as a list of strings.
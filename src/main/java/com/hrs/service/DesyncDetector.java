@@ -0,0 +1,633 @@
+package com.hrs.service; // Package for service classes
+
+import com.hrs.model.ScanResult; // Importing ScanResult model for reporting findings
+import com.hrs.network.RawHttpClient; // Importing RawHttpClient for sending the probes
+import com.hrs.network.RawHttpMessage; // Importing RawHttpMessage for byte-exact requests
+import com.hrs.network.RequestOptions; // Importing RequestOptions for per-probe connection settings
+import com.hrs.utils.AppConfig; // Importing AppConfig for the scan settings
+import com.hrs.utils.Logger; // Importing Logger for logging messages
+import java.net.MalformedURLException; // Importing MalformedURLException for invalid targets
+import java.nio.charset.StandardCharsets; // Importing StandardCharsets for decoding responses
+import java.util.ArrayList; // Importing ArrayList for dynamic array implementation
+import java.util.List; // Importing List interface for list operations
+import java.util.Map; // Importing Map for per-host baselines
+import java.util.concurrent.CompletableFuture; // Importing CompletableFuture for concurrent checks
+import java.util.concurrent.ConcurrentHashMap; // Importing ConcurrentHashMap for per-host baselines
+import java.util.concurrent.ExecutionException; // Importing ExecutionException for failed probes
+import java.util.function.Consumer; // Importing Consumer for progress output
+
+/**
+ * DesyncDetector runs the CL.TE and TE.CL timing checks from smuggler.py in-process,
+ * on top of {@link RawHttpClient}, and returns findings as {@link ScanResult}s.
+ * Each probe uses a fresh connection. A back end that waits for body bytes the front
+ * end never forwards makes a probe time out; the finding is confirmed when the same
+ * request with a length the back end can complete gets a response.
+ * The TE.CL and CL.TE checks of a mutation run at the same time, each on its own
+ * connection, so a host that stalls both costs one timeout rather than two. Checks
+ * against the same host share a budget of hrs.scan.host.connections connections
+ * across all detectors, and every request is paced by the {@link HostLimiter} of its
+ * host and address.
+ * Before probing, a few normal requests measure the host's response times. Probes then
+ * time out at hrs.scan.timeout.multiplier times the 99th percentile, never above the
+ * user's timeout, so a fast healthy host is not waited on for seconds per mutation.
+ * Requests are rendered from the {@link PayloadTemplate}s of the {@link MutationCatalogue}.
+ * An instance scans one target at a time.
+ */
+public class DesyncDetector {
+    /**
+     * The two request smuggling variants that are checked.
+     */
+    public enum Technique {
+        CL_TE("CL.TE"), // Front end uses Content-Length, back end uses Transfer-Encoding
+        TE_CL("TE.CL"); // Front end uses Transfer-Encoding, back end uses Content-Length
+
+        // Display name used in output and results
+        private final String label;
+
+        Technique(String label) {
+            this.label = label; // Assigns the display name
+        }
+
+        /**
+         * @return The display name, e.g. "CL.TE"
+         */
+        public String getLabel() {
+            return label; // Returns the display name
+        }
+    }
+
+    // Timeout for the cookie request, as in smuggler.py
+    private static final int COOKIE_TIMEOUT = 2000; // 2 seconds
+    // Width of the mutation name column in progress output
+    private static final int NAME_WIDTH = 13;
+    // Line terminator used in every probe
+    private static final String RN = "\r\n";
+    // Terminating chunk of a chunked body
+    private static final String END_CHUNK = "0" + RN + RN;
+    // Plain GET used to collect cookies
+    private static final PayloadTemplate COOKIE_TEMPLATE = PayloadTemplate.compile(
+            "GET __ENDPOINT__?cb=__RANDOM__ HTTP/1.1" + RN + MutationCatalogue.PROBE_HEADERS);
+    // Lowest adaptive probe timeout, against scheduling and GC pauses
+    private static final int MIN_PROBE_TIMEOUT = 500; // 0.5 seconds
+    // How long a measured baseline is reused for the same host
+    private static final long BASELINE_MAX_AGE = 5 * 60 * 1000L; // 5 minutes
+    // Latest baseline per host and port, shared by all detectors
+    private static final Map<String, LatencyBaseline> BASELINES = new ConcurrentHashMap<>();
+    // Empty body of the cookie request
+    private static final PayloadTemplate.Body NO_BODY = new PayloadTemplate.Body("", 0);
+    // TE.CL probe: six declared bytes make a Content-Length back end wait for one more
+    private static final PayloadTemplate.Body TECL_PROBE = new PayloadTemplate.Body(END_CHUNK + "X", 6);
+    // TE.CL confirmation: the same body with a length the back end can complete
+    private static final PayloadTemplate.Body TECL_CONFIRM = new PayloadTemplate.Body(END_CHUNK + "X", 5);
+    // CL.TE probe: four declared bytes cut the chunked body short for a chunked back end
+    private static final PayloadTemplate.Body CLTE_PROBE = new PayloadTemplate.Body("1" + RN + "Z" + RN + END_CHUNK, 4);
+    // CL.TE confirmation: the whole chunked body
+    private static final PayloadTemplate.Body CLTE_CONFIRM = new PayloadTemplate.Body("1" + RN + "Z" + RN + END_CHUNK, 11);
+
+    // Client used for every probe
+    private final RawHttpClient client;
+    // Virtual host sent in the Host header instead of the URL host
+    private String vhost = "";
+    // HTTP method of the probes
+    private String method = "POST";
+    // Per-probe timeout in milliseconds; the ceiling for the adaptive timeout
+    private int timeoutMs = 5000;
+    // Config the mutations were loaded from, for output
+    private String configName = MutationCatalogue.DEFAULT_SET;
+    // Mutations to test, in order
+    private List<Mutation> mutations = MutationCatalogue.forConfig(MutationCatalogue.DEFAULT_SET);
+    // Confidence required before a timing difference is reported
+    private double confidence = AppConfig.scanConfidence();
+    // Whether to stop after the first finding
+    private boolean exitEarly;
+    // Whether to report findings only
+    private boolean quiet;
+    // Render target for the TE.CL check and the cookie request
+    private final PayloadTemplate.RenderBuffer teclBuffer = new PayloadTemplate.RenderBuffer();
+    // Render target for the CL.TE check, which runs alongside the TE.CL check
+    private final PayloadTemplate.RenderBuffer clteBuffer = new PayloadTemplate.RenderBuffer();
+
+    /**
+     * Constructor to initialize the DesyncDetector.
+     * @param client The client used to send the probes
+     */
+    public DesyncDetector(RawHttpClient client) {
+        this.client = client; // Assigns the client
+    }
+
+    /**
+     * Sets the virtual host.
+     * @param vhost The Host header value, or empty to use the URL host
+     * @return The current DesyncDetector instance
+     */
+    public DesyncDetector withVhost(String vhost) {
+        this.vhost = vhost == null ? "" : vhost.trim(); // Empty means the URL host
+        return this; // Returns the current instance for method chaining
+    }
+
+    /**
+     * Sets the HTTP method of the probes.
+     * @param method The HTTP method
+     * @return The current DesyncDetector instance
+     */
+    public DesyncDetector withMethod(String method) {
+        if (method != null && !method.trim().isEmpty()) {
+            this.method = method.trim().toUpperCase(); // smuggler.py upper-cases the method
+        }
+        return this; // Returns the current instance for method chaining
+    }
+
+    /**
+     * Sets the per-probe timeout.
+     * @param timeoutSeconds Seconds to wait for a response before a probe counts as timed out
+     * @return The current DesyncDetector instance
+     */
+    public DesyncDetector withTimeout(int timeoutSeconds) {
+        this.timeoutMs = Math.max(1, timeoutSeconds) * 1000; // Converts to milliseconds
+        return this; // Returns the current instance for method chaining
+    }
+
+    /**
+     * Selects the mutation set.
+     * @param configFile The config name or path, e.g. "double.py" or a ".mutations" file;
+     *                   empty means the default set
+     * @return The current DesyncDetector instance
+     * @throws IllegalArgumentException If the set is unknown or cannot be loaded
+     */
+    public DesyncDetector withMutations(String configFile) {
+        this.mutations = MutationCatalogue.forConfig(configFile); // Loads the set
+        this.configName = MutationCatalogue.setName(configFile); // Remembers its name for output
+        return this; // Returns the current instance for method chaining
+    }
+
+    /**
+     * Sets the confidence a finding needs.
+     * @param confidence The required confidence, e.g. 0.99
+     * @return The current DesyncDetector instance
+     */
+    public DesyncDetector withConfidence(double confidence) {
+        this.confidence = Math.min(AppConfig.MAX_CONFIDENCE, Math.max(AppConfig.MIN_CONFIDENCE, confidence)); // Keeps the thresholds finite
+        return this; // Returns the current instance for method chaining
+    }
+
+    /**
+     * Sets whether to stop after the first finding.
+     * @param exitEarly True to stop after the first finding
+     * @return The current DesyncDetector instance
+     */
+    public DesyncDetector withExitEarly(boolean exitEarly) {
+        this.exitEarly = exitEarly; // Assigns the flag
+        return this; // Returns the current instance for method chaining
+    }
+
+    /**
+     * Sets whether progress output is limited to findings.
+     * @param quiet True to report findings only
+     * @return The current DesyncDetector instance
+     */
+    public DesyncDetector withQuiet(boolean quiet) {
+        this.quiet = quiet; // Assigns the flag
+        return this; // Returns the current instance for method chaining
+    }
+
+    /**
+     * Tests every mutation against one target. Blocks until done; stops between probes
+     * when the calling thread is interrupted.
+     * @param url The target URL; https:// is assumed when there is no scheme
+     * @param output Receives progress lines
+     * @return The findings, empty if none
+     * @throws MalformedURLException If the URL cannot be parsed
+     * @throws HostLimiter.HostUnavailableException If the target is skipped because its host
+     *         stopped accepting connections, before or during the scan
+     * @throws InterruptedException If the scan was interrupted
+     */
+    public List<ScanResult> scan(String url, Consumer<String> output)
+            throws MalformedURLException, HostLimiter.HostUnavailableException, InterruptedException {
+        String target = url.trim(); // Drops surrounding whitespace
+        if (!target.toLowerCase().startsWith("http")) {
+            target = "https://" + target; // Same default as smuggler.py
+        }
+        RawHttpClient.UrlParser parser = new RawHttpClient.UrlParser(target); // Splits the URL
+        Target t = new Target(target, parser); // Holds the connection details
+
+        output.accept("URL        : " + target + "\n"); // Reports the target
+        output.accept("Method     : " + method + "\n"); // Reports the method
+        output.accept("Endpoint   : " + t.endpoint + "\n"); // Reports the endpoint
+        output.accept("Configfile : " + configName + " (" + mutations.size() + " mutations)\n"); // Reports the mutation set
+        output.accept("Timeout    : " + (timeoutMs / 1000) + " seconds\n"); // Reports the timeout
+
+        checkReachable(t); // Skips a host known to be down without connecting
+        if (!fetchCookies(t, output)) { // Collects session cookies first
+            return new ArrayList<>(); // Target is unreachable
+        }
+        t.probeTimeoutMs = probeTimeout(t, output); // Adapts the timeout to the host
+
+        List<ScanResult> findings = new ArrayList<>(); // Holds the findings
+        for (Mutation mutation : mutations) {
+            checkReachable(t); // Stops paying connect timeouts once the host is down
+            ScanResult finding = testMutation(t, mutation, output); // Runs the checks
+            if (finding != null) {
+                findings.add(finding); // Records the finding
+                if (exitEarly) {
+                    break; // Stops at the first finding
+                }
+            }
+        }
+        Logger.info("Native scan of " + target + " finished with " + findings.size() + " finding(s)"); // Logs the outcome
+        return findings; // Returns the findings
+    }
+
+    /**
+     * Checks the circuit breakers of the target's host and address.
+     * @param t The target
+     * @throws HostLimiter.HostUnavailableException If the host is skipped
+     */
+    private static void checkReachable(Target t) throws HostLimiter.HostUnavailableException {
+        String reason = t.limits.unavailable(); // Why the host is skipped, if it is
+        if (reason != null) {
+            throw new HostLimiter.HostUnavailableException(reason); // Ends the scan without connecting
+        }
+    }
+
+    /**
+     * Runs the TE.CL and CL.TE checks for one mutation, as smuggler.py's _create_exec_test.
+     * Both checks are in flight at once. Instead of a fixed number of confirmations, each
+     * check feeds a {@link SequentialTest} and is repeated until the test decides, so a
+     * clean host costs one round and a single delayed response is not a finding.
+     * @param t The target
+     * @param mutation The mutation with its compiled template
+     * @param output Receives progress lines
+     * @return The finding, or null if none was confirmed
+     * @throws InterruptedException If the scan was interrupted
+     */
+    private ScanResult testMutation(Target t, Mutation mutation, Consumer<String> output) throws InterruptedException {
+        PayloadTemplate template = mutation.getTemplate(); // Compiled when the set was built
+        String name = mutation.getName(); // Name used in output
+        String gadget = mutation.getHeader(); // Header line used in findings
+        SequentialTest teclTest = new SequentialTest(confidence); // Evidence for TE.CL
+        SequentialTest clteTest = new SequentialTest(confidence); // Evidence for CL.TE
+        Probe tecl = null; // Latest TE.CL probe
+        Probe clte = null; // Latest CL.TE probe
+        boolean runTecl = true; // Whether the TE.CL check is still followed up
+        boolean runClte = true; // Whether the CL.TE check is still followed up
+        String failure = null; // Failure seen while a hit was being confirmed
+        while (true) {
+            if (Thread.currentThread().isInterrupted()) {
+                throw new InterruptedException("Scan stopped"); // Stops between probes
+            }
+            CompletableFuture<Check> teclCheck = !runTecl || teclTest.isDecided() ? null
+                    : check(t, template, TECL_PROBE, TECL_CONFIRM, teclBuffer); // Back end waits if it uses Content-Length
+            CompletableFuture<Check> clteCheck = !runClte || clteTest.isDecided() ? null
+                    : check(t, template, CLTE_PROBE, CLTE_CONFIRM, clteBuffer); // Back end waits if it uses chunked
+            Check teclResult = teclCheck == null ? null : await(teclCheck); // Outcome of this round's TE.CL check
+            Check clteResult = clteCheck == null ? null : await(clteCheck); // Outcome of this round's CL.TE check
+
+            if (clteResult != null) {
+                clte = clteResult.probe; // Keeps the latest probe for output
+                if (clteTest.record(clteResult.isHit()) == SequentialTest.Verdict.POSITIVE) {
+                    return report(t, name, gadget, Technique.CL_TE, clteTest, clteResult.confirm, output); // Confirmed
+                }
+            }
+            if (teclResult != null) {
+                tecl = teclResult.probe; // Keeps the latest probe for output
+                if (teclTest.record(teclResult.isHit()) == SequentialTest.Verdict.POSITIVE) {
+                    return report(t, name, gadget, Technique.TE_CL, teclTest, teclResult.confirm, output); // Confirmed
+                }
+            }
+
+            String failed = null; // This round's failure, as smuggler.py prints it
+            if (failed(teclResult, RawHttpClient.Failure.DISCONNECTED) || failed(clteResult, RawHttpClient.Failure.DISCONNECTED)) {
+                failed = "DISCONNECTED"; // The server dropped a probe
+            } else if (failed(teclResult, RawHttpClient.Failure.ERROR) || failed(clteResult, RawHttpClient.Failure.ERROR)) {
+                Check errored = failed(teclResult, RawHttpClient.Failure.ERROR) ? teclResult : clteResult; // The check that failed
+                failed = "ERROR (" + errored.probe.error + ")"; // A probe could not be sent
+            }
+            if (failed != null) {
+                // Like smuggler.py, which looks for timeouts before failures, a hit still
+                // waiting for confirmation is followed up; everything else is given up
+                runTecl &= teclTest.hasPendingHit();
+                runClte &= clteTest.hasPendingHit();
+                if (!runTecl && !runClte) {
+                    progress(output, name, failed); // Nothing more to learn from this mutation
+                    return null;
+                }
+                failure = failed; // Reported if the hit is not confirmed
+            }
+            if ((!runTecl || teclTest.isDecided()) && (!runClte || clteTest.isDecided())) {
+                if (failure != null) {
+                    progress(output, name, failure); // The follow-up did not confirm the hit
+                    return null;
+                }
+                int rounds = Math.max(teclTest.getRounds(), clteTest.getRounds()); // Longest check
+                progress(output, name, String.format("OK (TECL: %.2f - %s) (CLTE: %.2f - %s)%s",
+                        tecl.elapsedMs / 1000.0, tecl.statusText(), clte.elapsedMs / 1000.0, clte.statusText(),
+                        rounds > 1 ? " after " + rounds + " rounds" : "")); // Neither check was confirmed
+                return null; // Nothing confirmed
+            }
+        }
+    }
+
+    /**
+     * @param check A check of this round, or null if it was not run
+     * @param failure The failure to look for
+     * @return True if the check's probe ended with {@code failure}
+     */
+    private static boolean failed(Check check, RawHttpClient.Failure failure) {
+        return check != null && check.probe.failure == failure; // Compares the outcome
+    }
+
+    /**
+     * Requests the endpoint once and collects Set-Cookie values, as smuggler.py's _get_cookies.
+     * @param t The target
+     * The Cookie header line, if any, is added to the target's template values.
+     * @param output Receives progress lines
+     * @return False if the host is unreachable
+     * @throws InterruptedException If the scan was interrupted
+     */
+    private boolean fetchCookies(Target t, Consumer<String> output) throws InterruptedException {
+        Probe probe = request(t, COOKIE_TIMEOUT); // Plain GET without a body
+        if (probe.failure == RawHttpClient.Failure.ERROR) {
+            output.accept("Error      : Unable to connect to host (" + probe.error + ")\n"); // Reports the failure
+            return false; // Skips the target
+        }
+        StringBuilder cookies = new StringBuilder(); // Collects cookie values
+        int count = 0; // Number of cookies found
+        for (String line : probe.response.split(RN)) {
+            // Same loose match as smuggler.py: spaces in the first 11 characters are ignored
+            if (line.length() > 11 && line.substring(0, 11).toLowerCase().replace(" ", "").equals("set-cookie:")) {
+                String cookie = line.toLowerCase().replace("set-cookie:", ""); // Keeps the value
+                cookies.append(cookie.split(";")[0]).append(';'); // Keeps name=value only
+                count++;
+            }
+        }
+        output.accept("Cookies    : " + count + " (Appending to the attack)\n"); // Reports the cookies
+        if (count > 0) {
+            t.values.with(PayloadTemplate.Slot.COOKIE, "Cookie: " + cookies + RN); // Appended to every probe
+        }
+        return true; // Target is reachable
+    }
+
+    /**
+     * Measures the host's normal response times, or reuses a recent measurement, and
+     * derives the probe timeout from them. Falls back to the user's timeout when
+     * measuring is disabled or any baseline request fails.
+     * @param t The target
+     * @param output Receives progress lines
+     * @return The probe timeout in milliseconds
+     * @throws InterruptedException If the scan was interrupted
+     */
+    private int probeTimeout(Target t, Consumer<String> output) throws InterruptedException {
+        int samples = AppConfig.baselineSamples(); // Requests per measurement
+        if (samples == 0) {
+            return timeoutMs; // Adaptive timeout is disabled
+        }
+        LatencyBaseline baseline = BASELINES.get(t.budgetKey); // Recent measurement, if any
+        if (baseline == null || baseline.isOlderThan(BASELINE_MAX_AGE)) {
+            long[] elapsed = new long[samples]; // Response times
+            for (int i = 0; i < samples; i++) {
+                Probe probe = request(t, timeoutMs); // Same GET as the cookie request
+                if (probe.failure != RawHttpClient.Failure.NONE) {
+                    output.accept("Baseline   : request failed (" + probe.failure + "), using the full timeout\n"); // Unhealthy host
+                    return timeoutMs; // Nothing safe to derive
+                }
+                elapsed[i] = probe.elapsedMs; // Includes connect and TLS, like a probe
+            }
+            baseline = new LatencyBaseline(elapsed); // Computes the distribution
+            BASELINES.put(t.budgetKey, baseline); // Shares it with other scans of the host
+        }
+        int probeTimeoutMs = baseline.timeoutMs(AppConfig.timeoutMultiplier(), MIN_PROBE_TIMEOUT, timeoutMs); // Capped by the user's timeout
+        output.accept("Baseline   : " + baseline + "\n"); // Reports the distribution
+        output.accept(String.format("Probe wait : %.2f seconds%n", probeTimeoutMs / 1000.0)); // Reports the derived timeout
+        return probeTimeoutMs; // Returns the probe timeout
+    }
+
+    /**
+     * Sends the plain GET and waits for it, within the host's connection budget.
+     * @param t The target
+     * @param readTimeoutMs How long to wait for the response
+     * @return The outcome
+     * @throws InterruptedException If the scan was interrupted
+     */
+    private Probe request(Target t, int readTimeoutMs) throws InterruptedException {
+        if (Thread.currentThread().isInterrupted()) {
+            throw new InterruptedException("Scan stopped"); // Stops between requests
+        }
+        t.limits.acquire(); // Counts against the host's connection budget
+        try {
+            return await(send(t, COOKIE_TEMPLATE.render(t.values, NO_BODY, teclBuffer), readTimeoutMs)); // Plain GET without a body
+        } finally {
+            t.limits.release(); // Returns the connection to the budget
+        }
+    }
+
+    /**
+     * Starts one check: sends the probe and, if it times out, the confirmation on a new
+     * connection. Takes one connection from the host's budget, blocking until one is free,
+     * and gives it back when the check completes. The probe is rendered before this
+     * returns; the confirmation is rendered later into the same buffer.
+     * @param t The target
+     * @param template The mutation's template
+     * @param probe The probe body
+     * @param confirm The confirmation body
+     * @param buffer The render target owned by this check
+     * @return The check outcome once both requests are done
+     * @throws InterruptedException If the scan was interrupted while waiting for the budget
+     */
+    private CompletableFuture<Check> check(Target t, PayloadTemplate template, PayloadTemplate.Body probe,
+                                           PayloadTemplate.Body confirm, PayloadTemplate.RenderBuffer buffer) throws InterruptedException {
+        t.limits.acquire(); // One connection at a time per check
+        CompletableFuture<Check> result;
+        try {
+            result = send(t, template.render(t.values, probe, buffer), t.probeTimeoutMs)
+                    .thenCompose(sent -> sent.failure != RawHttpClient.Failure.TIMEOUT
+                            ? CompletableFuture.completedFuture(new Check(sent, null)) // No confirmation needed
+                            : send(t, template.render(t.values, confirm, buffer), t.probeTimeoutMs)
+                                    .thenApply(confirmed -> new Check(sent, confirmed))); // Same request with a complete body
+        } catch (RuntimeException e) {
+            t.limits.release(); // Nothing was sent
+            throw e;
+        }
+        result.whenComplete((check, error) -> t.limits.release()); // Returns the connection to the budget
+        return result; // Returns the pending check
+    }
+
+    /**
+     * Sends a request on a fresh connection once the target's rates allow it, and feeds
+     * the outcome back to them.
+     * @param t The target
+     * @param request The rendered request, backed by a render buffer
+     * @param readTimeoutMs How long to wait for the response
+     * @return The probe outcome; failures complete normally
+     */
+    private CompletableFuture<Probe> send(Target t, RawHttpMessage request, int readTimeoutMs) {
+        RequestOptions options = RequestOptions.defaults()
+                .withFreshConnection(true) // A probe may leave the connection out of sync
+                .withTls(t.tls) // https on any port
+                .withConnectTimeout(timeoutMs) // Same connect timeout as smuggler.py
+                .withReadTimeout(readTimeoutMs); // A silent back end counts as a timeout
+        return t.limits.pace()
+                .thenCompose(ready -> client.sendRawRequest(t.connectHost, t.port, request, options)) // Waits before the clock starts
+                .thenApply(response -> {
+                    Probe sent = new Probe(request, response); // Wraps the outcome
+                    t.limits.record(sent.failure, sent.status, sent.response); // Backs off or recovers
+                    return sent;
+                });
+    }
+
+    /**
+     * Waits for a pending request.
+     * @param future The pending request
+     * @param <T> The result type
+     * @return The result
+     * @throws InterruptedException If the scan was interrupted
+     */
+    private static <T> T await(CompletableFuture<T> future) throws InterruptedException {
+        try {
+            return future.get(); // Bounded by the request timeouts
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Probe failed unexpectedly", e.getCause()); // Should not happen: failures complete normally
+        }
+    }
+
+    /**
+     * Reports a confirmed finding.
+     * @param t The target
+     * @param name The mutation name
+     * @param gadget The Transfer-Encoding header line
+     * @param technique The confirmed technique
+     * @param test The test that confirmed it
+     * @param confirm The confirming probe, reported before the buffer renders again
+     * @param output Receives progress lines
+     * @return The finding
+     */
+    private ScanResult report(Target t, String name, String gadget, Technique technique, SequentialTest test,
+                              Probe confirm, Consumer<String> output) {
+        output.accept(pad(name) + "Potential " + technique.getLabel() + " Issue Found - " + method + " @ "
+                + t.url + " - " + configName + " (" + test.getRounds() + " rounds)\n"); // Same wording as smuggler.py
+        String payload = confirm.request.toText().replace(RN, "\n"); // Editor line endings, as smuggler.py prints it
+        return new ScanResult(t.url, method, gadget.trim(), payload, technique.getLabel(), name); // Typed result
+    }
+
+    /**
+     * Writes a non-finding progress line unless quiet mode is on.
+     * @param output Receives progress lines
+     * @param name The mutation name
+     * @param message The status
+     */
+    private void progress(Consumer<String> output, String name, String message) {
+        if (!quiet) {
+            output.accept(pad(name) + message + "\n"); // Reports the status
+        }
+    }
+
+    /**
+     * @param name The mutation name
+     * @return "[name]" padded to a fixed column, as smuggler.py prints it
+     */
+    private static String pad(String name) {
+        StringBuilder sb = new StringBuilder("[").append(name).append("]"); // Bracketed name
+        for (int i = name.length(); i < NAME_WIDTH; i++) {
+            sb.append(' '); // Aligns the status column
+        }
+        return sb.append(": ").toString(); // Returns the prefix
+    }
+
+    /**
+     * Connection details of one target.
+     */
+    private final class Target {
+        // Normalized target URL
+        private final String url;
+        // Host to connect to
+        private final String connectHost;
+        // Host header value
+        private final String host;
+        // Port to connect to
+        private final int port;
+        // Whether to use TLS
+        private final boolean tls;
+        // Request path without the query string
+        private final String endpoint;
+        // Slot values for this target's probes
+        private final PayloadTemplate.Values values;
+        // Key of this host in the shared per-host maps
+        private final String budgetKey;
+        // Connections and request rates this target may use, shared with other scans
+        private final HostLimiter limits;
+        // Read timeout of the probes, at most the user's timeout
+        private int probeTimeoutMs = timeoutMs;
+
+        Target(String url, RawHttpClient.UrlParser parser) {
+            this.url = url; // Assigns the URL
+            this.connectHost = parser.getHost(); // Host from the URL
+            this.host = vhost.isEmpty() ? parser.getHost() : vhost; // Virtual host takes precedence
+            this.port = parser.getPort(); // Explicit or scheme default port
+            this.tls = parser.isHttps(); // TLS for https, whatever the port
+            this.endpoint = parser.getPath(); // Path, "/" when empty
+            this.values = new PayloadTemplate.Values()
+                    .with(PayloadTemplate.Slot.METHOD, method) // Encoded once per target
+                    .with(PayloadTemplate.Slot.ENDPOINT, endpoint)
+                    .with(PayloadTemplate.Slot.HOST, host);
+            this.budgetKey = connectHost.toLowerCase() + ":" + port; // Host and port identify the back end
+            this.limits = new HostLimiter(connectHost, port); // Same limits for every scan of the host
+        }
+    }
+
+    /**
+     * Outcome of one check.
+     */
+    private static final class Check {
+        // The probe with the declared length the back end cannot complete
+        private final Probe probe;
+        // The confirmation, or null if the probe did not time out
+        private final Probe confirm;
+
+        Check(Probe probe, Probe confirm) {
+            this.probe = probe; // Assigns the probe
+            this.confirm = confirm; // Assigns the confirmation
+        }
+
+        /**
+         * @return True if the probe timed out and the control request was answered
+         */
+        private boolean isHit() {
+            return probe.failure == RawHttpClient.Failure.TIMEOUT && confirm != null
+                    && confirm.failure == RawHttpClient.Failure.NONE; // The timing difference the check looks for
+        }
+    }
+
+    /**
+     * Outcome of one probe.
+     */
+    private static final class Probe {
+        // Request that was sent; valid until the next render
+        private final RawHttpMessage request;
+        // Why there is no response, or NONE
+        private final RawHttpClient.Failure failure;
+        // Response text, empty if none
+        private final String response;
+        // Three-character status code, empty if none
+        private final String status;
+        // Time until the response or the failure
+        private final long elapsedMs;
+        // Error message for ERROR outcomes
+        private final String error;
+
+        Probe(RawHttpMessage request, RawHttpClient.RawHttpResponse response) {
+            this.request = request; // Assigns the request
+            this.failure = response.getFailure(); // Classifies the outcome
+            RawHttpMessage message = response.getMessage(); // Raw response bytes
+            this.response = message == null ? "" : message.decode(StandardCharsets.ISO_8859_1); // One char per byte
+            this.status = this.response.length() >= 12 ? this.response.substring(9, 12) : ""; // "HTTP/1.1 200" -> "200"
+            this.elapsedMs = response.getResponseTimeMs(); // Assigns the elapsed time
+            this.error = response.getError(); // Assigns the error message
+        }
+
+        /**
+         * @return The status code, or the failure if there was no response
+         */
+        private String statusText() {
+            return failure == RawHttpClient.Failure.NONE ? status : failure.name().toLowerCase(); // e.g. "200" or "timeout"
+        }
+    }
+}
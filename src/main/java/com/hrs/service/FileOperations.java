@@ -4,8 +4,6 @@ import com.hrs.utils.Logger; // Importing Logger for logging messages
 import javafx.stage.FileChooser; // Importing FileChooser for file selection dialogs
 import javafx.stage.Window; // Importing Window for GUI window handling
 import java.io.*; // Importing I/O classes for file operations
-import java.util.ArrayList; // Importing ArrayList for dynamic array implementation
-import java.util.List; // Importing List interface for list operations
 
 /**
  * FileOperations provides utility methods for file handling operations.
@@ -54,42 +52,34 @@ public class FileOperations {
     }
 
     /**
-     * Loads URLs from a file into a list.
+     * Opens a file of URLs for a batch scan. The URLs are read lazily as the scan takes
+     * them, so the list is never held in memory.
      * @param file The file to read URLs from
-     * @return A list of URLs
+     * @return The source of URLs, or null if the file cannot be read
      */
-    public List<String> loadUrlsFromFile(File file) {
-        // Initializes an empty list to store the URLs
-        List<String> urls = new ArrayList<>();
+    public UrlSource openUrlsFromFile(File file) {
         if (file == null) { // Checks if the file is null
             // Logs an error message if the file is null
             Logger.error("Cannot load URLs: file is null", null);
-            // Returns the empty list
-            return urls;
+            // Returns no source
+            return null;
         }
 
         // Logs the start of loading URLs from the file
         Logger.info("Loading URLs from file: " + file.getAbsolutePath());
-        try (BufferedReader reader = new BufferedReader(new FileReader(file))) {
-            // Reads the file line by line
-            String line;
-            while ((line = reader.readLine()) != null) {
-                // Trims the line to remove leading and trailing whitespace
-                line = line.trim();
-                // Checks if the line is not empty
-                if (!line.isEmpty()) {
-                    // Adds the line to the list of URLs
-                    urls.add(line);
-                }
-            }
-            // Logs the number of URLs loaded from the file
-            Logger.info("Loaded " + urls.size() + " URLs from file");
+        try {
+            // Counts the lines and opens the file for reading
+            UrlSource urls = UrlSource.open(file);
+            // Logs the number of lines found in the file
+            Logger.info("Found " + urls.getExpected() + " URL lines in file");
+            // Returns the source
+            return urls;
         } catch (IOException e) {
             // Logs an error message if there is an issue reading the file
             Logger.error("Error reading URLs from file: " + file.getAbsolutePath(), e);
+            // Returns no source
+            return null;
         }
-        // Returns the list of URLs
-        return urls;
     }
 
     /**
@@ -0,0 +1,432 @@
+package com.hrs.service; // Package for service classes
+
+import com.hrs.network.RawHttpClient; // Importing RawHttpClient for request outcomes
+import com.hrs.utils.AppConfig; // Importing AppConfig for the configured limits
+import com.hrs.utils.CircuitBreaker; // Importing CircuitBreaker for unreachable targets
+import com.hrs.utils.Logger; // Importing Logger for logging messages
+import com.hrs.utils.TokenBucket; // Importing TokenBucket for request pacing
+import java.io.IOException; // Importing IOException as the base of HostUnavailableException
+import java.net.InetAddress; // Importing InetAddress for resolving hosts
+import java.net.MalformedURLException; // Importing MalformedURLException for invalid targets
+import java.net.UnknownHostException; // Importing UnknownHostException for unresolvable hosts
+import java.util.Locale; // Importing Locale for case-insensitive header matching
+import java.util.Map; // Importing Map for limits by key
+import java.util.concurrent.CompletableFuture; // Importing CompletableFuture for delayed sends
+import java.util.concurrent.ConcurrentHashMap; // Importing ConcurrentHashMap for shared limits
+import java.util.concurrent.Semaphore; // Importing Semaphore for connection limits
+import java.util.concurrent.TimeUnit; // Importing TimeUnit for delays
+import java.util.concurrent.atomic.AtomicLong; // Importing AtomicLong for the sweep time
+
+/**
+ * HostLimiter keeps the native engine's traffic to a target within the limits shared by
+ * every scan: concurrent connections and requests per second per host and port
+ * (hrs.scan.host.connections, hrs.rate.host), per resolved address (hrs.rate.address.connections,
+ * hrs.rate.address), and a global request rate (hrs.rate.global) on top of the global
+ * in-flight limit of {@link RawHttpClient}. Requests are delayed, never dropped, and the
+ * delay comes before the request is sent, so it never counts toward a measured response time.
+ * Per-host and per-address rates back off on their own when the target pushes back:
+ * a connection closed without a response, or a 429 or 503, halves them, and Retry-After
+ * pauses them; normal responses bring them back up. Timeouts are what the checks look
+ * for and never count as push-back.
+ * Each host and port, and each resolved address and port, also has a {@link CircuitBreaker}:
+ * after hrs.breaker.failures connection failures in a row, targets there are skipped
+ * without connecting until a trial after the cool-down connects again, so dead hosts in
+ * a long list do not hold scan slots on connect timeouts. Breakers are per port, since a
+ * closed port says nothing about the others on the same machine.
+ */
+public final class HostLimiter {
+    // How long an unused limit at full rate is kept
+    private static final long IDLE_MS = 5 * 60 * 1000L; // 5 minutes
+    // Longest Retry-After honoured
+    private static final long MAX_RETRY_AFTER_MS = 30 * 1000L; // 30 seconds
+    // Shortest time between two sweeps of unused limits
+    private static final long SWEEP_INTERVAL_MS = 60 * 1000L; // 1 minute
+    // Send at once
+    private static final CompletableFuture<Void> NOW = CompletableFuture.completedFuture(null);
+
+    // Limits per host and port, shared by all scans
+    private static final Map<String, Limit> HOSTS = new ConcurrentHashMap<>();
+    // Limits per resolved address, shared by all scans
+    private static final Map<String, Limit> ADDRESSES = new ConcurrentHashMap<>();
+    // Breakers per resolved address and port, shared by all scans
+    private static final Map<String, CircuitBreaker> ENDPOINTS = new ConcurrentHashMap<>();
+    // Global request rate, or null if unlimited
+    private static final TokenBucket GLOBAL = AppConfig.globalRate() > 0
+            ? new TokenBucket(AppConfig.globalRate(), (int) Math.ceil(AppConfig.globalRate())) : null; // One second's worth of burst
+    // Time of the last sweep
+    private static final AtomicLong SWEPT = new AtomicLong(System.currentTimeMillis());
+
+    // Limits of the target's host and port
+    private final Limit host;
+    // Limits of the target's address, or null if it did not resolve
+    private final Limit address;
+    // Address and port, or null if the host did not resolve
+    private final String endpointName;
+    // Breaker of the address and port, or null if disabled or unresolved
+    private final CircuitBreaker endpoint;
+
+    /**
+     * Constructor to initialize a HostLimiter for one target.
+     * @param connectHost The host to connect to
+     * @param port The port to connect to
+     */
+    HostLimiter(String connectHost, int port) {
+        sweep(); // Drops limits nobody used for a while
+        String hostKey = connectHost.toLowerCase(Locale.ROOT) + ":" + port; // Host and port identify the back end
+        this.host = HOSTS.computeIfAbsent(hostKey, k -> new Limit(k, AppConfig.hostConnections(), AppConfig.hostRate(), true));
+        String ip = resolve(connectHost); // Address of the machine, if it resolves
+        this.address = ip == null ? null : ADDRESSES.computeIfAbsent(ip,
+                k -> new Limit(k, AppConfig.addressConnections(), AppConfig.addressRate(), false)); // Shared with other names of the machine
+        this.endpointName = ip == null ? null : ip + ":" + port; // Same back end under any name
+        this.endpoint = endpointName == null ? null : ENDPOINTS.computeIfAbsent(endpointName, k -> newBreaker());
+    }
+
+    /**
+     * Checks whether the target may be contacted. While a breaker is half-open this call
+     * may make the caller its trial, so it is made once before connecting.
+     * @return Why the target is skipped, or null to go ahead
+     */
+    String unavailable() {
+        String reason = unavailable(host.name, host.breaker); // Host and port first
+        return reason != null ? reason : unavailable(endpointName, endpoint); // Then the address and port
+    }
+
+    /**
+     * Takes one connection from the host's and the address's limits, blocking until both
+     * have one free.
+     * @throws InterruptedException If the scan was interrupted while waiting
+     */
+    void acquire() throws InterruptedException {
+        host.connections.acquire(); // Host first, always in the same order
+        if (address != null) {
+            try {
+                address.connections.acquire(); // Then the address
+            } catch (InterruptedException e) {
+                host.connections.release(); // Gives the host's back
+                throw e;
+            }
+        }
+    }
+
+    /**
+     * Returns a connection taken by {@link #acquire()}.
+     */
+    void release() {
+        if (address != null) {
+            address.connections.release(); // Returns the address's connection
+        }
+        host.connections.release(); // Returns the host's connection
+    }
+
+    /**
+     * Takes a token from every rate that applies.
+     * @return Completes when the request may be sent
+     */
+    CompletableFuture<Void> pace() {
+        long wait = reserve(host.rate); // Host's rate
+        if (address != null) {
+            wait = Math.max(wait, reserve(address.rate)); // Address's rate
+        }
+        wait = Math.max(wait, reserve(GLOBAL)); // Global rate
+        return wait <= 0 ? NOW : CompletableFuture.runAsync(() -> { },
+                CompletableFuture.delayedExecutor(wait, TimeUnit.MILLISECONDS)); // Delays without holding a thread
+    }
+
+    /**
+     * Adjusts the host's and address's breakers and rates to the outcome of a request.
+     * @param failure Why there was no response, or NONE
+     * @param status Three-character status code, empty if none
+     * @param response Response text, for Retry-After
+     */
+    void record(RawHttpClient.Failure failure, String status, String response) {
+        if (failure == RawHttpClient.Failure.ERROR) {
+            connectFailed(host.name, host.breaker); // Could not connect
+            connectFailed(endpointName, endpoint);
+        } else {
+            connected(host.breaker); // Reached the target, whatever it answered
+            connected(endpoint);
+        }
+        if (failure == RawHttpClient.Failure.DISCONNECTED || status.equals("429") || status.equals("503")) {
+            long retryAfter = retryAfterMs(response); // How long the server asked for
+            if (backOff(host.rate, retryAfter) | (address != null && backOff(address.rate, retryAfter))) {
+                Logger.info("Backing off " + host.name + " after " + (status.isEmpty() ? "a reset" : status)
+                        + ": " + String.format("%.1f", host.rate == null ? 0 : host.rate.getRate()) + " req/s"
+                        + (retryAfter > 0 ? ", paused " + retryAfter + " ms" : "")); // Logs the change
+            }
+        } else if (failure == RawHttpClient.Failure.NONE) {
+            recover(host.rate); // Normal response
+            if (address != null) {
+                recover(address.rate);
+            }
+        }
+    }
+
+    /**
+     * Checks whether a target's host may be contacted, for targets the limiter does not
+     * pace, such as those scanned by smuggler.py. Only the host's breaker is consulted.
+     * @param url The target URL
+     * @return Why the target is skipped, or null to go ahead
+     */
+    public static String unavailable(String url) {
+        Limit limit = forUrl(url); // Limits of the host
+        return limit == null ? null : unavailable(limit.name, limit.breaker); // Invalid URLs fail on their own
+    }
+
+    /**
+     * Records that a target's host was reached, for targets the limiter does not pace.
+     * @param url The target URL
+     */
+    public static void connected(String url) {
+        Limit limit = forUrl(url); // Limits of the host
+        if (limit != null) {
+            connected(limit.breaker); // Closes its breaker
+        }
+    }
+
+    /**
+     * Records that a target's host could not be reached, for targets the limiter does not
+     * pace.
+     * @param url The target URL
+     */
+    public static void connectFailed(String url) {
+        Limit limit = forUrl(url); // Limits of the host
+        if (limit != null) {
+            connectFailed(limit.name, limit.breaker); // Counts toward its breaker
+        }
+    }
+
+    /**
+     * Describes the limits in use, for the status line.
+     * @return A one-line summary, empty if no host is limited
+     */
+    public static String status() {
+        int hosts = 0; // Hosts with a rate
+        int throttled = 0; // Hosts below their rate
+        Limit slowest = null; // Host furthest below its rate
+        for (Limit limit : HOSTS.values()) {
+            if (limit.rate == null) {
+                continue; // Unlimited
+            }
+            hosts++;
+            if (limit.rate.isThrottled()) {
+                throttled++;
+                if (slowest == null || limit.rate.getRate() / limit.rate.getMaxRate()
+                        < slowest.rate.getRate() / slowest.rate.getMaxRate()) {
+                    slowest = limit; // Lowest share of its rate
+                }
+            }
+        }
+        long addresses = ADDRESSES.values().stream().filter(l -> l.rate != null && l.rate.isThrottled()).count(); // Addresses backed off
+        long open = HOSTS.values().stream().filter(l -> l.breaker != null
+                && l.breaker.getState() != CircuitBreaker.State.CLOSED).count(); // Hosts skipped as unreachable
+        StringBuilder sb = new StringBuilder(); // Status text
+        if (hosts > 0) {
+            sb.append("Rate limits: ").append(throttled).append(" of ").append(hosts).append(" hosts backed off"); // Host summary
+            if (slowest != null) {
+                sb.append(String.format(", slowest %s at %.1f of %.0f req/s", slowest.name,
+                        slowest.rate.getRate(), slowest.rate.getMaxRate())); // Worst host
+            }
+            if (addresses > 0) {
+                sb.append(", ").append(addresses).append(" addresses backed off"); // Address summary
+            }
+        }
+        if (open > 0) {
+            sb.append(sb.length() > 0 ? ", " : "").append(open).append(" unreachable hosts skipped"); // Breaker summary
+        }
+        if (GLOBAL != null && sb.length() > 0) {
+            sb.append(String.format(", global %.0f req/s", GLOBAL.getRate())); // Global rate
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Gets the limits of a target's host and port without resolving it.
+     * @param url The target URL
+     * @return The limits, or null if the URL cannot be parsed
+     */
+    private static Limit forUrl(String url) {
+        String target = url.trim(); // Drops surrounding whitespace
+        if (!target.toLowerCase(Locale.ROOT).startsWith("http")) {
+            target = "https://" + target; // Same default as the engines
+        }
+        try {
+            RawHttpClient.UrlParser parser = new RawHttpClient.UrlParser(target); // Splits the URL
+            String hostKey = parser.getHost().toLowerCase(Locale.ROOT) + ":" + parser.getPort(); // Same key as the native engine
+            return HOSTS.computeIfAbsent(hostKey, k -> new Limit(k, AppConfig.hostConnections(), AppConfig.hostRate(), true));
+        } catch (MalformedURLException e) {
+            return null; // Reported by the scan
+        }
+    }
+
+    /**
+     * @param name Host or address, and port
+     * @param breaker Its breaker, or null if disabled
+     * @return Why targets there are skipped, or null to go ahead
+     */
+    private static String unavailable(String name, CircuitBreaker breaker) {
+        if (breaker == null || breaker.allow()) {
+            return null; // Reachable, or this caller is the trial
+        }
+        return "circuit open for " + name + " after repeated connection failures, next try in "
+                + ((breaker.retryInMs() + 999) / 1000) + "s"; // Reason recorded for the target
+    }
+
+    /**
+     * @param breaker A breaker, or null if disabled
+     */
+    private static void connected(CircuitBreaker breaker) {
+        if (breaker != null) {
+            breaker.success(); // Closes the breaker
+        }
+    }
+
+    /**
+     * @param name Host or address, and port
+     * @param breaker Its breaker, or null if disabled
+     */
+    private static void connectFailed(String name, CircuitBreaker breaker) {
+        if (breaker != null && breaker.failure()) {
+            Logger.warn("Circuit open for " + name + " after repeated connection failures, skipping it for "
+                    + ((breaker.retryInMs() + 999) / 1000) + "s"); // Logs the change
+        }
+    }
+
+    /**
+     * @return A breaker with the configured thresholds, or null if breakers are disabled
+     */
+    private static CircuitBreaker newBreaker() {
+        return AppConfig.breakerFailures() > 0 ? new CircuitBreaker(AppConfig.breakerFailures(),
+                AppConfig.breakerWindowMs(), AppConfig.breakerOpenMs()) : null; // Zero failures disables it
+    }
+
+    /**
+     * Gets the address a host resolves to.
+     * @param connectHost The host
+     * @return The address, or null if the host does not resolve
+     */
+    private static String resolve(String connectHost) {
+        try {
+            return InetAddress.getByName(connectHost).getHostAddress(); // Cached by the JVM
+        } catch (UnknownHostException e) {
+            return null; // The request itself reports the failure
+        }
+    }
+
+    /**
+     * Drops the limits of hosts and addresses nobody used for a while, at most once a minute.
+     */
+    private static void sweep() {
+        long now = System.currentTimeMillis(); // Current time
+        long last = SWEPT.get(); // Time of the last sweep
+        if (now - last < SWEEP_INTERVAL_MS || !SWEPT.compareAndSet(last, now)) {
+            return; // Swept recently, or another scan is sweeping
+        }
+        HOSTS.values().removeIf(Limit::isIdle); // Unused hosts
+        ADDRESSES.values().removeIf(Limit::isIdle); // Unused addresses
+        ENDPOINTS.values().removeIf(b -> b.getState() == CircuitBreaker.State.CLOSED); // Reachable endpoints
+    }
+
+    /**
+     * Reads Retry-After from a response.
+     * @param response The response text
+     * @return The delay in milliseconds, capped, 0 if there is none or it is a date
+     */
+    private static long retryAfterMs(String response) {
+        int end = response.indexOf("\r\n\r\n"); // End of the headers
+        String head = (end < 0 ? response : response.substring(0, end)).toLowerCase(Locale.ROOT); // Headers only
+        int at = head.indexOf("\r\nretry-after:"); // Header line, if any
+        if (at < 0) {
+            return 0; // Not given
+        }
+        int start = at + "\r\nretry-after:".length(); // Start of the value
+        int lineEnd = head.indexOf("\r\n", start); // End of the value
+        try {
+            long seconds = Long.parseLong(head.substring(start, lineEnd < 0 ? head.length() : lineEnd).trim()); // Delay in seconds
+            return Math.max(0, Math.min(MAX_RETRY_AFTER_MS, seconds * 1000)); // Capped
+        } catch (NumberFormatException e) {
+            return 0; // An HTTP date, ignored
+        }
+    }
+
+    /**
+     * @param bucket A rate, or null if unlimited
+     * @return Milliseconds to wait for its token
+     */
+    private static long reserve(TokenBucket bucket) {
+        return bucket == null ? 0 : bucket.reserve(); // Unlimited rates never wait
+    }
+
+    /**
+     * @param bucket A rate, or null if unlimited
+     * @param retryAfterMs Requested pause
+     * @return true if it changed
+     */
+    private static boolean backOff(TokenBucket bucket, long retryAfterMs) {
+        return bucket != null && bucket.backOff(retryAfterMs); // Unlimited rates do not adapt
+    }
+
+    /**
+     * @param bucket A rate, or null if unlimited
+     */
+    private static void recover(TokenBucket bucket) {
+        if (bucket != null) {
+            bucket.recover(); // Raises a lowered rate
+        }
+    }
+
+    /**
+     * Connection and rate limits of one host or address.
+     */
+    private static final class Limit {
+        // Host and port, or address
+        private final String name;
+        // Connections allowed at once
+        private final int maxConnections;
+        // Connections free
+        private final Semaphore connections;
+        // Request rate, or null if unlimited
+        private final TokenBucket rate;
+        // Breaker for connection failures, or null if disabled
+        private final CircuitBreaker breaker;
+
+        /**
+         * Constructor to initialize a Limit.
+         * @param name Host and port, or address
+         * @param connections Connections allowed at once
+         * @param rate Requests per second, 0 for unlimited
+         * @param withBreaker Whether connection failures are tracked for this limit
+         */
+        Limit(String name, int connections, double rate, boolean withBreaker) {
+            this.name = name; // Assigns the name
+            this.maxConnections = connections; // Assigns the connection limit
+            this.connections = new Semaphore(connections); // All free
+            this.rate = rate > 0 ? new TokenBucket(rate, connections) : null; // One round of connections at once
+            this.breaker = withBreaker ? newBreaker() : null; // Addresses track failures per port instead
+        }
+
+        /**
+         * @return true if no connection is taken and the rate is unused and at full speed
+         */
+        private boolean isIdle() {
+            return connections.availablePermits() == maxConnections
+                    && (rate == null || rate.isIdle(IDLE_MS))
+                    && (breaker == null || breaker.getState() == CircuitBreaker.State.CLOSED); // Nothing worth keeping
+        }
+    }
+
+    /**
+     * Thrown when a target is skipped because its host or address was found unreachable.
+     */
+    public static final class HostUnavailableException extends IOException {
+        // Version of the serialized form
+        private static final long serialVersionUID = 1L;
+
+        /**
+         * Constructor to initialize a HostUnavailableException.
+         * @param reason Why the target is skipped
+         */
+        public HostUnavailableException(String reason) {
+            super(reason); // Assigns the reason
+        }
+    }
+}
@@ -0,0 +1,254 @@
+package com.hrs.service; // Package for service classes
+
+import com.hrs.utils.Logger; // Importing Logger for logging messages
+import com.hrs.utils.TaskExecutors; // Importing TaskExecutors for the reading thread
+import com.hrs.utils.UrlNormalizer; // Importing UrlNormalizer for the host of a target
+import java.io.Closeable; // Importing Closeable for releasing the URL list
+import java.net.InetAddress; // Importing InetAddress for resolving hosts
+import java.net.UnknownHostException; // Importing UnknownHostException for unresolvable hosts
+import java.util.ArrayDeque; // Importing ArrayDeque for queues
+import java.util.ArrayList; // Importing ArrayList for batches of targets
+import java.util.HashMap; // Importing HashMap for hosts by key
+import java.util.List; // Importing List interface for batches of targets
+import java.util.Map; // Importing Map interface for hosts by key
+import java.util.concurrent.ExecutorService; // Importing ExecutorService for reading ahead off the caller
+import java.util.concurrent.RejectedExecutionException; // Importing RejectedExecutionException for a read after close
+import java.util.function.Consumer; // Importing Consumer for slots waiting for a target
+
+/**
+ * HostScheduler hands the targets of a batch scan to its slots fairly across hosts, so a
+ * list dominated by one slow host cannot tie up every slot on that host's timeouts while
+ * other hosts wait. It reads a bounded window ahead of the running targets from the
+ * {@link UrlSource}, queues each target under its host, and takes the hosts in turn,
+ * never starting more than a set number of targets of one host at once. Hosts are keyed
+ * by the address they resolve to, so several names served by one machine share its limit.
+ * A slot asking for work when every queued host is at its limit waits, without a thread,
+ * until a target of such a host ends or more of the list has been read; since every slot
+ * takes from the same queues, a free slot always picks up whatever host has work. Reading
+ * and resolving happen on a thread of the scheduler's own, one batch at a time, so the
+ * thread asking for a slot never waits on the list or on DNS.
+ */
+public final class HostScheduler implements Closeable {
+    // Targets read from the list per read-ahead
+    private static final int READ_BATCH = 64;
+
+    // Source of the targets
+    private final UrlSource source;
+    // Runs the read-aheads
+    private final ExecutorService reader = TaskExecutors.newExecutor("hrs-batch-read", 1);
+    // Targets of one host started at once, 0 for no limit
+    private final int perHost;
+    // Targets read ahead of the running ones
+    private final int lookahead;
+    // Whether hosts are keyed by resolved address
+    private final boolean resolve;
+    // Hosts with queued or running targets by key, guarded by this
+    private final Map<String, Host> hosts = new HashMap<>();
+    // Hosts that may start a target, in turn, guarded by this
+    private final ArrayDeque<Host> ready = new ArrayDeque<>();
+    // Host of every running target, guarded by this
+    private final Map<ScanHandle, Host> running = new HashMap<>();
+    // Slots waiting for a target, guarded by this
+    private final ArrayDeque<Consumer<ScanHandle>> waiting = new ArrayDeque<>();
+    // Targets read and not started yet, guarded by this
+    private int queued;
+    // Whether the list has been read to the end, guarded by this
+    private boolean exhausted;
+    // Whether a read-ahead is scheduled or running, guarded by this
+    private boolean reading;
+    // Whether the scheduler was closed, guarded by this
+    private boolean closed;
+
+    /**
+     * Constructor to initialize a HostScheduler.
+     * @param source The source of the targets; closed with the scheduler
+     * @param perHost Targets of one host started at once, 0 for no limit
+     * @param lookahead Targets read ahead of the running ones
+     * @param resolve Whether hosts are keyed by resolved address rather than name
+     */
+    public HostScheduler(UrlSource source, int perHost, int lookahead, boolean resolve) {
+        this.source = source; // Assigns the source
+        this.perHost = perHost <= 0 ? Integer.MAX_VALUE : perHost; // Zero removes the limit
+        this.lookahead = Math.max(1, lookahead); // Assigns the window
+        this.resolve = resolve; // Assigns the keying
+    }
+
+    /**
+     * Gets a slot its next target. The slot is called with the target as soon as one can
+     * start: at once, when a running target is released, or when more of the list has been
+     * read, in which case it is called on the reading thread. It is called with null once
+     * the list is exhausted or the scheduler closed. Every target handed out must be released.
+     * @param slot Called once with the target, or null
+     */
+    public void request(Consumer<ScanHandle> slot) {
+        ScanHandle next; // Target for the slot, if any
+        boolean done; // Whether no target will come
+        boolean read = false; // Whether this call starts a read-ahead
+        synchronized (this) {
+            next = closed ? null : take(); // Next host's target
+            done = next == null && (closed || (exhausted && queued == 0)); // Nothing left to hand out
+            if (next == null && !done) {
+                waiting.add(slot); // Every queued host is at its limit
+                read = !exhausted && !reading && queued < lookahead; // Looks further down the list
+                reading |= read;
+            }
+        }
+        if (next != null || done) {
+            slot.accept(next); // Starts the target, or releases the slot
+        } else if (read) {
+            try {
+                reader.execute(this::readAhead); // Reads and resolves off the caller's thread
+            } catch (RejectedExecutionException e) {
+                synchronized (this) {
+                    reading = false; // Closed meanwhile; close() released the slot
+                }
+            }
+        }
+    }
+
+    /**
+     * Releases a target handed out by {@link #request(Consumer)} when it ends, letting its
+     * host start another and waking the slots that waited for one.
+     * @param handle The target
+     */
+    public void release(ScanHandle handle) {
+        List<Consumer<ScanHandle>> woken; // Slots to try again
+        synchronized (this) {
+            Host host = running.remove(handle); // Host of the target
+            if (host == null) {
+                return; // Not handed out, or already released
+            }
+            host.running--; // Frees one of the host's places
+            if (!host.ready && !host.queue.isEmpty() && host.running < perHost) {
+                host.ready = true;
+                ready.add(host); // The host takes its turn again
+            } else if (host.running == 0 && host.queue.isEmpty()) {
+                hosts.remove(host.key); // Forgets a host with nothing left
+            }
+            woken = new ArrayList<>(waiting); // Waiting slots may find work now
+            waiting.clear();
+        }
+        for (Consumer<ScanHandle> slot : woken) {
+            request(slot); // Starts a target or waits again
+        }
+    }
+
+    /**
+     * Stops handing out targets: waiting slots are called with null and the URL list is
+     * released.
+     */
+    @Override
+    public void close() {
+        List<Consumer<ScanHandle>> woken; // Slots waiting for a target
+        synchronized (this) {
+            closed = true; // Later requests get null
+            woken = new ArrayList<>(waiting);
+            waiting.clear();
+            reader.shutdown(); // Lets a running read-ahead finish, starts no more
+            Logger.debug("Host scheduler closed with " + queued + " targets queued over " + hosts.size() + " hosts"); // Logs the state
+        }
+        source.close(); // Releases the URL list
+        for (Consumer<ScanHandle> slot : woken) {
+            slot.accept(null); // Releases the slot
+        }
+    }
+
+    /**
+     * Takes the next target from the host whose turn it is. Called holding the lock.
+     * @return The target, or null if no queued host is below its limit
+     */
+    private ScanHandle take() {
+        Host host = ready.poll(); // Host whose turn it is
+        if (host == null) {
+            return null; // Every queued host is at its limit
+        }
+        ScanHandle handle = host.queue.poll(); // Oldest target of the host
+        queued--;
+        host.running++; // Takes one of the host's places
+        running.put(handle, host); // Remembers the host for the release
+        host.ready = !host.queue.isEmpty() && host.running < perHost; // Whether it takes another turn
+        if (host.ready) {
+            ready.add(host); // Back of the line
+        }
+        return handle;
+    }
+
+    /**
+     * Reads the next few targets and queues them under their hosts, then wakes the waiting
+     * slots. Runs on the reading thread; hosts are resolved outside the lock, so slots with
+     * work are never held up by a slow lookup.
+     */
+    private void readAhead() {
+        List<ScanHandle> read = new ArrayList<>(READ_BATCH); // Targets read
+        List<String> keys = new ArrayList<>(READ_BATCH); // Their hosts
+        boolean end = false; // Whether the list ran out
+        while (read.size() < READ_BATCH) {
+            ScanHandle handle = source.next(); // Next target of the list
+            if (handle == null) {
+                end = true; // Exhausted or closed
+                break;
+            }
+            read.add(handle);
+            keys.add(hostKey(handle.getUrl())); // Groups it with its host
+        }
+        List<Consumer<ScanHandle>> woken; // Slots that waited for the end of the list
+        synchronized (this) {
+            for (int i = 0; i < read.size(); i++) {
+                String key = keys.get(i);
+                Host host = hosts.computeIfAbsent(key, Host::new); // Host of the target
+                host.queue.add(read.get(i)); // Queues the target
+                queued++;
+                if (!host.ready && host.running < perHost) {
+                    host.ready = true;
+                    ready.add(host); // A new or idle host takes its turn
+                }
+            }
+            exhausted |= end; // Nothing more to read
+            reading = false; // A waiting slot may start the next read
+            woken = new ArrayList<>(waiting); // New hosts may have room
+            waiting.clear();
+        }
+        for (Consumer<ScanHandle> slot : woken) {
+            request(slot); // Starts a target, waits again, or reads on
+        }
+    }
+
+    /**
+     * Gets the key a target is scheduled under.
+     * @param url The normalized target URL
+     * @return The address its host resolves to, or the host if it is not resolved
+     */
+    private String hostKey(String url) {
+        String host = UrlNormalizer.host(url); // Host of the target
+        if (!resolve) {
+            return host; // Keyed by name
+        }
+        try {
+            return InetAddress.getByName(host).getHostAddress(); // Cached by the JVM
+        } catch (UnknownHostException e) {
+            return host; // The scan reports the failure
+        }
+    }
+
+    /**
+     * Targets of one host.
+     */
+    private static final class Host {
+        // Address or name of the host
+        final String key;
+        // Targets not started yet, in list order
+        final ArrayDeque<ScanHandle> queue = new ArrayDeque<>();
+        // Targets running
+        int running;
+        // Whether the host is in the ready line
+        boolean ready;
+
+        /**
+         * Constructor to initialize a Host.
+         * @param key Address or name of the host
+         */
+        Host(String key) {
+            this.key = key; // Assigns the key
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package com.hrs.service; // Package for service classes
+
+import java.util.Arrays; // Importing Arrays for sorting samples
+
+/**
+ * LatencyBaseline is the response time distribution of normal requests to one host,
+ * measured before probing it. The native engine derives its probe timeout from the
+ * upper percentile, so a healthy fast host is not waited on for the full user timeout.
+ */
+public final class LatencyBaseline {
+    // Response times in milliseconds, sorted ascending
+    private final long[] samplesMs;
+    // When the baseline was measured, in System.nanoTime() units
+    private final long measuredAt;
+
+    /**
+     * Constructor to initialize a LatencyBaseline.
+     * @param samplesMs Response times in milliseconds; at least one
+     */
+    public LatencyBaseline(long[] samplesMs) {
+        if (samplesMs.length == 0) {
+            throw new IllegalArgumentException("A baseline needs at least one sample"); // Percentiles are undefined otherwise
+        }
+        this.samplesMs = samplesMs.clone(); // Keeps the caller's array untouched
+        Arrays.sort(this.samplesMs); // Sorted once for percentile lookups
+        this.measuredAt = System.nanoTime(); // Records the measurement time
+    }
+
+    /**
+     * Gets the number of samples.
+     * @return The number of samples
+     */
+    public int size() {
+        return samplesMs.length; // Returns the sample count
+    }
+
+    /**
+     * Gets a percentile by the nearest-rank method.
+     * @param percent The percentile, between 0 and 100
+     * @return The smallest sample at or above that share of samples
+     */
+    public long percentile(double percent) {
+        int rank = (int) Math.ceil(percent / 100.0 * samplesMs.length); // 1-based nearest rank
+        return samplesMs[Math.min(samplesMs.length, Math.max(1, rank)) - 1]; // Clamped to the samples
+    }
+
+    /**
+     * Derives a probe timeout: {@code multiplier} times the 99th percentile, no lower
+     * than {@code floorMs} and no higher than {@code ceilingMs}.
+     * @param multiplier Factor applied to the 99th percentile
+     * @param floorMs Lowest timeout returned
+     * @param ceilingMs Highest timeout returned, normally the user's timeout
+     * @return The timeout in milliseconds
+     */
+    public int timeoutMs(int multiplier, int floorMs, int ceilingMs) {
+        long scaled = percentile(99) * multiplier; // Well above the normal response time
+        return (int) Math.min(ceilingMs, Math.max(floorMs, scaled)); // Never above the user's limit
+    }
+
+    /**
+     * Checks whether the baseline is too old to reuse.
+     * @param maxAgeMs The longest a baseline stays valid
+     * @return True if it was measured more than {@code maxAgeMs} ago
+     */
+    public boolean isOlderThan(long maxAgeMs) {
+        return (System.nanoTime() - measuredAt) / 1_000_000L > maxAgeMs; // Compares the age
+    }
+
+    @Override
+    public String toString() {
+        return samplesMs.length + " requests, p50 " + percentile(50) + " ms, p99 " + percentile(99) + " ms"; // Summary for output
+    }
+}
@@ -0,0 +1,50 @@
+package com.hrs.service; // Package for service classes
+
+/**
+ * Mutation is one disguised Transfer-Encoding header together with the probe template
+ * compiled around it. Instances are immutable and shared by every scan.
+ */
+public final class Mutation {
+    // Name of the mutation, e.g. "midspace-0b"
+    private final String name;
+    // Header line; each character is one byte on the wire
+    private final String header;
+    // Probe request compiled around the header
+    private final PayloadTemplate template;
+
+    /**
+     * Constructor to initialize a Mutation.
+     * @param name The mutation name
+     * @param header The header line, one character per byte
+     * @param template The compiled probe template
+     */
+    Mutation(String name, String header, PayloadTemplate template) {
+        this.name = name; // Assigns the name
+        this.header = header; // Assigns the header line
+        this.template = template; // Assigns the template
+    }
+
+    /**
+     * Gets the mutation name.
+     * @return The mutation name
+     */
+    public String getName() {
+        return name; // Returns the name
+    }
+
+    /**
+     * Gets the header line.
+     * @return The header line, one character per byte
+     */
+    public String getHeader() {
+        return header; // Returns the header line
+    }
+
+    /**
+     * Gets the compiled probe template.
+     * @return The probe template
+     */
+    public PayloadTemplate getTemplate() {
+        return template; // Returns the template
+    }
+}
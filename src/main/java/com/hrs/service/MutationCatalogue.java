@@ -0,0 +1,376 @@
+package com.hrs.service; // Package for service classes
+
+import com.hrs.utils.AppConfig; // Importing AppConfig for the cache directory setting
+import com.hrs.utils.Logger; // Importing Logger for logging messages
+import java.io.BufferedInputStream; // Importing BufferedInputStream for reading the cache
+import java.io.BufferedOutputStream; // Importing BufferedOutputStream for writing the cache
+import java.io.DataInputStream; // Importing DataInputStream for the binary cache format
+import java.io.DataOutputStream; // Importing DataOutputStream for the binary cache format
+import java.io.File; // Importing File for taking the set name from a config path
+import java.io.IOException; // Importing IOException for handling I/O exceptions
+import java.nio.charset.StandardCharsets; // Importing StandardCharsets for decoding set files
+import java.nio.file.Files; // Importing Files for reading set files
+import java.nio.file.Path; // Importing Path for file locations
+import java.nio.file.Paths; // Importing Paths for building file locations
+import java.nio.file.StandardCopyOption; // Importing StandardCopyOption for atomic cache writes
+import java.security.MessageDigest; // Importing MessageDigest for cache keys
+import java.security.NoSuchAlgorithmException; // Importing NoSuchAlgorithmException for the digest
+import java.util.ArrayList; // Importing ArrayList for dynamic array implementation
+import java.util.Collections; // Importing Collections for read-only views
+import java.util.LinkedHashMap; // Importing LinkedHashMap to keep mutations in definition order
+import java.util.List; // Importing List interface for list operations
+import java.util.Map; // Importing Map for sets by name
+import java.util.concurrent.ConcurrentHashMap; // Importing ConcurrentHashMap for loaded custom sets
+import java.util.stream.Collectors; // Importing Collectors for splitting set files into lines
+
+/**
+ * MutationCatalogue holds the Transfer-Encoding header variants sent by the native
+ * detection engine, each compiled once into a probe template.
+ * The built-in sets match smuggler.py's configs/default.py and configs/double.py under
+ * the same names and are built when the class loads. Custom sets are read from
+ * ".mutations" files (see {@link #parse(List, String)}); their expanded form is cached on
+ * disk under hrs.mutation.cache, keyed by the file's content hash.
+ */
+public final class MutationCatalogue {
+    // Name of the set with the plain Transfer-Encoding header only
+    public static final String DEFAULT_SET = "default";
+    // Name of the set with whitespace and control-character variants
+    public static final String DOUBLE_SET = "double";
+    // Extension of custom set files
+    public static final String CUSTOM_EXTENSION = ".mutations";
+
+    // Line terminator used in every probe
+    private static final String RN = "\r\n";
+    // Headers after the mutated line, as in smuggler.py's render_template
+    static final String PROBE_HEADERS = "Host: __HOST__" + RN
+            + "User-Agent: Mozilla/5.0 (Windows NT 10.0; Win64; x64) AppleWebKit/537.36 "
+            + "(KHTML, like Gecko) Chrome/78.0.3904.87 Safari/537.36" + RN
+            + "Content-type: application/x-www-form-urlencoded; charset=UTF-8" + RN
+            + "Content-Length: __REPLACE_CL__" + RN
+            + "__COOKIE__" + RN;
+    // Bytes inserted around the header name and value by the double set
+    private static final int[] SPACE_BYTES = {0x1, 0x4, 0x8, 0x9, 0xa, 0xb, 0xc, 0xd, 0x1F, 0x20, 0x7f, 0xA0, 0xFF};
+    // The header every mutation disguises
+    private static final String TE = "Transfer-Encoding";
+    // Identifies cache files
+    private static final int CACHE_MAGIC = 0x48525331; // "HRS1"
+    // Bumped when the cache layout changes
+    private static final int CACHE_VERSION = 2;
+
+    // Built-in sets, compiled once
+    private static final Map<String, List<Mutation>> BUILT_IN = buildBuiltIns();
+    // Custom sets already loaded in this run, by path and content hash
+    private static final Map<String, List<Mutation>> CUSTOM = new ConcurrentHashMap<>();
+
+    private MutationCatalogue() {
+    }
+
+    /**
+     * Returns the mutations for a config. A path to a ".mutations" file loads a custom set;
+     * anything else names a built-in set, e.g. "double", "double.py" or "configs/double.py".
+     * @param config The config name or path; empty means the default set
+     * @return The mutations, in the order they are tested
+     * @throws IllegalArgumentException If the set is unknown or the file is invalid
+     */
+    public static List<Mutation> forConfig(String config) {
+        if (config != null && config.trim().endsWith(CUSTOM_EXTENSION)) {
+            return loadCustom(Paths.get(config.trim())); // Custom set file
+        }
+        String name = setName(config); // Reduces the path to a set name
+        List<Mutation> set = BUILT_IN.get(name); // Looks up the built-in set
+        if (set == null) {
+            throw new IllegalArgumentException("Unknown mutation set: " + name + " (built-in: "
+                    + String.join(", ", BUILT_IN.keySet()) + ", or a " + CUSTOM_EXTENSION + " file)"); // Reports the unknown set
+        }
+        return set; // Returns the shared set
+    }
+
+    /**
+     * Reduces a config path to its set name.
+     * @param config The config name or path
+     * @return The file name without directory and extension, or "default" if empty
+     */
+    public static String setName(String config) {
+        if (config == null || config.trim().isEmpty()) {
+            return DEFAULT_SET; // No config chosen
+        }
+        String name = new File(config.trim()).getName(); // Drops the directory
+        for (String extension : new String[]{".py", CUSTOM_EXTENSION}) {
+            if (name.endsWith(extension)) {
+                name = name.substring(0, name.length() - extension.length()); // Drops the extension
+            }
+        }
+        return name; // Returns the set name
+    }
+
+    /**
+     * Builds every built-in set.
+     * @return Read-only sets by name
+     */
+    private static Map<String, List<Mutation>> buildBuiltIns() {
+        Map<String, List<Mutation>> sets = new LinkedHashMap<>(); // Keeps a stable order for messages
+        sets.put(DEFAULT_SET, compileAll(defaultSet())); // configs/default.py
+        sets.put(DOUBLE_SET, compileAll(doubleSet())); // configs/double.py
+        return Collections.unmodifiableMap(sets); // Returns a read-only view
+    }
+
+    /**
+     * @return The headers from configs/default.py
+     */
+    private static Map<String, String> defaultSet() {
+        Map<String, String> mutations = new LinkedHashMap<>(); // Keeps definition order
+        mutations.put("normal", TE + ": chunked"); // The unmodified header
+        return mutations; // Returns the headers
+    }
+
+    /**
+     * @return The headers from configs/double.py
+     */
+    private static Map<String, String> doubleSet() {
+        Map<String, String> mutations = new LinkedHashMap<>(); // Keeps definition order
+        mutations.put("nameprefix1", " " + TE + ": chunked"); // Leading space before the name
+        mutations.put("tabprefix1", TE + ":\tchunked"); // Tab instead of space
+        mutations.put("tabprefix2", TE + "\t:\tchunked"); // Tabs around the colon
+        mutations.put("space1", TE + " : chunked"); // Space before the colon
+        for (int b : SPACE_BYTES) {
+            String c = String.valueOf((char) b); // Sent as a single raw byte
+            String suffix = String.format("-%02x", b); // Same naming as smuggler.py
+            mutations.put("midspace" + suffix, TE + ":" + c + "chunked");
+            mutations.put("postspace" + suffix, TE + c + ": chunked");
+            mutations.put("prespace" + suffix, c + TE + ": chunked");
+            mutations.put("endspace" + suffix, TE + ": chunked" + c);
+            mutations.put("xprespace" + suffix, "X: X" + c + TE + ": chunked");
+            mutations.put("endspacex" + suffix, TE + ": chunked" + c + "X: X");
+            mutations.put("rxprespace" + suffix, "X: X\r" + c + TE + ": chunked");
+            mutations.put("xnprespace" + suffix, "X: X" + c + "\n" + TE + ": chunked");
+            mutations.put("endspacerx" + suffix, TE + ": chunked\r" + c + "X: X");
+            mutations.put("endspacexn" + suffix, TE + ": chunked" + c + "\nX: X");
+        }
+        return mutations; // Returns the headers
+    }
+
+    /**
+     * Compiles a probe template around each header.
+     * @param headers Header line by mutation name
+     * @return Read-only list of mutations
+     */
+    private static List<Mutation> compileAll(Map<String, String> headers) {
+        List<Mutation> mutations = new ArrayList<>(headers.size()); // Holds the compiled mutations
+        for (Map.Entry<String, String> entry : headers.entrySet()) {
+            PayloadTemplate template = PayloadTemplate.compile("__METHOD__ __ENDPOINT__?cb=__RANDOM__ HTTP/1.1" + RN
+                    + entry.getValue() + RN + PROBE_HEADERS); // Same layout as render_template
+            mutations.add(new Mutation(entry.getKey(), entry.getValue(), template)); // Adds the mutation
+        }
+        return Collections.unmodifiableList(mutations); // Returns a read-only view
+    }
+
+    /**
+     * Loads a custom set, from memory, the disk cache or the file itself, in that order.
+     * @param file The ".mutations" file
+     * @return The compiled set
+     * @throws IllegalArgumentException If the file cannot be read or parsed
+     */
+    private static List<Mutation> loadCustom(Path file) {
+        byte[] content; // Raw file content, also the cache key
+        try {
+            content = Files.readAllBytes(file); // Reads the set file
+        } catch (IOException e) {
+            throw new IllegalArgumentException("Cannot read mutation set " + file + ": " + e.getMessage(), e); // Reports the failure
+        }
+        String hash = sha256(content); // Changes whenever the file does
+        String key = file.toAbsolutePath().normalize() + "#" + hash; // In-memory cache key
+        return CUSTOM.computeIfAbsent(key, k -> {
+            Path cacheFile = Paths.get(AppConfig.mutationCacheDir(), setName(file.toString()) + "-" + hash.substring(0, 16) + ".bin"); // On-disk cache entry
+            Map<String, String> headers = readCache(cacheFile); // Tries the compiled form first
+            if (headers == null) {
+                List<String> lines = new String(content, StandardCharsets.UTF_8).lines().collect(Collectors.toList()); // Splits the file
+                headers = parse(lines, file.toString()); // Parses the declarations
+                writeCache(cacheFile, headers); // Saves the expanded form for next time
+                Logger.info("Compiled mutation set " + file + " (" + headers.size() + " mutations)"); // Logs the compile
+            }
+            return compileAll(headers); // Compiles the templates
+        });
+    }
+
+    /**
+     * Parses a custom set. One declaration per line; blank lines and lines starting with
+     * '#' are ignored:
+     * <pre>
+     * name = header
+     * bytes = 01 04 0b ff
+     * midspace-{hex} = Transfer-Encoding:{byte}chunked
+     * </pre>
+     * Names and headers are trimmed. Headers understand the escapes \t, \r, \n, \\ and
+     * \xNN, so leading or trailing whitespace is written as an escape. "bytes" sets the
+     * byte list for later lines whose name contains {hex}: such a line expands once per
+     * byte, with {hex} replaced by two hex digits and {byte} in the header by the byte.
+     * @param lines The file lines
+     * @param source The file name, for error messages
+     * @return Header line by mutation name, in file order
+     * @throws IllegalArgumentException If a line is invalid
+     */
+    static Map<String, String> parse(List<String> lines, String source) {
+        Map<String, String> headers = new LinkedHashMap<>(); // Keeps file order
+        int[] bytes = SPACE_BYTES; // Default byte list, as in double.py
+        for (int i = 0; i < lines.size(); i++) {
+            String line = lines.get(i).trim(); // Ignores indentation
+            if (line.isEmpty() || line.startsWith("#")) {
+                continue; // Skips blanks and comments
+            }
+            int eq = line.indexOf('='); // Separates name and header
+            if (eq <= 0) {
+                throw new IllegalArgumentException(source + ":" + (i + 1) + ": expected 'name = header'"); // Reports the bad line
+            }
+            String name = line.substring(0, eq).trim(); // Mutation name
+            String value = line.substring(eq + 1).trim(); // Header or byte list
+            if (name.equals("bytes")) {
+                bytes = parseBytes(value, source, i + 1); // Replaces the byte list
+            } else if (name.contains("{hex}")) {
+                for (int b : bytes) {
+                    headers.put(name.replace("{hex}", String.format("%02x", b)),
+                            unescape(value, source, i + 1).replace("{byte}", String.valueOf((char) b))); // One per byte
+                }
+            } else {
+                headers.put(name, unescape(value, source, i + 1)); // Single mutation
+            }
+        }
+        if (headers.isEmpty()) {
+            throw new IllegalArgumentException(source + ": no mutations defined"); // Reports the empty set
+        }
+        return headers; // Returns the headers
+    }
+
+    /**
+     * Parses a space-separated list of hex bytes.
+     * @param value The list
+     * @param source The file name
+     * @param line The line number
+     * @return The bytes
+     */
+    private static int[] parseBytes(String value, String source, int line) {
+        String[] parts = value.trim().split("[\\s,]+"); // Space or comma separated
+        int[] bytes = new int[parts.length]; // Holds the parsed bytes
+        for (int i = 0; i < parts.length; i++) {
+            try {
+                bytes[i] = Integer.parseInt(parts[i].replaceFirst("^0[xX]", ""), 16); // Accepts 0b or 0x0b
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException(source + ":" + line + ": invalid byte '" + parts[i] + "'"); // Reports the bad byte
+            }
+            if (bytes[i] < 0 || bytes[i] > 0xFF) {
+                throw new IllegalArgumentException(source + ":" + line + ": byte out of range '" + parts[i] + "'"); // Reports the bad byte
+            }
+        }
+        return bytes; // Returns the bytes
+    }
+
+    /**
+     * Resolves escapes in a header value.
+     * @param value The raw value
+     * @param source The file name
+     * @param line The line number
+     * @return The header, one character per byte
+     */
+    private static String unescape(String value, String source, int line) {
+        StringBuilder sb = new StringBuilder(value.length()); // Holds the result
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c != '\\' || i + 1 == value.length()) {
+                sb.append(c); // Plain character
+                continue;
+            }
+            char e = value.charAt(++i); // Escape character
+            switch (e) {
+                case 't': sb.append('\t'); break;
+                case 'r': sb.append('\r'); break;
+                case 'n': sb.append('\n'); break;
+                case '\\': sb.append('\\'); break;
+                case 'x':
+                    if (i + 2 >= value.length()) {
+                        throw new IllegalArgumentException(source + ":" + line + ": incomplete \\x escape"); // Reports the bad escape
+                    }
+                    try {
+                        sb.append((char) Integer.parseInt(value.substring(i + 1, i + 3), 16)); // Raw byte
+                    } catch (NumberFormatException ex) {
+                        throw new IllegalArgumentException(source + ":" + line + ": invalid \\x escape"); // Reports the bad escape
+                    }
+                    i += 2; // Skips the hex digits
+                    break;
+                default:
+                    throw new IllegalArgumentException(source + ":" + line + ": unknown escape \\" + e); // Reports the bad escape
+            }
+        }
+        return sb.toString(); // Returns the header
+    }
+
+    /**
+     * Reads an expanded set from the disk cache.
+     * @param cacheFile The cache entry
+     * @return Header line by mutation name, or null if there is no usable entry
+     */
+    private static Map<String, String> readCache(Path cacheFile) {
+        if (!Files.isRegularFile(cacheFile)) {
+            return null; // Not cached yet
+        }
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(cacheFile)))) {
+            if (in.readInt() != CACHE_MAGIC || in.readInt() != CACHE_VERSION) {
+                return null; // Foreign or outdated file
+            }
+            int count = in.readInt(); // Number of mutations
+            Map<String, String> headers = new LinkedHashMap<>(); // Keeps file order
+            for (int i = 0; i < count; i++) {
+                String name = in.readUTF(); // Mutation name
+                char[] header = new char[in.readInt()]; // Header characters
+                for (int c = 0; c < header.length; c++) {
+                    header[c] = in.readChar(); // As written, above U+00FF too
+                }
+                headers.put(name, new String(header)); // Header line
+            }
+            return headers; // Returns the cached set
+        } catch (IOException e) {
+            Logger.warn("Ignoring unreadable mutation cache " + cacheFile + ": " + e.getMessage()); // Falls back to parsing
+            return null;
+        }
+    }
+
+    /**
+     * Writes an expanded set to the disk cache. Failures only cost a re-parse next time.
+     * @param cacheFile The cache entry
+     * @param headers Header line by mutation name
+     */
+    private static void writeCache(Path cacheFile, Map<String, String> headers) {
+        try {
+            Files.createDirectories(cacheFile.getParent()); // Creates the cache directory
+            Path tmp = Files.createTempFile(cacheFile.getParent(), "mutations", ".tmp"); // Written first, then moved
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp)))) {
+                out.writeInt(CACHE_MAGIC); // File type
+                out.writeInt(CACHE_VERSION); // Layout version
+                out.writeInt(headers.size()); // Number of mutations
+                for (Map.Entry<String, String> entry : headers.entrySet()) {
+                    String header = entry.getValue(); // Encoded when the template is compiled, as on a first load
+                    out.writeUTF(entry.getKey()); // Mutation name
+                    out.writeInt(header.length()); // Header length
+                    out.writeChars(header); // Header characters, unchanged
+                }
+            }
+            Files.move(tmp, cacheFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE); // Never leaves a partial entry
+        } catch (IOException e) {
+            Logger.warn("Could not cache mutation set in " + cacheFile + ": " + e.getMessage()); // Logs the failure
+        }
+    }
+
+    /**
+     * @param data The bytes to hash
+     * @return The SHA-256 digest as lowercase hex
+     */
+    private static String sha256(byte[] data) {
+        try {
+            StringBuilder hex = new StringBuilder(); // Holds the digest
+            for (byte b : MessageDigest.getInstance("SHA-256").digest(data)) {
+                hex.append(String.format("%02x", b)); // Two digits per byte
+            }
+            return hex.toString(); // Returns the digest
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e); // Every JVM ships SHA-256
+        }
+    }
+}
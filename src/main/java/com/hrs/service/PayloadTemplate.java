@@ -0,0 +1,231 @@
+package com.hrs.service; // Package for service classes
+
+import com.hrs.network.RawHttpMessage; // Importing RawHttpMessage for byte-exact requests
+import java.util.ArrayList; // Importing ArrayList for collecting segments while parsing
+import java.util.Arrays; // Importing Arrays for copying byte ranges
+import java.util.EnumMap; // Importing EnumMap for slot values
+import java.util.List; // Importing List interface for list operations
+import java.util.Map; // Importing Map for slot values
+import java.util.concurrent.ThreadLocalRandom; // Importing ThreadLocalRandom for cache busters
+
+/**
+ * PayloadTemplate is a request template in smuggler.py's Payload format, parsed once into
+ * literal byte segments and placeholder slots. Rendering copies the segments, the target's
+ * pre-encoded slot values and a pre-encoded body into a reusable buffer in one pass, with
+ * no string building or pattern matching per probe.
+ */
+public final class PayloadTemplate {
+    /**
+     * Placeholders understood by the template, with the token that marks them.
+     */
+    public enum Slot {
+        METHOD("__METHOD__"), // Request method
+        ENDPOINT("__ENDPOINT__"), // Request path
+        RANDOM("__RANDOM__"), // Fresh random digits on every render
+        HOST("__HOST__"), // Host header value
+        CONTENT_LENGTH("__REPLACE_CL__"), // Declared body length
+        COOKIE("__COOKIE__"); // Whole Cookie header line, or nothing
+
+        // Token as it appears in the template text
+        private final String token;
+
+        Slot(String token) {
+            this.token = token; // Assigns the token
+        }
+
+        /**
+         * @return The token that marks this slot in template text
+         */
+        public String getToken() {
+            return token; // Returns the token
+        }
+    }
+
+    // Value of an unset slot
+    private static final byte[] EMPTY = new byte[0];
+    // Number of digits written for RANDOM, like the fraction digits smuggler.py uses
+    private static final int RANDOM_DIGITS = 16;
+    // Smallest 16-digit number
+    private static final long RANDOM_MIN = 1_000_000_000_000_000L;
+    // Largest 16-digit number plus one
+    private static final long RANDOM_MAX = 10_000_000_000_000_000L;
+
+    // Literal bytes before, between and after the slots; one more than there are slots
+    private final byte[][] literals;
+    // Slots in the order they appear
+    private final Slot[] slots;
+    // Total length of all literal segments
+    private final int literalLength;
+
+    private PayloadTemplate(byte[][] literals, Slot[] slots) {
+        this.literals = literals; // Assigns the literal segments
+        this.slots = slots; // Assigns the slots
+        int length = 0; // Sums the literal lengths once
+        for (byte[] literal : literals) {
+            length += literal.length;
+        }
+        this.literalLength = length; // Assigns the literal length
+    }
+
+    /**
+     * Parses template text. Characters up to U+00FF become single bytes, so header
+     * mutations with control characters or 0x80-0xFF bytes go out unchanged.
+     * @param template The template text containing slot tokens
+     * @return The compiled template
+     */
+    public static PayloadTemplate compile(String template) {
+        List<byte[]> literals = new ArrayList<>(); // Collects literal segments
+        List<Slot> slots = new ArrayList<>(); // Collects slots
+        int pos = 0; // Start of the current literal
+        while (true) {
+            Slot next = null; // Earliest slot after pos
+            int nextAt = -1; // Its position
+            for (Slot slot : Slot.values()) {
+                int at = template.indexOf(slot.token, pos); // Finds this slot's next occurrence
+                if (at >= 0 && (nextAt < 0 || at < nextAt)) {
+                    next = slot; // Keeps the earliest one
+                    nextAt = at;
+                }
+            }
+            if (next == null) {
+                literals.add(encode(template.substring(pos))); // Trailing literal
+                break;
+            }
+            literals.add(encode(template.substring(pos, nextAt))); // Literal before the slot
+            slots.add(next); // The slot itself
+            pos = nextAt + next.token.length(); // Continues after the token
+        }
+        return new PayloadTemplate(literals.toArray(new byte[0][]), slots.toArray(new Slot[0])); // Returns the compiled template
+    }
+
+    /**
+     * Renders the template into {@code buffer}. Only one copy of each byte is made and the
+     * buffer is reused, so the returned message stays valid only until the buffer's next
+     * render.
+     * @param values The target's slot values
+     * @param body The body and its declared length
+     * @param buffer The reusable output buffer
+     * @return The rendered request, backed by the buffer
+     */
+    public RawHttpMessage render(Values values, Body body, RenderBuffer buffer) {
+        int total = literalLength + body.bytes.length; // Literals and body
+        for (Slot slot : slots) {
+            total += slot == Slot.RANDOM ? RANDOM_DIGITS
+                    : slot == Slot.CONTENT_LENGTH ? body.contentLength.length
+                    : values.get(slot).length; // Size of each slot value
+        }
+        byte[] out = buffer.ensure(total); // Grows the buffer only when needed
+        int pos = 0; // Write position
+        for (int i = 0; i < slots.length; i++) {
+            byte[] literal = literals[i];
+            System.arraycopy(literal, 0, out, pos, literal.length); // Literal before the slot
+            pos += literal.length;
+            Slot slot = slots[i];
+            if (slot == Slot.RANDOM) {
+                pos = writeRandom(out, pos); // Fresh digits
+            } else {
+                byte[] value = slot == Slot.CONTENT_LENGTH ? body.contentLength : values.get(slot); // Pre-encoded value
+                System.arraycopy(value, 0, out, pos, value.length);
+                pos += value.length;
+            }
+        }
+        byte[] last = literals[slots.length];
+        System.arraycopy(last, 0, out, pos, last.length); // Trailing literal
+        pos += last.length;
+        System.arraycopy(body.bytes, 0, out, pos, body.bytes.length); // Body
+        return RawHttpMessage.wrap(out, 0, total); // Wraps without copying
+    }
+
+    /**
+     * Writes RANDOM_DIGITS random decimal digits.
+     * @param out The output array
+     * @param pos The write position
+     * @return The position after the digits
+     */
+    private static int writeRandom(byte[] out, int pos) {
+        long value = ThreadLocalRandom.current().nextLong(RANDOM_MIN, RANDOM_MAX); // Always 16 digits
+        for (int i = pos + RANDOM_DIGITS - 1; i >= pos; i--) {
+            out[i] = (byte) ('0' + value % 10); // Writes digits from the right
+            value /= 10;
+        }
+        return pos + RANDOM_DIGITS; // Returns the next position
+    }
+
+    /**
+     * Encodes text one byte per character for U+0000-U+00FF, UTF-8 above.
+     * @param text The text
+     * @return The bytes
+     */
+    private static byte[] encode(String text) {
+        RawHttpMessage message = RawHttpMessage.fromText(text); // Same encoding as the Repeater
+        return Arrays.copyOfRange(message.array(), message.arrayOffset(), message.arrayOffset() + message.length()); // Exact-size copy
+    }
+
+    /**
+     * Pre-encoded slot values for one target. RANDOM and CONTENT_LENGTH are filled in
+     * per render; unset slots render as nothing.
+     */
+    public static final class Values {
+        // Encoded value per slot
+        private final Map<Slot, byte[]> values = new EnumMap<>(Slot.class);
+
+        /**
+         * Sets a slot value.
+         * @param slot The slot
+         * @param value The value text
+         * @return The current Values instance
+         */
+        public Values with(Slot slot, String value) {
+            values.put(slot, encode(value == null ? "" : value)); // Encodes once
+            return this; // Returns the current instance for method chaining
+        }
+
+        /**
+         * @param slot The slot
+         * @return The encoded value, empty if unset
+         */
+        private byte[] get(Slot slot) {
+            byte[] value = values.get(slot); // Looks up the value
+            return value == null ? EMPTY : value; // Unset slots are empty
+        }
+    }
+
+    /**
+     * A pre-encoded body together with its declared Content-Length digits.
+     */
+    public static final class Body {
+        // Body bytes
+        private final byte[] bytes;
+        // Content-Length value as ASCII digits
+        private final byte[] contentLength;
+
+        /**
+         * @param body The body text
+         * @param contentLength The declared length, or a negative value for the real body length
+         */
+        public Body(String body, int contentLength) {
+            this.bytes = encode(body); // Encodes once
+            int declared = contentLength < 0 ? bytes.length : contentLength; // Same rule as smuggler.py
+            this.contentLength = encode(Integer.toString(declared)); // Precomputes the digits
+        }
+    }
+
+    /**
+     * Reusable render target. Not thread-safe: use one per scanning thread.
+     */
+    public static final class RenderBuffer {
+        // Current backing array
+        private byte[] data = new byte[1024];
+
+        /**
+         * @param size The number of bytes needed
+         * @return A backing array of at least {@code size} bytes
+         */
+        private byte[] ensure(int size) {
+            if (data.length < size) {
+                data = new byte[Math.max(size, data.length * 2)]; // Grows geometrically
+            }
+            return data; // Returns the array
+        }
+    }
+}
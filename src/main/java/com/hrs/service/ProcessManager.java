@@ -1,14 +1,22 @@
 package com.hrs.service; // Package for service classes
 
 import com.hrs.model.ScanResult; // Importing ScanResult model for storing scan results
+import com.hrs.utils.JsonLinesReader; // Importing JsonLinesReader for the event stream
 import com.hrs.utils.Logger; // Importing Logger for logging messages
 import javafx.application.Platform; // Importing Platform for JavaFX threading
 import javafx.collections.ObservableList; // Importing ObservableList for observable collections
 import java.io.BufferedReader; // Importing BufferedReader for reading input streams
 import java.io.IOException; // Importing IOException for handling I/O exceptions
 import java.io.InputStreamReader; // Importing InputStreamReader for converting byte streams to character streams
+import java.io.OutputStreamWriter; // Importing OutputStreamWriter for feeding URLs to a worker
+import java.io.Writer; // Importing Writer for the worker's stdin
+import java.nio.charset.StandardCharsets; // Importing StandardCharsets for the worker's stdin
 import java.util.List; // Importing List interface for list operations
+import java.util.Map; // Importing Map interface for parsed events
+import java.util.concurrent.CompletableFuture; // Importing CompletableFuture for process completion
+import java.util.concurrent.TimeUnit; // Importing TimeUnit for the stop grace period
 import java.util.concurrent.atomic.AtomicBoolean; // Importing AtomicBoolean for atomic operations
+import java.util.concurrent.atomic.AtomicReference; // Importing AtomicReference for the worker's completion callback
 import java.util.function.Consumer; // Importing Consumer for handling input
 import java.util.regex.Matcher; // Importing Matcher for regex operations
 import java.util.regex.Pattern; // Importing Pattern for regex operations
@@ -16,10 +24,17 @@ import java.util.regex.Pattern; // Importing Pattern for regex operations
 /**
  * ProcessManager is responsible for managing the execution of the Python script.
  * It handles process output, captures content, and updates the scan results table.
+ * In worker mode the script runs with --stream and stays alive: URLs are written to
+ * its stdin one at a time and each ends with a done marker, so findings are
+ * attributed to the URL that produced them.
+ * In event mode the script runs with --events-fd 2: stdout is only shown to the user,
+ * while stderr carries one JSON object per event, parsed as it arrives. Findings then
+ * come from "finding" events instead of scraping the START/END block with patterns.
+ * Callers learn that a run is over from {@link #whenFinished()} rather than by polling.
  */
 public class ProcessManager {
     // Current process being managed
-    private Process currentProcess;
+    private volatile Process currentProcess;
     // AtomicBoolean to track if the process is running
     private final AtomicBoolean isRunning = new AtomicBoolean(false);
     // Consumer to handle output from the process
@@ -30,6 +45,23 @@ public class ProcessManager {
     private StringBuilder capturedContent;
     // Boolean to track if content is being captured
     private boolean isCapturing;
+    // Writer feeding URLs to the worker's stdin, null outside worker mode
+    private Writer workerInput;
+    // URL the worker is scanning, null when idle
+    private volatile String currentUrl;
+    // Callback run when the worker finishes the current URL
+    private final AtomicReference<Runnable> onUrlDone = new AtomicReference<>();
+
+    // Whether findings come from the JSON event stream on stderr
+    private final boolean events;
+    // Completed once the process has exited and all of its output was handled
+    private volatile CompletableFuture<Void> finished = CompletableFuture.completedFuture(null);
+
+    // How long a stopped process may take to exit before it is killed
+    private static final long STOP_GRACE_MS = 2000;
+
+    // Line smuggler.py prints after each URL in --stream mode
+    public static final String DONE_MARKER = "HRS-DONE";
     
     // Pattern to match the Host header in HTTP requests
     private static final Pattern HOST_PATTERN = Pattern.compile("Host:\\s*([^\\r\\n]+)", Pattern.CASE_INSENSITIVE);
@@ -44,6 +76,19 @@ public class ProcessManager {
      * @param tableData ObservableList to update with scan results
      */
     public ProcessManager(Consumer<String> outputHandler, ObservableList<ScanResult> tableData) {
+        // Scrapes findings from the output
+        this(outputHandler, tableData, false);
+    }
+
+    /**
+     * Constructor that sets the output handler and how findings are reported.
+     * @param outputHandler A Consumer to handle process output.
+     * @param tableData ObservableList to update with scan results
+     * @param events true if the command includes --events-fd 2
+     */
+    public ProcessManager(Consumer<String> outputHandler, ObservableList<ScanResult> tableData, boolean events) {
+        // Assigns the event mode
+        this.events = events;
         // Assigns the output handler to handle process output
         this.outputHandler = outputHandler; 
         // Assigns the observable list for scan results
@@ -62,8 +107,8 @@ public class ProcessManager {
     public void startProcess(List<String> command) throws IOException {
         // Creates a new ProcessBuilder with the given command
         ProcessBuilder processBuilder = new ProcessBuilder(command);
-        // Redirects error stream to output stream
-        processBuilder.redirectErrorStream(true);
+        // Redirects error stream to output stream unless it carries events
+        processBuilder.redirectErrorStream(!events);
         // Sets the PYTHONUNBUFFERED environment variable to 1
         processBuilder.environment().put("PYTHONUNBUFFERED", "1");
         
@@ -74,7 +119,91 @@ public class ProcessManager {
         // Sets the running flag to true
         isRunning.set(true);
 
+        // Completed by the readers once they reach the end of their stream
+        CompletableFuture<Void> outputDone = new CompletableFuture<>();
+        CompletableFuture<Void> eventsDone = events ? new CompletableFuture<>() : CompletableFuture.completedFuture(null);
+        // The run is over once the process exited and both streams were read to the end
+        finished = CompletableFuture.allOf(currentProcess.onExit(), outputDone, eventsDone);
+
         // Reads output in a separate thread
+        startReader(outputDone);
+        // Reads events in another thread
+        if (events) {
+            startEventReader(eventsDone);
+        }
+    }
+
+    /**
+     * Gets the completion of the current run.
+     * @return A future completed once the process has exited and its last output and
+     *         events were handled; already complete if no process was started
+     */
+    public CompletableFuture<Void> whenFinished() {
+        // Returns the completion of the latest run
+        return finished;
+    }
+
+    /**
+     * Starts a long-lived worker. The command must include --stream and no URL;
+     * URLs are passed with {@link #submit(String, String, Runnable)}.
+     * @param command The command to execute as a list of strings.
+     * @throws IOException If an I/O error occurs.
+     */
+    public void startWorker(List<String> command) throws IOException {
+        // Starts the interpreter like a single-URL process
+        startProcess(command);
+        // Keeps stdin open for URLs
+        workerInput = new OutputStreamWriter(currentProcess.getOutputStream(), StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Sends a URL to the worker. Only one URL may be in flight per worker.
+     * @param url The target URL
+     * @param method The HTTP method for this URL
+     * @param onDone Run once the worker has finished the URL or died
+     * @return false if the worker could not take the URL
+     */
+    public boolean submit(String url, String method, Runnable onDone) {
+        // Rejects the URL if the worker is gone or busy
+        if (workerInput == null || !isProcessRunning() || !onUrlDone.compareAndSet(null, onDone)) {
+            return false;
+        }
+        // Remembers the URL for attributing findings
+        currentUrl = url;
+        try {
+            // Writes "<url> <method>", the line format smuggler.py reads from stdin
+            workerInput.write(url + " " + method + "\n");
+            // Sends the line right away
+            workerInput.flush();
+            return true;
+        } catch (IOException e) {
+            // Logs the failed hand-off
+            Logger.error("Failed to send URL to worker: " + url, e);
+            // Frees the worker slot again
+            currentUrl = null;
+            onUrlDone.set(null);
+            return false;
+        }
+    }
+
+    /**
+     * Runs and clears the completion callback of the current URL.
+     */
+    private void completeUrl() {
+        // Clears the URL before running the callback so the worker can be reused
+        currentUrl = null;
+        // Takes the callback so it runs only once
+        Runnable done = onUrlDone.getAndSet(null);
+        if (done != null) {
+            done.run();
+        }
+    }
+
+    /**
+     * Reads the process output on a separate thread until the process ends.
+     * @param done Completed once the output has been read to the end
+     */
+    private void startReader(CompletableFuture<Void> done) {
         new Thread(() -> {
             try {
                 // Creates a BufferedReader to read the process output
@@ -90,10 +219,121 @@ public class ProcessManager {
                     processOutput(currentLine);
                 }
             } catch (IOException e) {
-                // Logs any I/O errors that occur
-                Logger.error("Error reading process output", e);
+                // Logs any I/O errors that occur unless the process was stopped on purpose
+                if (isRunning.get()) {
+                    Logger.error("Error reading process output", e);
+                }
+            } finally {
+                // A worker that dies mid-URL still releases its caller
+                completeUrl();
+                // Reports the stream as fully read
+                done.complete(null);
+            }
+        }, "hrs-process-reader").start();
+    }
+
+    /**
+     * Reads the JSON event stream on a separate thread until the process ends.
+     * @param done Completed once the event stream has been read to the end
+     */
+    private void startEventReader(CompletableFuture<Void> done) {
+        new Thread(() -> {
+            // Parses events as they arrive
+            try (JsonLinesReader reader = new JsonLinesReader(
+                    new InputStreamReader(currentProcess.getErrorStream(), StandardCharsets.UTF_8))) {
+                Map<String, Object> event;
+                // Continuously reads events; other stderr lines such as tracebacks go to the output
+                while ((event = reader.next(line -> Platform.runLater(() -> outputHandler.accept(line + "\n")))) != null) {
+                    // Handles the event
+                    processEvent(event);
+                }
+            } catch (IOException e) {
+                // Logs any I/O errors that occur unless the process was stopped on purpose
+                if (isRunning.get()) {
+                    Logger.error("Error reading process events", e);
+                }
+            } finally {
+                // A worker that dies mid-URL still releases its caller
+                completeUrl();
+                // Reports the stream as fully read
+                done.complete(null);
             }
-        }).start();
+        }, "hrs-process-events").start();
+    }
+
+    /**
+     * Handles one event from the JSON event stream.
+     * @param event The parsed event
+     */
+    private void processEvent(Map<String, Object> event) {
+        // Reads the event type
+        String type = text(event, "event");
+        // Logs the event
+        Logger.debug("Event from process: " + event);
+        switch (type) {
+            case "finding":
+                // Adds the finding to the table
+                addFinding(event);
+                break;
+            case "cookies":
+                // The script reached the target
+                HostLimiter.connected(text(event, "url"));
+                break;
+            case "error":
+                // Logs the target's failure
+                Logger.warn("Scan of " + text(event, "url") + " failed: " + text(event, "message"));
+                if (text(event, "message").startsWith("Unable to connect")) {
+                    // Counts toward the host's circuit breaker
+                    HostLimiter.connectFailed(text(event, "url"));
+                }
+                break;
+            case "done":
+                // Releases the caller waiting for this URL
+                completeUrl();
+                break;
+            default:
+                // Progress events ("target", "result") are only logged
+                break;
+        }
+    }
+
+    /**
+     * Adds a "finding" event to the results table.
+     * @param event The parsed event
+     */
+    private void addFinding(Map<String, Object> event) {
+        // Uses the reported URL, or the URL being scanned if the event has none
+        String reported = text(event, "url");
+        String url = reported.isEmpty() && currentUrl != null ? currentUrl : reported;
+        // Builds the typed result
+        ScanResult result = new ScanResult(
+            url,
+            text(event, "method"),
+            text(event, "header").trim(),
+            text(event, "payload").replace("\r\n", "\n"),
+            text(event, "technique"),
+            text(event, "mutation")
+        );
+        // Updates the table on the JavaFX thread
+        Platform.runLater(() -> {
+            // Adds the result to the table data
+            tableData.add(result);
+            // Logs the successful addition of the result to the table
+            Logger.info("Added " + result.getTechnique() + " finding for " + url + " to the table");
+        });
+    }
+
+    /**
+     * Reads a field of an event as text.
+     * @param event The parsed event
+     * @param field The field name
+     * @return The value as text, or an empty string if missing
+     */
+    private static String text(Map<String, Object> event, String field) {
+        // Looks up the field
+        Object value = event.get(field);
+        // Converts it to text
+        return value == null ? "" : value.toString();
     }
 
     /**
@@ -101,6 +341,21 @@ public class ProcessManager {
      * @param output The output line from the process.
      */
     private void processOutput(String output) {
+        // In event mode the output is only shown; URLs end with the "done" event
+        if (events) {
+            if (!output.trim().equals(DONE_MARKER)) {
+                Platform.runLater(() -> outputHandler.accept(output + "\n"));
+            }
+            return;
+        }
+        // Checks for the end of a URL in worker mode
+        if (workerInput != null && output.trim().equals(DONE_MARKER)) {
+            // Logs the finished URL
+            Logger.debug("Worker finished " + currentUrl);
+            // Releases the caller waiting for this URL
+            completeUrl();
+            return;
+        }
         // Always sends output to log area immediately with a newline
         Platform.runLater(() -> outputHandler.accept(output + "\n"));
         
@@ -164,8 +419,9 @@ public class ProcessManager {
         // Logs the extracted Transfer-Encoding header
         Logger.debug("Extracted TE header: " + transferEncoding);
         
-        // Constructs the URL from the host
-        String url = host != null ? (host.startsWith("http") ? host : "https://" + host) : "";
+        // Uses the URL being scanned in worker mode, otherwise constructs it from the host
+        String scannedUrl = currentUrl;
+        String url = scannedUrl != null ? scannedUrl : host != null ? (host.startsWith("http") ? host : "https://" + host) : "";
         // Logs the constructed URL
         Logger.debug("Final URL: " + url);
         
@@ -220,24 +476,45 @@ public class ProcessManager {
     }
 
     /**
-     * Stops the current process if it is running.
+     * Stops the current process if it is running. The process is asked to exit and is
+     * killed if it has not exited within the grace period, so a stop takes bounded time.
      */
     public void stopProcess() {
+        // Reads the process once
+        Process process = currentProcess;
         // Checks if the process is running
-        if (currentProcess != null) {
+        if (process != null) {
             // Sets the running flag to false
             isRunning.set(false);
             // Destroys the process
-            currentProcess.destroy();
+            process.destroy();
+            // Kills it if it ignores the request
+            process.onExit()
+                .orTimeout(STOP_GRACE_MS, TimeUnit.MILLISECONDS)
+                .exceptionally(e -> {
+                    Logger.warn("Process did not exit within " + STOP_GRACE_MS + " ms, killing it");
+                    return process.destroyForcibly();
+                });
         }
     }
 
+    /**
+     * Gets the exit code of the last run.
+     * @return The exit code, or -1 if no process was started or it is still running
+     */
+    public int exitCode() {
+        // Reads the process once
+        Process process = currentProcess;
+        // Returns the exit code once the process has exited
+        return process == null || process.isAlive() ? -1 : process.exitValue();
+    }
+
     /**
      * Checks if the process is currently running.
-     * @return true if the process is running, false otherwise.
+     * @return true if the process is running and was not asked to stop, false otherwise.
      */
     public boolean isProcessRunning() {
-        // Returns true if the process is not null and is alive
-        return currentProcess != null && currentProcess.isAlive();
+        // Returns true if the process is not null, is alive and is not being stopped
+        return currentProcess != null && isRunning.get() && currentProcess.isAlive();
     }
 }
@@ -0,0 +1,205 @@
+package com.hrs.service; // Package for service classes
+
+import com.hrs.model.ScanResult; // Importing ScanResult model for the results table
+import com.hrs.utils.Logger; // Importing Logger for logging messages
+import javafx.collections.ObservableList; // Importing ObservableList for observable collections
+import java.io.IOException; // Importing IOException for handling I/O exceptions
+import java.util.ArrayDeque; // Importing ArrayDeque for idle workers and waiting URLs
+import java.util.ArrayList; // Importing ArrayList for dynamic array implementation
+import java.util.Deque; // Importing Deque interface for idle workers
+import java.util.List; // Importing List interface for list operations
+import java.util.Queue; // Importing Queue interface for waiting URLs
+import java.util.concurrent.CompletableFuture; // Importing CompletableFuture for URL completion
+import java.util.function.Consumer; // Importing Consumer for handling output
+
+/**
+ * PythonWorkerPool keeps a fixed number of smuggler.py interpreters running in --stream
+ * mode and hands each URL to an idle one over stdin. The interpreter start-up and the
+ * config exec are paid once per worker instead of once per URL. A worker that dies is
+ * replaced on its next use.
+ * Nothing blocks while a URL is scanned: URLs wait in a queue until a worker is idle,
+ * and a worker takes the next one the moment it reports the previous one done.
+ */
+public class PythonWorkerPool {
+    // Command that starts one worker, including --stream
+    private final List<String> command;
+    // Consumer to handle output from the workers
+    private final Consumer<String> outputHandler;
+    // ObservableList to update with scan results
+    private final ObservableList<ScanResult> tableData;
+    // Whether the command includes --events-fd 2
+    private final boolean events;
+    // Every worker started by the pool
+    private final List<ProcessManager> workers = new ArrayList<>();
+    // Workers not scanning a URL, guarded by this
+    private final Deque<ProcessManager> idle = new ArrayDeque<>();
+    // URLs waiting for a worker, guarded by this
+    private final Queue<Request> waiting = new ArrayDeque<>();
+    // Whether the pool has been shut down, guarded by this
+    private boolean closed;
+
+    /**
+     * Constructor to start the workers.
+     * @param command The command that starts one worker, including --stream and no URL
+     * @param size The number of workers
+     * @param outputHandler A Consumer to handle worker output
+     * @param tableData ObservableList to update with scan results
+     * @param events true if the command includes --events-fd 2
+     * @throws IOException If a worker cannot be started
+     */
+    public PythonWorkerPool(List<String> command, int size, Consumer<String> outputHandler,
+                            ObservableList<ScanResult> tableData, boolean events) throws IOException {
+        this.command = new ArrayList<>(command); // Copies the command
+        this.outputHandler = outputHandler; // Assigns the output handler
+        this.tableData = tableData; // Assigns the observable list for scan results
+        this.events = events; // Assigns the event mode
+        try {
+            for (int i = 0; i < size; i++) {
+                idle.add(startWorker()); // Starts the workers up front
+            }
+        } catch (IOException e) {
+            shutdown(); // Stops the workers that did start
+            throw e;
+        }
+        Logger.info("Started " + size + " Python workers"); // Logs the pool start
+    }
+
+    /**
+     * Queues one URL for the next idle worker.
+     * @param url The target URL
+     * @param method The HTTP method
+     * @return A future completed once a worker reports the URL done, or failed if no
+     *         worker could take it. Cancelling it drops a waiting URL, or stops the
+     *         worker scanning it; that worker is replaced on its next use.
+     */
+    public CompletableFuture<Void> scan(String url, String method) {
+        Request request = new Request(url, method); // The URL and its completion
+        ProcessManager worker;
+        synchronized (this) {
+            if (closed) {
+                request.done.cancel(false); // Pool was shut down
+                return request.done;
+            }
+            worker = idle.poll(); // Takes an idle worker, if any
+            if (worker == null) {
+                waiting.add(request); // Waits for the next worker to finish
+                return request.done;
+            }
+        }
+        run(worker, request); // Starts the URL right away
+        return request.done;
+    }
+
+    /**
+     * Stops every worker and cancels the URLs still waiting for one.
+     */
+    public void shutdown() {
+        List<Request> dropped; // URLs that never reached a worker
+        synchronized (this) {
+            closed = true; // Rejects further URLs
+            dropped = new ArrayList<>(waiting); // Takes the waiting URLs
+            waiting.clear();
+            idle.clear(); // Drops idle workers
+        }
+        for (Request request : dropped) {
+            request.done.cancel(false); // Releases whoever waits on them
+        }
+        synchronized (workers) {
+            for (ProcessManager worker : workers) {
+                worker.stopProcess(); // Ends the interpreter
+            }
+            workers.clear(); // Forgets the stopped workers
+        }
+    }
+
+    /**
+     * Hands requests to a worker until one is accepted or none are left. A request the
+     * worker cannot take fails, and the worker is restarted for the next one.
+     * @param worker The worker, possibly dead
+     * @param request The first request, or null
+     */
+    private void run(ProcessManager worker, Request request) {
+        while (request != null) {
+            try {
+                if (!worker.isProcessRunning()) {
+                    Logger.warn("Python worker exited, starting a new one"); // Replaces a dead worker
+                    worker = startWorker();
+                }
+                ProcessManager busy = worker; // Worker taking this request
+                Request current = request; // Request it takes
+                if (!busy.submit(current.url, current.method, () -> finished(busy, current))) {
+                    throw new IOException("Python worker did not accept " + current.url); // Reports the failed hand-off
+                }
+                current.done.whenComplete((r, e) -> {
+                    if (current.done.isCancelled()) {
+                        busy.stopProcess(); // Stopped mid-URL; the worker is replaced on its next use
+                    }
+                });
+                return; // The worker is busy until it reports the URL done
+            } catch (IOException e) {
+                request.done.completeExceptionally(e); // Fails this URL
+                request = release(worker); // Tries the next one
+            }
+        }
+    }
+
+    /**
+     * Completes a request and gives its worker the next one.
+     * @param worker The worker that finished
+     * @param request The request it finished
+     */
+    private void finished(ProcessManager worker, Request request) {
+        request.done.complete(null); // Releases whoever waits on the URL
+        run(worker, release(worker)); // Refills the worker at once
+    }
+
+    /**
+     * Takes the next waiting request for a worker, or parks the worker as idle.
+     * @param worker The worker that is free
+     * @return The next request, or null if the worker was parked or the pool is closed
+     */
+    private synchronized Request release(ProcessManager worker) {
+        if (closed) {
+            return null; // The worker is being stopped
+        }
+        Request next;
+        while ((next = waiting.poll()) != null) {
+            if (!next.done.isDone()) {
+                return next; // Skips URLs cancelled while waiting
+            }
+        }
+        idle.push(worker); // Waits for the next URL
+        return null;
+    }
+
+    /**
+     * Starts one worker.
+     * @return The running worker
+     * @throws IOException If the interpreter cannot be started
+     */
+    private ProcessManager startWorker() throws IOException {
+        ProcessManager worker = new ProcessManager(outputHandler, tableData, events); // Parses findings like a single run
+        worker.startWorker(command); // Starts the interpreter in --stream mode
+        synchronized (workers) {
+            workers.add(worker); // Tracks it for shutdown
+        }
+        return worker; // Returns the running worker
+    }
+
+    /**
+     * One URL queued for a worker.
+     */
+    private static final class Request {
+        // Target URL
+        final String url;
+        // HTTP method for this URL
+        final String method;
+        // Completed once a worker reports the URL done
+        final CompletableFuture<Void> done = new CompletableFuture<>();
+
+        Request(String url, String method) {
+            this.url = url; // Assigns the URL
+            this.method = method; // Assigns the method
+        }
+    }
+}
@@ -0,0 +1,106 @@
+package com.hrs.service; // Package for service classes
+
+import java.util.concurrent.Future; // Importing Future for the task scanning the target
+
+/**
+ * ScanHandle is one target being scanned. It holds whatever is doing the work for that
+ * target, the task running the scan and, for the Python engine, its own ProcessManager,
+ * so a stop reaches every scan in flight instead of only the most recently started one.
+ * A handle stopped before its task or process is attached stops them as they arrive.
+ */
+public final class ScanHandle {
+    // Target URL
+    private final String url;
+    // Position of the target in its batch's URL list, -1 outside a batch
+    private final long position;
+    // Task running the scan, once submitted
+    private volatile Future<?> task;
+    // smuggler.py process of this target, if it has its own
+    private volatile ProcessManager process;
+    // Whether the scan was stopped
+    private volatile boolean stopped;
+
+    /**
+     * Constructor to initialize a ScanHandle outside a batch.
+     * @param url The target URL
+     */
+    ScanHandle(String url) {
+        this(url, -1); // Not part of a list
+    }
+
+    /**
+     * Constructor to initialize a ScanHandle for a batch target.
+     * @param url The target URL
+     * @param position Position of the target in the batch's URL list
+     */
+    ScanHandle(String url, long position) {
+        this.url = url; // Assigns the target URL
+        this.position = position; // Assigns the list position
+    }
+
+    /**
+     * Gets the target URL.
+     * @return The target URL
+     */
+    public String getUrl() {
+        return url; // Returns the target URL
+    }
+
+    /**
+     * Gets the position of the target in its batch's URL list.
+     * @return The position, or -1 outside a batch
+     */
+    public long getPosition() {
+        return position; // Returns the list position
+    }
+
+    /**
+     * Attaches the task running the scan.
+     * @param task The task
+     */
+    void attach(Future<?> task) {
+        this.task = task; // Remembers the task
+        if (stopped) {
+            task.cancel(true); // Stop arrived before the task was attached
+        }
+    }
+
+    /**
+     * Attaches the process scanning the target.
+     * @param process The process
+     */
+    void attach(ProcessManager process) {
+        this.process = process; // Remembers the process
+        if (stopped) {
+            process.stopProcess(); // Stop arrived before the process was started
+        }
+    }
+
+    /**
+     * Stops the scan: ends its process and interrupts its task.
+     */
+    public void stop() {
+        stopped = true; // Marks the handle so late attachments are stopped too
+        ProcessManager p = process; // Reads the process once
+        if (p != null) {
+            p.stopProcess(); // Ends the interpreter
+        }
+        Future<?> t = task; // Reads the task once
+        if (t != null) {
+            t.cancel(true); // Interrupts the native engine between probes
+        }
+    }
+
+    /**
+     * Checks whether the scan was stopped.
+     * @return True once {@link #stop()} was called
+     */
+    public boolean isStopped() {
+        return stopped; // Returns the stop flag
+    }
+
+    @Override
+    public String toString() {
+        return url; // The target identifies the scan in logs
+    }
+}
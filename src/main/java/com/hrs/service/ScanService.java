@@ -1,42 +1,73 @@
 package com.hrs.service; // Package for service classes
 
 import javafx.application.Platform; // Importing Platform for JavaFX threading
+import javafx.collections.ListChangeListener; // Importing ListChangeListener for journaling findings
 import javafx.collections.ObservableList; // Importing ObservableList for observable collections
 import javafx.scene.control.Button; // Importing Button for UI button control
 import javafx.scene.control.TextArea; // Importing TextArea for UI text area control
 import com.hrs.model.ScanResult; // Importing ScanResult model for storing scan results
+import com.hrs.network.RawHttpClient; // Importing RawHttpClient for the native engine's probes
 import com.hrs.ui.UIHelper; // Importing UIHelper for UI utility methods
+import com.hrs.utils.AppConfig; // Importing AppConfig for the configured concurrency limit
 import com.hrs.utils.Logger; // Importing Logger for logging messages
+import com.hrs.utils.TaskExecutors; // Importing TaskExecutors for platform or virtual-thread executors
 import java.io.IOException; // Importing IOException for handling I/O exceptions
+import java.nio.charset.StandardCharsets; // Importing StandardCharsets for writing the log file
+import java.nio.file.Files; // Importing Files for appending to the log file
+import java.nio.file.Paths; // Importing Paths for locating the log file
+import java.nio.file.StandardOpenOption; // Importing StandardOpenOption for appending
+import java.util.ArrayList; // Importing ArrayList for copying the active scans
+import java.util.BitSet; // Importing BitSet for targets done in an earlier run
 import java.util.List; // Importing List interface for list operations
-import java.util.Queue; // Importing Queue interface for queue operations
+import java.util.Set; // Importing Set interface for the active scans
 import java.util.concurrent.*; // Importing concurrent utilities for multithreading
 import java.util.concurrent.atomic.AtomicInteger; // Importing AtomicInteger for atomic operations
+import java.util.function.Consumer; // Importing Consumer for scan output
 
 /**
- * ScanService manages the scanning operations using the smuggler.py script.
+ * ScanService manages the scanning operations, either in-process with
+ * {@link DesyncDetector} or using the smuggler.py script. Every target in flight has its
+ * own {@link ScanHandle}, and with it its own process, so up to hrs.scan.concurrency
+ * targets really are scanned at once and a stop reaches all of them. A batch runs on
+ * completion callbacks: when a target's engine future or process completes, its slot
+ * takes the next pending URL at once, and no thread sits waiting on a running process.
+ * Pending URLs are handed out by a {@link HostScheduler}, which takes the hosts in turn
+ * and caps how many targets of one host run at once.
+ * A batch over a URL file journals its progress with {@link BatchJournal}; starting the
+ * same file again after a stop or crash skips the targets already done and restores
+ * their findings.
  */
 public class ScanService {
-    // Maximum number of concurrent scans allowed
-    private static final int MAX_CONCURRENT_SCANS = 5; // Defines the maximum number of concurrent scans
+    // Maximum number of concurrent scans allowed, from hrs.scan.concurrency
+    private final int maxConcurrentScans = AppConfig.scanConcurrency(); // Defines the maximum number of concurrent scans
     // TextArea for displaying output logs
     private final TextArea outputArea; // Holds the TextArea for output logs
     // ObservableList for holding scan results
     private final ObservableList<ScanResult> tableData; // Holds the ObservableList for scan results
     // Button to stop the scanning process
     private final Button stopButton; // Holds the Button to stop the scan
-    // Current ProcessManager handling the scan
-    private ProcessManager currentProcessManager; // Holds the current ProcessManager
+    // Scans in flight, single or batch
+    private final Set<ScanHandle> activeHandles = ConcurrentHashMap.newKeySet(); // Registry of active scans
     // Flag to indicate if a batch scan is running
     private volatile boolean isBatchRunning; // Flag to track batch scan status
     // ExecutorService for managing concurrent scan tasks
-    private ExecutorService executorService; // Manages concurrent scan tasks
-    // Queue for holding pending URLs to be scanned
-    private Queue<String> pendingUrls; // Holds pending URLs for scanning
-    // AtomicInteger to track the number of active scans
-    private AtomicInteger activeScans; // Tracks the number of active scans
-    // Lock object for synchronizing access
-    private Object lock = new Object(); // Lock object for synchronization
+    private final ExecutorService executorService; // Manages concurrent scan tasks
+    // Hands the URLs not scanned yet to the slots, host by host
+    private volatile HostScheduler pendingUrls; // Holds pending URLs for scanning
+    // AtomicInteger to track the batch slots still taking URLs
+    private AtomicInteger activeScans; // The batch is finished when it reaches zero
+    // Lock object for synchronizing log file writes
+    private final Object lock = new Object(); // Lock object for synchronization
+    // Whether scans run in-process instead of through smuggler.py
+    private volatile boolean nativeEngine = AppConfig.useNativeEngine(); // Defaults to hrs.scan.engine
+    // Whether smuggler.py reports findings as JSON events, from hrs.python.events
+    private final boolean pythonEvents = AppConfig.usePythonEvents(); // Parses events instead of scraping output
+    // Long-lived smuggler.py workers for the running Python batch scan, if any
+    private volatile PythonWorkerPool workerPool; // Shut down when the batch ends
+    // Progress journal of the running batch scan, if any
+    private volatile BatchJournal journal; // Closed when the batch ends
+    // Records findings of the running batch scan in its journal
+    private volatile ListChangeListener<ScanResult> findingRecorder; // Removed when the batch ends
 
     /**
      * Constructor to initialize the ScanService.
@@ -48,8 +79,17 @@ public class ScanService {
         this.outputArea = outputArea; // Assigns the TextArea for output logs
         this.tableData = tableData; // Assigns the ObservableList for scan results
         this.stopButton = stopButton; // Assigns the Button to stop the scan
-        this.executorService = Executors.newFixedThreadPool(MAX_CONCURRENT_SCANS); // Initializes the ExecutorService
+        this.executorService = TaskExecutors.newExecutor("hrs-scan", maxConcurrentScans); // Initializes the ExecutorService
         this.activeScans = new AtomicInteger(0); // Initializes the AtomicInteger for active scans
+        MutationCatalogue.forConfig(MutationCatalogue.DEFAULT_SET); // Builds the built-in mutation sets before the first scan
+    }
+
+    /**
+     * Selects the engine for scans started from now on.
+     * @param nativeEngine True to scan in-process, false to run smuggler.py
+     */
+    public void setNativeEngine(boolean nativeEngine) {
+        this.nativeEngine = nativeEngine; // Assigns the engine choice
     }
 
     /**
@@ -72,23 +112,14 @@ public class ScanService {
             return; // Returns if the URL is invalid
         }
 
-        try {
-            // Builds the command for the scan
-            CommandBuilder commandBuilder = buildCommand(url, vhost, method, logFile,
-                                                       configFile, timeout, exitEarly,
-                                                       quietMode, noColor);
-
-            List<String> command = commandBuilder.build(); // Builds the command
-            Logger.debug("Executing command: " + String.join(" ", command)); // Logs the command
-            outputArea.appendText("Executing command: " + String.join(" ", command) + "\n"); // Appends the command to the output area
-
-            startProcess(command); // Starts the process
-            Platform.runLater(() -> stopButton.setDisable(false)); // Enables the stop button
-        } catch (Exception e) {
-            Logger.error("Error executing single scan", e); // Logs the error
-            UIHelper.showError("Error executing command: " + e.getMessage()); // Shows the error message
-            Platform.runLater(() -> stopButton.setDisable(true)); // Disables the stop button
-        }
+        ScanHandle handle = new ScanHandle(url); // Tracks the scan until it ends
+        activeHandles.add(handle); // Registers the scan
+        Platform.runLater(() -> stopButton.setDisable(false)); // Enables the stop button
+        startTarget(handle, false, vhost, method, logFile, configFile, timeout, exitEarly, quietMode, noColor)
+                .whenComplete((r, e) -> {
+                    activeHandles.remove(handle); // Unregisters the scan
+                    Platform.runLater(() -> stopButton.setDisable(true)); // Disables the stop button when done
+                });
     }
 
     /**
@@ -106,8 +137,29 @@ public class ScanService {
     public void startBatchScan(List<String> urls, String vhost, String method, String logFile,
                              String configFile, int timeout, boolean exitEarly,
                              boolean quietMode, boolean noColor) {
-        Logger.info("Starting batch scan with " + urls.size() + " URLs"); // Logs the start of a batch scan
-        if (urls.isEmpty()) { // Checks if the URL list is empty
+        startBatchScan(UrlSource.of(urls), vhost, method, logFile, configFile, timeout,
+                exitEarly, quietMode, noColor); // Normalizes and deduplicates like a file
+    }
+
+    /**
+     * Starts a batch scan that reads its URLs from a source as slots become free.
+     * @param urls The source of URLs to scan; closed when the batch ends
+     * @param vhost The virtual host
+     * @param method The HTTP method
+     * @param logFile The log file path
+     * @param configFile The config file path
+     * @param timeout The timeout duration
+     * @param exitEarly Flag to exit early
+     * @param quietMode Flag for quiet mode
+     * @param noColor Flag to disable color output
+     */
+    public void startBatchScan(UrlSource urls, String vhost, String method, String logFile,
+                             String configFile, int timeout, boolean exitEarly,
+                             boolean quietMode, boolean noColor) {
+        long count = urls.getExpected(); // Non-blank lines in the list
+        Logger.info("Starting batch scan with " + count + " URLs"); // Logs the start of a batch scan
+        if (count == 0) { // Checks if the URL list is empty
+            urls.close(); // Releases the list
             Logger.error("No URLs found in file", null); // Logs the error
             UIHelper.showError("No URLs found in the file or file is empty"); // Shows the error message
             return; // Returns if the URL list is empty
@@ -115,20 +167,102 @@ public class ScanService {
 
         isBatchRunning = true; // Sets the batch scan flag to true
         Platform.runLater(() -> stopButton.setDisable(false)); // Enables the stop button
-        outputArea.appendText("Starting batch scan for " + urls.size() + " URLs\n"); // Appends the batch scan message to the output area
+        outputArea.appendText("Starting batch scan for " + count + " URLs\n"); // Appends the batch scan message to the output area
 
-        // Initializes the pending URLs queue
-        pendingUrls = new ConcurrentLinkedQueue<>(urls); // Initializes the pending URLs queue
-        activeScans.set(0); // Resets the active scans counter
+        // URLs are read from the source only when a slot takes one
+        journal = openJournal(urls); // Resumes an earlier run of the same file
+        pendingUrls = new HostScheduler(urls, AppConfig.batchHostTargets(), AppConfig.batchLookahead(),
+                AppConfig.batchHostResolve()); // Takes the hosts in turn
+        int slots = (int) Math.min(maxConcurrentScans, count); // Targets scanned at once
+        workerPool = nativeEngine ? null : startWorkerPool(slots, vhost, method, logFile,
+                configFile, timeout, exitEarly, quietMode, noColor); // Feeds URLs to long-lived interpreters
 
-        // Starts the initial batch of scans
-        for (int i = 0; i < Math.min(MAX_CONCURRENT_SCANS, urls.size()); i++) {
-            startNextScan(vhost, method, logFile, configFile, timeout, exitEarly, quietMode, noColor); // Starts the next scan
+        // Each slot is released exactly once, when it finds no more work
+        activeScans.set(slots); // Counts the slots before any of them can finish
+        executorService.execute(() -> {
+            for (int i = 0; i < slots; i++) {
+                fillSlot(vhost, method, logFile, configFile, timeout, exitEarly, quietMode, noColor); // Starts the first targets
+            }
+        }); // Off the caller, usually the JavaFX thread
+    }
+
+    /**
+     * Opens the progress journal of a batch over a URL file. Targets done in an earlier
+     * run are skipped and their findings are put back in the table; from then on every
+     * finding added to the table is journaled.
+     * @param urls The source of URLs; nothing is journaled for a list in memory
+     * @return The journal, or null if progress is not saved
+     */
+    private BatchJournal openJournal(UrlSource urls) {
+        String dir = AppConfig.batchJournalDir(); // Where journals are kept
+        if (urls.getFile() == null || dir.isEmpty()) {
+            return null; // Nothing to resume from
+        }
+        try {
+            BatchJournal opened = BatchJournal.open(urls.getFile(), dir, AppConfig.batchJournalFlushMs(),
+                    "fpp=" + AppConfig.urlDedupeFpp()); // The filter rate decides which targets the list yields
+            BitSet done = opened.getDone(); // Targets done in earlier runs
+            List<ScanResult> restored = opened.getFindings(); // Their findings
+            urls.skip(done); // Never scans them again
+            if (!done.isEmpty() || opened.getFailed() > 0) {
+                outputArea.appendText("Resuming batch: " + done.cardinality() + " targets already scanned, "
+                        + restored.size() + " findings restored, " + opened.getFailed() + " failed targets retried\n"); // Reports the resume
+            }
+            ListChangeListener<ScanResult> recorder = change -> {
+                while (change.next()) {
+                    if (change.wasAdded()) {
+                        change.getAddedSubList().forEach(opened::finding); // Journals new findings
+                    }
+                }
+            };
+            findingRecorder = recorder; // Removed when the batch ends
+            Platform.runLater(() -> {
+                tableData.addAll(restored); // Restores earlier findings without journaling them again
+                tableData.addListener(recorder); // Journals the findings of this run
+            });
+            return opened;
+        } catch (IOException e) {
+            Logger.error("Could not open batch journal for " + urls.getFile(), e); // Logs the failure
+            outputArea.appendText("Could not open batch journal, progress will not be saved: " + e.getMessage() + "\n"); // Reports the failure
+            return null;
+        }
+    }
+
+    /**
+     * Starts the Python workers for a batch scan.
+     * @param slots The number of targets the batch scans at once
+     * @param vhost The virtual host
+     * @param method The default HTTP method
+     * @param logFile The log file path; written by this service, since workers share it
+     * @param configFile The config file path
+     * @param timeout The timeout duration
+     * @param exitEarly Flag to exit early
+     * @param quietMode Flag for quiet mode
+     * @param noColor Flag to disable color output
+     * @return The pool, or null to start one process per URL
+     */
+    private PythonWorkerPool startWorkerPool(int slots, String vhost, String method, String logFile,
+                                             String configFile, int timeout, boolean exitEarly,
+                                             boolean quietMode, boolean noColor) {
+        int workers = Math.min(AppConfig.pythonWorkers(), slots); // No more workers than targets in flight
+        if (workers == 0) {
+            return null; // Worker pool is disabled
+        }
+        List<String> command = buildCommand("", vhost, method, "", configFile, timeout,
+                exitEarly, quietMode, noColor).withStream().build(); // URLs come over stdin
+        try {
+            outputArea.appendText("Starting " + workers + " Python workers\n"); // Reports the pool size
+            return new PythonWorkerPool(command, workers, outputFor(logFile), tableData, pythonEvents); // Starts the interpreters
+        } catch (IOException e) {
+            Logger.error("Could not start Python workers, falling back to one process per URL", e); // Logs the failure
+            return null; // Falls back to a process per URL
         }
     }
 
     /**
-     * Starts the next scan in the batch.
+     * Asks the scheduler for the next pending URL for a free batch slot. The slot starts it
+     * when the scheduler has one whose host has room, and is released when there is none
+     * left or the batch was stopped.
      * @param vhost The virtual host
      * @param method The HTTP method
      * @param logFile The log file path
@@ -138,28 +272,72 @@ public class ScanService {
      * @param quietMode Flag for quiet mode
      * @param noColor Flag to disable color output
      */
-    private void startNextScan(String vhost, String method, String logFile,
-                             String configFile, int timeout, boolean exitEarly,
-                             boolean quietMode, boolean noColor) {
-        String url = pendingUrls.poll(); // Retrieves the next URL from the queue
-        if (url != null && isBatchRunning) { // Checks if the URL is valid and the batch scan is running
-            activeScans.incrementAndGet(); // Increments the active scans counter
-            executorService.submit(() -> {
-                try {
-                    processUrl(url, vhost, method, logFile, configFile, timeout, exitEarly, quietMode, noColor); // Processes the URL
-                } finally {
-                    activeScans.decrementAndGet(); // Decrements the active scans counter
-                    synchronized (lock) {
-                        // Starts the next URL if available
-                        if (isBatchRunning && !pendingUrls.isEmpty()) {
-                            startNextScan(vhost, method, logFile, configFile, timeout, exitEarly, quietMode, noColor); // Starts the next scan
-                        } else if (activeScans.get() == 0) {
-                            // All scans completed
-                            finishBatchScan(); // Finishes the batch scan
-                        }
+    private void fillSlot(String vhost, String method, String logFile,
+                          String configFile, int timeout, boolean exitEarly,
+                          boolean quietMode, boolean noColor) {
+        HostScheduler scheduler = pendingUrls; // Scheduler of this batch
+        if (!isBatchRunning) {
+            releaseSlot(); // Nothing left for this slot
+            return;
+        }
+        scheduler.request(handle -> startSlot(scheduler, handle, vhost, method, logFile, configFile,
+                timeout, exitEarly, quietMode, noColor)); // Now, or when a busy host frees up
+    }
+
+    /**
+     * Starts the target a batch slot was given. The slot is filled again from the
+     * completion of the target.
+     * @param scheduler The scheduler the target came from
+     * @param handle The target, or null if the slot gets no more work
+     * @param vhost The virtual host
+     * @param method The HTTP method
+     * @param logFile The log file path
+     * @param configFile The config file path
+     * @param timeout The timeout duration
+     * @param exitEarly Flag to exit early
+     * @param quietMode Flag for quiet mode
+     * @param noColor Flag to disable color output
+     */
+    private void startSlot(HostScheduler scheduler, ScanHandle handle, String vhost, String method,
+                           String logFile, String configFile, int timeout, boolean exitEarly,
+                           boolean quietMode, boolean noColor) {
+        if (handle == null || !isBatchRunning) {
+            if (handle != null) {
+                scheduler.release(handle); // Stopped before it started
+            }
+            releaseSlot(); // Nothing left for this slot
+            return;
+        }
+        activeHandles.add(handle); // Registers the scan
+        BatchJournal progress = journal; // Journal of this batch, if any
+        if (progress != null) {
+            progress.started(handle.getPosition()); // The target is in flight
+        }
+        startTarget(handle, true, vhost, method, logFile, configFile, timeout, exitEarly, quietMode, noColor)
+                .whenCompleteAsync((ok, e) -> {
+                    activeHandles.remove(handle); // Unregisters the scan
+                    if (progress != null && !handle.isStopped()) {
+                        // Queued behind the target's findings, so a target is never journaled as
+                        // done before them; a stopped target stays in flight and is scanned again
+                        Platform.runLater(() -> {
+                            if (Boolean.TRUE.equals(ok)) {
+                                progress.done(handle.getPosition()); // Skipped on resume
+                            } else {
+                                progress.failed(handle.getPosition()); // Retried on resume
+                            }
+                        });
                     }
-                }
-            });
+                    scheduler.release(handle); // Lets its host start another target
+                    fillSlot(vhost, method, logFile, configFile, timeout, exitEarly, quietMode, noColor); // Refills the slot
+                }, executorService); // Off the process reaper, and no deep stack when targets fail at once
+    }
+
+    /**
+     * Releases a batch slot that gets no more work, finishing the batch with the last one.
+     */
+    private void releaseSlot() {
+        if (activeScans.decrementAndGet() == 0) {
+            finishBatchScan(); // The last slot is released
         }
     }
 
@@ -169,7 +347,20 @@ public class ScanService {
     private void finishBatchScan() {
         boolean wasRunning = isBatchRunning; // Retrieves the batch scan flag
         isBatchRunning = false; // Resets the batch scan flag
+        pendingUrls.close(); // Releases the URL list
+        shutdownWorkerPool(); // Ends the Python workers
+        BatchJournal progress = journal; // Journal of this batch, if any
+        ListChangeListener<ScanResult> recorder = findingRecorder; // Its finding recorder
+        journal = null; // Single scans are not journaled
+        findingRecorder = null;
         Platform.runLater(() -> {
+            if (recorder != null) {
+                tableData.removeListener(recorder); // Stops journaling findings
+            }
+            if (progress != null) {
+                // After the findings and states queued before it; written off the UI thread
+                executorService.execute(wasRunning ? progress::finish : progress::close);
+            }
             if (wasRunning) {
                 Logger.info("Batch scan completed"); // Logs the batch scan completion
                 outputArea.appendText("\nBatch scan completed.\n"); // Appends the batch scan completion message to the output area
@@ -179,23 +370,41 @@ public class ScanService {
     }
 
     /**
-     * Stops the current process.
+     * Stops every scan in flight, single or batch, and drops the URLs not started yet.
      */
     public void stopCurrentProcess() {
-        Logger.info("Stopping current process"); // Logs the stop process message
+        Logger.info("Stopping " + activeHandles.size() + " active scans"); // Logs the stop process message
+        if (isBatchRunning && journal != null) {
+            Platform.runLater(() -> outputArea.appendText("\nBatch stopped. Start the same file again to resume it.\n")); // Points to the resume
+        }
         isBatchRunning = false; // Resets the batch scan flag
-        if (currentProcessManager != null) {
-            currentProcessManager.stopProcess(); // Stops the current process
+        HostScheduler scheduler = pendingUrls; // Reads the scheduler once
+        if (scheduler != null) {
+            scheduler.close(); // Drops the URLs not started yet and releases waiting slots
+        }
+        shutdownWorkerPool(); // Ends the Python workers first, so none takes another URL
+        for (ScanHandle handle : new ArrayList<>(activeHandles)) {
+            handle.stop(); // Ends the target's process and interrupts its task
         }
-        pendingUrls.clear(); // Clears the pending URLs queue
-        executorService.shutdownNow(); // Shuts down the executor service
-        executorService = Executors.newFixedThreadPool(MAX_CONCURRENT_SCANS); // Reinitializes the executor service
         Platform.runLater(() -> stopButton.setDisable(true)); // Disables the stop button
     }
 
     /**
-     * Processes the URL.
-     * @param url The target URL
+     * Stops the Python workers of the current batch, if any.
+     */
+    private void shutdownWorkerPool() {
+        PythonWorkerPool pool = workerPool; // Reads the pool once
+        workerPool = null; // Later URLs start their own process
+        if (pool != null) {
+            pool.shutdown(); // Ends the interpreters
+        }
+    }
+
+    /**
+     * Starts scanning one target without waiting for it.
+     * @param handle The handle of the target; stopping it stops the scan
+     * @param batch True for a batch target: it is marked in the output, may go to the
+     *              worker pool, and its output is written to the log file by this service
      * @param vhost The virtual host
      * @param method The HTTP method
      * @param logFile The log file path
@@ -204,56 +413,155 @@ public class ScanService {
      * @param exitEarly Flag to exit early
      * @param quietMode Flag for quiet mode
      * @param noColor Flag to disable color output
+     * @return A future completed once the target is done, stopped or failed; true if the
+     *         target was scanned to the end
      */
-    private void processUrl(String url, String vhost, String method, String logFile,
-                          String configFile, int timeout, boolean exitEarly,
-                          boolean quietMode, boolean noColor) {
+    private CompletableFuture<Boolean> startTarget(ScanHandle handle, boolean batch, String vhost, String method,
+                                                String logFile, String configFile, int timeout,
+                                                boolean exitEarly, boolean quietMode, boolean noColor) {
+        String url = handle.getUrl(); // Target of this scan
+        if (batch) {
+            Platform.runLater(() -> outputArea.appendText("\n=== Processing URL: " + url + " ===\n")); // Marks the target in the output
+        }
+        if (nativeEngine) {
+            CompletableFuture<Boolean> result = new CompletableFuture<>(); // Completed when the task ends
+            FutureTask<Boolean> task = new FutureTask<Boolean>(() -> runNativeScan(url, vhost, method, logFile,
+                    configFile, timeout, exitEarly, quietMode)) {
+                @Override
+                protected void done() {
+                    try {
+                        result.complete(!isCancelled() && get()); // Also runs for a task cancelled before it started
+                    } catch (InterruptedException | ExecutionException e) {
+                        result.complete(false); // The scan did not finish
+                    }
+                }
+            };
+            handle.attach(task); // Lets a stop interrupt the scan between probes
+            executorService.execute(task); // Scans in-process
+            return result;
+        }
+        String skipped = HostLimiter.unavailable(url); // Host found unreachable by earlier targets
+        if (skipped != null) {
+            Logger.info("Skipped " + url + ": " + skipped); // Logs the reason
+            Platform.runLater(() -> outputArea.appendText("Skipped    : " + skipped + "\n")); // Records the reason with the target
+            return CompletableFuture.completedFuture(false); // Retried when the batch is resumed
+        }
+        PythonWorkerPool pool = batch ? workerPool : null; // Workers of the running batch, if any
+        if (pool != null) {
+            CompletableFuture<Void> scan = pool.scan(url, method); // Queues the URL for an idle worker
+            handle.attach(scan); // Lets a stop drop the URL or end its worker
+            return scan.handle((r, e) -> {
+                if (e != null && !(e instanceof CancellationException)) {
+                    Logger.error("Error processing URL: " + url, e); // Logs the error
+                    Platform.runLater(() -> outputArea.appendText("Error scanning " + url + ": " + e.getMessage() + "\n")); // Reports the error
+                }
+                return e == null; // A failed target still frees its slot
+            });
+        }
+        Consumer<String> toArea = s -> Platform.runLater(() -> outputArea.appendText(s)); // Appends to the output area
+        return startPythonProcess(handle, vhost, method, batch ? "" : logFile, configFile, timeout,
+                exitEarly, quietMode, noColor, batch ? outputFor(logFile) : toArea); // Batch processes run side by side, so this service writes the log file
+    }
+
+    /**
+     * Starts one smuggler.py process for a target.
+     * @param handle The handle of the target; stopping it ends the process
+     * @param vhost The virtual host
+     * @param method The HTTP method
+     * @param logFile The log file path passed to smuggler.py, or empty
+     * @param configFile The config file path
+     * @param timeout The timeout duration
+     * @param exitEarly Flag to exit early
+     * @param quietMode Flag for quiet mode
+     * @param noColor Flag to disable color output
+     * @param output Receives the process output
+     * @return A future completed once the process has exited and its output was handled;
+     *         true if it exited normally
+     */
+    private CompletableFuture<Boolean> startPythonProcess(ScanHandle handle, String vhost, String method, String logFile,
+                                                       String configFile, int timeout, boolean exitEarly,
+                                                       boolean quietMode, boolean noColor, Consumer<String> output) {
+        String url = handle.getUrl(); // Target of this scan
         try {
             // Builds the command for the scan
-            CommandBuilder commandBuilder = buildCommand(url, vhost, method, logFile,
-                                                       configFile, timeout, exitEarly,
-                                                       quietMode, noColor);
-
-            List<String> command = commandBuilder.build(); // Builds the command
+            List<String> command = buildCommand(url, vhost, method, logFile, configFile, timeout,
+                    exitEarly, quietMode, noColor).build(); // Builds the command
             Logger.debug("Executing command: " + String.join(" ", command)); // Logs the command
-            Platform.runLater(() -> outputArea.appendText("\n=== Processing URL: " + url + " ===\n" +
-                                                        "Executing command: " + String.join(" ", command) + "\n")); // Appends the command to the output area
+            output.accept("Executing command: " + String.join(" ", command) + "\n"); // Appends the command to the output
 
-            synchronized (lock) {
-                if (currentProcessManager != null && currentProcessManager.isProcessRunning()) {
-                    currentProcessManager.stopProcess(); // Stops the current process
-                }
-                currentProcessManager = new ProcessManager(s -> Platform.runLater(() -> outputArea.appendText(s)), tableData); // Initializes the ProcessManager
-                currentProcessManager.startProcess(command); // Starts the process
-            }
-
-            while (currentProcessManager.isProcessRunning() && isBatchRunning) {
-                Thread.sleep(100); // Waits for the process to complete
-            }
+            ProcessManager process = new ProcessManager(output, tableData, pythonEvents); // This target's own process
+            process.startProcess(command); // Starts the process
+            handle.attach(process); // Lets a stop reach the process, or ends it if one already came
+            return process.whenFinished().thenApply(v -> process.exitCode() == 0); // Completes when the process exits
         } catch (Exception e) {
             Logger.error("Error processing URL: " + url, e); // Logs the error
-            Platform.runLater(() -> outputArea.appendText("Error executing command: " + e.getMessage() + "\n")); // Appends the error message to the output area
+            output.accept("Error executing command: " + e.getMessage() + "\n"); // Appends the error message to the output
+            return CompletableFuture.completedFuture(false); // Nothing is running for this target
         }
     }
 
     /**
-     * Starts the process.
-     * @param command The command to execute
+     * Scans one URL with the in-process engine and adds the findings to the table.
+     * @param url The target URL
+     * @param vhost The virtual host
+     * @param method The HTTP method
+     * @param logFile The log file path, or empty
+     * @param configFile The mutation set name or path
+     * @param timeout The per-probe timeout in seconds
+     * @param exitEarly Flag to exit early
+     * @param quietMode Flag for quiet mode
+     * @return true if the scan ran to the end, false if it was stopped or failed
      */
-    private void startProcess(List<String> command) {
-        if (currentProcessManager != null && currentProcessManager.isProcessRunning()) {
-            currentProcessManager.stopProcess(); // Stops the current process
-        }
-        currentProcessManager = new ProcessManager(s -> Platform.runLater(() -> outputArea.appendText(s)), tableData); // Initializes the ProcessManager
+    private boolean runNativeScan(String url, String vhost, String method, String logFile,
+                                  String configFile, int timeout, boolean exitEarly, boolean quietMode) {
+        Consumer<String> output = outputFor(logFile); // Sends progress to the output area and log file
         try {
-            currentProcessManager.startProcess(command); // Starts the process
-        } catch (IOException e) {
-            Logger.error("Error starting process", e); // Logs the error
-            Platform.runLater(() -> {
-                outputArea.appendText("Error starting process: " + e.getMessage() + "\n"); // Appends the error message to the output area
-                stopButton.setDisable(true); // Disables the stop button
-            });
+            DesyncDetector detector = new DesyncDetector(RawHttpClient.shared())
+                    .withVhost(vhost) // Sets the virtual host
+                    .withMethod(method) // Sets the HTTP method
+                    .withMutations(configFile) // Sets the mutation set
+                    .withTimeout(timeout) // Sets the timeout duration
+                    .withExitEarly(exitEarly) // Sets the exit early flag
+                    .withQuiet(quietMode); // Sets the quiet mode flag
+            List<ScanResult> findings = detector.scan(url, output); // Runs the checks
+            if (!findings.isEmpty()) {
+                Platform.runLater(() -> tableData.addAll(findings)); // Adds the findings to the table
+            }
+            return true; // Scanned to the end
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt(); // Preserves the interrupt
+            output.accept("Scan of " + url + " stopped\n"); // Reports the stop
+        } catch (HostLimiter.HostUnavailableException e) {
+            Logger.info("Skipped " + url + ": " + e.getMessage()); // Logs the reason
+            output.accept("Skipped    : " + e.getMessage() + "\n"); // Records the reason with the target
+        } catch (Exception e) {
+            Logger.error("Error scanning URL: " + url, e); // Logs the error
+            output.accept("Error scanning " + url + ": " + e.getMessage() + "\n"); // Reports the error
         }
+        return false; // Stopped or failed
+    }
+
+    /**
+     * Creates the output sink for a native scan.
+     * @param logFile The log file path, or empty for output area only
+     * @return A consumer that appends to the output area and, if set, the log file
+     */
+    private Consumer<String> outputFor(String logFile) {
+        Consumer<String> toArea = s -> Platform.runLater(() -> outputArea.appendText(s)); // Appends to the output area
+        if (logFile == null || logFile.trim().isEmpty()) {
+            return toArea; // No log file
+        }
+        return s -> {
+            toArea.accept(s); // Appends to the output area
+            synchronized (lock) {
+                try {
+                    Files.write(Paths.get(logFile.trim()), s.getBytes(StandardCharsets.UTF_8),
+                            StandardOpenOption.CREATE, StandardOpenOption.APPEND); // Appends to the log file
+                } catch (IOException e) {
+                    Logger.error("Error writing log file: " + logFile, e); // Logs the failure
+                }
+            }
+        };
     }
 
     /**
@@ -274,7 +582,7 @@ public class ScanService {
      * @return True if a scan is running, false otherwise
      */
     public boolean isScanning() {
-        return (currentProcessManager != null && currentProcessManager.isProcessRunning()) || isBatchRunning; // Checks if a scan is running
+        return isBatchRunning || !activeHandles.isEmpty(); // Checks if a scan is running
     }
 
     /**
@@ -293,7 +601,7 @@ public class ScanService {
     private CommandBuilder buildCommand(String url, String vhost, String method, String logFile,
                                      String configFile, int timeout, boolean exitEarly,
                                      boolean quietMode, boolean noColor) {
-        return new CommandBuilder()
+        CommandBuilder builder = new CommandBuilder()
                 .withUrl(url) // Sets the URL
                 .withVhost(vhost) // Sets the virtual host
                 .withMethod(method) // Sets the HTTP method
@@ -303,5 +611,6 @@ public class ScanService {
                 .withExitEarly(exitEarly) // Sets the exit early flag
                 .withQuietMode(quietMode) // Sets the quiet mode flag
                 .withNoColor(noColor); // Sets the no color flag
+        return pythonEvents ? builder.withEvents() : builder; // Reports findings as JSON events
     }
 }
@@ -0,0 +1,111 @@
+package com.hrs.service; // Package for service classes
+
+/**
+ * SequentialTest is Wald's sequential probability ratio test over the rounds of one
+ * timing check. Each round is a hit (the probe timed out while the control request with a
+ * complete body was answered) or a miss. The test weighs every round as it arrives and
+ * stops as soon as the evidence reaches the configured confidence, so a clear negative
+ * ends after one round and an inconsistent host gets more rounds before a verdict.
+ */
+public final class SequentialTest {
+    /**
+     * State of the test after a round.
+     */
+    public enum Verdict {
+        CONTINUE, // Not enough evidence yet
+        POSITIVE, // The host behaves as vulnerable
+        NEGATIVE // The host behaves as not vulnerable
+    }
+
+    // Chance of a hit on a vulnerable host
+    private static final double HIT_IF_VULNERABLE = 0.99;
+    // Chance of a hit on a host that is not vulnerable, e.g. a stall that recovers in time
+    private static final double HIT_IF_SAFE = 0.05;
+    // Accepted chance of missing a vulnerable host
+    private static final double MISS_RATE = 0.05;
+    // Rounds after which an undecided test counts as negative
+    private static final int MAX_ROUNDS = 6;
+
+    // Log-likelihood ratio added by a hit
+    private static final double HIT_WEIGHT = Math.log(HIT_IF_VULNERABLE / HIT_IF_SAFE);
+    // Log-likelihood ratio added by a miss
+    private static final double MISS_WEIGHT = Math.log((1 - HIT_IF_VULNERABLE) / (1 - HIT_IF_SAFE));
+
+    // Ratio at or above which the test is positive
+    private final double upper;
+    // Ratio at or below which the test is negative
+    private final double lower;
+    // Sum of the weights so far
+    private double ratio;
+    // Rounds recorded so far
+    private int rounds;
+    // Hits among them
+    private int hits;
+    // Current verdict
+    private Verdict verdict = Verdict.CONTINUE;
+
+    /**
+     * Constructor to initialize a SequentialTest.
+     * @param confidence Required confidence in a positive verdict, e.g. 0.99 for at most
+     *                   one false positive in a hundred
+     */
+    public SequentialTest(double confidence) {
+        double falsePositiveRate = 1 - confidence; // Wald's alpha
+        this.upper = Math.log((1 - MISS_RATE) / falsePositiveRate); // Positive threshold
+        this.lower = Math.log(MISS_RATE / (1 - falsePositiveRate)); // Negative threshold
+    }
+
+    /**
+     * Records one round.
+     * @param hit True if the probe timed out and the control was answered
+     * @return The verdict after this round
+     */
+    public Verdict record(boolean hit) {
+        if (verdict != Verdict.CONTINUE) {
+            return verdict; // Already decided
+        }
+        rounds++; // Counts the round
+        if (hit) {
+            hits++; // Counts the hit
+        }
+        ratio += hit ? HIT_WEIGHT : MISS_WEIGHT; // Adds the evidence
+        if (ratio >= upper) {
+            verdict = Verdict.POSITIVE; // Enough evidence for a finding
+        } else if (ratio <= lower || rounds >= MAX_ROUNDS) {
+            verdict = Verdict.NEGATIVE; // Enough evidence against, or out of rounds
+        }
+        return verdict; // Returns the verdict
+    }
+
+    /**
+     * Gets the current verdict.
+     * @return The verdict
+     */
+    public Verdict getVerdict() {
+        return verdict; // Returns the verdict
+    }
+
+    /**
+     * Checks whether the test has a verdict.
+     * @return True once the verdict is POSITIVE or NEGATIVE
+     */
+    public boolean isDecided() {
+        return verdict != Verdict.CONTINUE; // Compares the verdict
+    }
+
+    /**
+     * Checks whether the test has seen a hit and is still waiting to confirm it.
+     * @return True if undecided with at least one hit
+     */
+    public boolean hasPendingHit() {
+        return verdict == Verdict.CONTINUE && hits > 0; // Undecided evidence of a finding
+    }
+
+    /**
+     * Gets the number of rounds recorded.
+     * @return The number of rounds
+     */
+    public int getRounds() {
+        return rounds; // Returns the round count
+    }
+}
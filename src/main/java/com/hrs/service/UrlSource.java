@@ -0,0 +1,262 @@
+package com.hrs.service; // Package for service classes
+
+import com.hrs.utils.AppConfig; // Importing AppConfig for the duplicate filter's false positive rate
+import com.hrs.utils.BloomFilter; // Importing BloomFilter for compact duplicate detection
+import com.hrs.utils.Logger; // Importing Logger for logging messages
+import com.hrs.utils.UrlNormalizer; // Importing UrlNormalizer for one spelling per target
+import java.io.BufferedReader; // Importing BufferedReader for chunked reading
+import java.io.Closeable; // Importing Closeable for releasing the file
+import java.io.File; // Importing File for the URL list
+import java.io.IOException; // Importing IOException for handling I/O exceptions
+import java.io.InputStreamReader; // Importing InputStreamReader for decoding the file
+import java.nio.MappedByteBuffer; // Importing MappedByteBuffer for the counting pass
+import java.nio.channels.FileChannel; // Importing FileChannel for mapping the file
+import java.nio.charset.StandardCharsets; // Importing StandardCharsets for decoding the file
+import java.nio.file.Files; // Importing Files for opening the file
+import java.nio.file.StandardOpenOption; // Importing StandardOpenOption for read-only access
+import java.util.BitSet; // Importing BitSet for targets to skip on resume
+import java.util.Iterator; // Importing Iterator for in-memory lists
+import java.util.List; // Importing List interface for in-memory lists
+
+/**
+ * UrlSource feeds a batch scan its targets one at a time, reading the list lazily so the
+ * heap stays flat whatever its length. Each line is trimmed and normalized with
+ * {@link UrlNormalizer}; blank lines are skipped, invalid ones are counted and skipped,
+ * and repeats of a target already handed out are dropped by a {@link BloomFilter} sized
+ * from a memory-mapped counting pass over the file. Targets are numbered in the order
+ * they are handed out, which is the same on every read of an unchanged file, so a resumed
+ * batch can skip the positions a {@link BatchJournal} recorded as done.
+ */
+public final class UrlSource implements Closeable {
+    // Size of the read buffer
+    private static final int CHUNK = 1 << 16;
+    // Largest region mapped at once
+    private static final long MAP_LIMIT = 1L << 30;
+    // Invalid lines logged one by one before only counting them
+    private static final int LOGGED_INVALID = 10;
+
+    // Name of the list for logging
+    private final String name;
+    // File the list is read from, null for a list in memory
+    private final File file;
+    // Reads the next raw line, null at the end
+    private final LineReader lines;
+    // Non-blank lines in the list, counted up front
+    private final long expected;
+    // Targets already handed out, or null if duplicates are kept
+    private final BloomFilter seen;
+    // Targets handed out so far
+    private long handedOut;
+    // Position of the next target
+    private long position;
+    // Positions not to hand out, done in an earlier run
+    private BitSet skip = new BitSet();
+    // Targets skipped because they were done in an earlier run
+    private long resumed;
+    // Repeated targets skipped so far
+    private long duplicates;
+    // Invalid lines skipped so far
+    private long invalid;
+    // Whether the list is exhausted or was closed
+    private boolean closed;
+
+    /**
+     * Constructor to initialize a UrlSource.
+     * @param name Name of the list for logging
+     * @param file File the list is read from, or null
+     * @param lines Reads the next raw line
+     * @param expected Non-blank lines in the list
+     */
+    private UrlSource(String name, File file, LineReader lines, long expected) {
+        this.name = name; // Assigns the name
+        this.file = file; // Assigns the file
+        this.lines = lines; // Assigns the line reader
+        this.expected = expected; // Assigns the line count
+        double fpp = AppConfig.urlDedupeFpp(); // Chance of dropping a new target
+        this.seen = fpp > 0 ? new BloomFilter(expected, fpp) : null; // Sized once for the whole list
+        if (seen != null) {
+            Logger.info("Duplicate filter for " + name + ": " + (seen.sizeInBytes() / 1024) + " KB for "
+                    + expected + " lines"); // Logs the memory used
+        }
+    }
+
+    /**
+     * Opens a URL list file, one URL per line.
+     * @param file The file
+     * @return The source; close it when the batch ends
+     * @throws IOException If the file cannot be read
+     */
+    public static UrlSource open(File file) throws IOException {
+        long expected = countLines(file); // Sizes the duplicate filter
+        BufferedReader reader = new BufferedReader(new InputStreamReader(
+                Files.newInputStream(file.toPath()), StandardCharsets.UTF_8), CHUNK); // Reads one chunk at a time
+        return new UrlSource(file.getName(), file, new LineReader() {
+            @Override
+            public String read() throws IOException {
+                return reader.readLine(); // Next line of the file
+            }
+
+            @Override
+            public void close() throws IOException {
+                reader.close(); // Releases the file
+            }
+        }, expected);
+    }
+
+    /**
+     * Wraps URLs already in memory.
+     * @param urls The URLs
+     * @return The source
+     */
+    public static UrlSource of(List<String> urls) {
+        Iterator<String> iterator = urls.iterator(); // Walks the list once
+        long expected = urls.stream().filter(u -> !u.trim().isEmpty()).count(); // Non-blank entries
+        return new UrlSource("URL list", null, new LineReader() {
+            @Override
+            public String read() {
+                return iterator.hasNext() ? iterator.next() : null; // Next entry of the list
+            }
+
+            @Override
+            public void close() {
+                // Nothing to release
+            }
+        }, expected);
+    }
+
+    /**
+     * Skips targets done in an earlier run of the same list. Call before the first target
+     * is taken. Only positions up to {@link BatchJournal#MAX_POSITION} can be skipped; the
+     * journal records none beyond it, so later targets are always handed out.
+     * @param done Positions of the targets to skip
+     */
+    public synchronized void skip(BitSet done) {
+        this.skip = (BitSet) done.clone(); // Keeps a private copy
+    }
+
+    /**
+     * Takes the next target. Safe to call from several threads.
+     * @return A handle for the normalized URL and its position, or null once the list is
+     *         exhausted or closed
+     */
+    public synchronized ScanHandle next() {
+        while (!closed) {
+            String line;
+            try {
+                line = lines.read(); // Next raw line
+            } catch (IOException e) {
+                Logger.error("Error reading URLs from " + name, e); // Logs the failure
+                line = null; // Ends the list
+            }
+            if (line == null) {
+                finish(); // Reports the totals and releases the file
+                return null;
+            }
+            line = line.trim(); // Ignores surrounding whitespace
+            if (line.isEmpty()) {
+                continue; // Skips blank lines
+            }
+            String url = UrlNormalizer.normalize(line); // One spelling per target
+            if (url == null) {
+                if (++invalid <= LOGGED_INVALID) {
+                    Logger.warn("Skipping invalid URL in " + name + ": " + line); // Logs the first few
+                }
+                continue;
+            }
+            if (seen != null && !seen.add(url)) {
+                duplicates++; // Already handed out
+                continue;
+            }
+            long current = position++; // Numbers every target, skipped or not
+            if (current <= BatchJournal.MAX_POSITION && skip.get((int) current)) {
+                resumed++; // Done in an earlier run
+                continue;
+            }
+            handedOut++; // Counts the target
+            return new ScanHandle(url, current);
+        }
+        return null; // Exhausted or closed
+    }
+
+    /**
+     * Gets the file the list is read from.
+     * @return The file, or null for a list in memory
+     */
+    public File getFile() {
+        return file; // Returns the file
+    }
+
+    /**
+     * Gets the number of non-blank lines, counted before any was handed out.
+     * @return The line count, an upper bound for the number of targets
+     */
+    public long getExpected() {
+        return expected; // Returns the line count
+    }
+
+    /**
+     * Stops handing out targets and releases the file.
+     */
+    @Override
+    public synchronized void close() {
+        if (!closed) {
+            closed = true; // Later calls to next() return null
+            try {
+                lines.close(); // Releases the file
+            } catch (IOException e) {
+                Logger.error("Error closing URL list " + name, e); // Logs the failure
+            }
+        }
+    }
+
+    /**
+     * Reports the totals and releases the file at the end of the list.
+     */
+    private void finish() {
+        Logger.info("Read " + name + ": " + handedOut + " URLs, " + resumed + " done earlier, " + duplicates
+                + " duplicates and " + invalid + " invalid lines skipped"); // Logs the totals
+        close(); // Releases the file
+    }
+
+    /**
+     * Counts the non-blank lines of a file by mapping it into memory region by region,
+     * without decoding it or allocating per line.
+     * @param file The file
+     * @return The number of lines with at least one non-whitespace byte
+     * @throws IOException If the file cannot be read
+     */
+    private static long countLines(File file) throws IOException {
+        long count = 0; // Lines with content
+        boolean content = false; // Whether the current line has content
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            long size = channel.size(); // File length
+            for (long offset = 0; offset < size; offset += MAP_LIMIT) {
+                MappedByteBuffer region = channel.map(FileChannel.MapMode.READ_ONLY, offset,
+                        Math.min(MAP_LIMIT, size - offset)); // Maps the next region
+                while (region.hasRemaining()) {
+                    byte b = region.get(); // Next byte
+                    if (b == '\n') {
+                        if (content) {
+                            count++; // Ends a line with content
+                        }
+                        content = false; // Starts a new line
+                    } else if ((b & 0xff) > ' ') {
+                        content = true; // Any visible byte, including UTF-8 continuation bytes
+                    }
+                }
+            }
+        }
+        return content ? count + 1 : count; // Counts a last line without a line break
+    }
+
+    /**
+     * Reads raw lines from the underlying list.
+     */
+    private interface LineReader extends Closeable {
+        /**
+         * @return The next line, or null at the end
+         * @throws IOException If the list cannot be read
+         */
+        String read() throws IOException;
+    }
+}
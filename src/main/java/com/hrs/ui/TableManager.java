@@ -26,6 +26,8 @@ public class TableManager {
     private final TableColumn<ScanResult, String> urlColumn;
     // TableColumn for displaying HTTP methods
     private final TableColumn<ScanResult, String> methodColumn;
+    // TableColumn for displaying the detection technique
+    private final TableColumn<ScanResult, String> techniqueColumn;
     // TableColumn for displaying Transfer-Encoding headers
     private final TableColumn<ScanResult, String> teHeaderColumn;
     // TableColumn for displaying payloads
@@ -38,18 +40,21 @@ public class TableManager {
      * @param dataTable The TableView to manage
      * @param urlColumn The URL column
      * @param methodColumn The method column
+     * @param techniqueColumn The detection technique column
      * @param teHeaderColumn The Transfer-Encoding header column
      * @param payloadColumn The payload column
      */
     public TableManager(TableView<ScanResult> dataTable,
                        TableColumn<ScanResult, String> urlColumn,
                        TableColumn<ScanResult, String> methodColumn,
+                       TableColumn<ScanResult, String> techniqueColumn,
                        TableColumn<ScanResult, String> teHeaderColumn,
                        TableColumn<ScanResult, String> payloadColumn) {
         Logger.info("Initializing TableManager"); // Logs the initialization
         this.dataTable = dataTable; // Assigns the TableView
         this.urlColumn = urlColumn; // Assigns the URL column
         this.methodColumn = methodColumn; // Assigns the method column
+        this.techniqueColumn = techniqueColumn; // Assigns the technique column
         this.teHeaderColumn = teHeaderColumn; // Assigns the Transfer-Encoding header column
         this.payloadColumn = payloadColumn; // Assigns the payload column
         this.tableData = FXCollections.observableArrayList(); // Initializes the observable list for table data
@@ -67,6 +72,8 @@ public class TableManager {
         methodColumn.setCellValueFactory(new PropertyValueFactory<>("method"));
         // Sets the cell value factory for the Transfer-Encoding header column to display the teHeader property of ScanResult
         teHeaderColumn.setCellValueFactory(new PropertyValueFactory<>("teHeader"));
+        // Sets the cell value factory for the technique column to display the technique property of ScanResult
+        techniqueColumn.setCellValueFactory(new PropertyValueFactory<>("technique"));
         // Sets the cell value factory for the payload column to display the payload property of ScanResult
         payloadColumn.setCellValueFactory(new PropertyValueFactory<>("payload"));
 
@@ -127,7 +127,7 @@ public class UIHelper {
         fileChooser.setTitle("Select Config File");
         // Adds a file extension filter to the file chooser
         fileChooser.getExtensionFilters().add(
-            new FileChooser.ExtensionFilter("Config Files", "*.txt", "*.json", "*.conf", "*.py")
+            new FileChooser.ExtensionFilter("Config Files", "*.txt", "*.json", "*.conf", "*.py", "*.mutations")
         );
         // Shows the file chooser dialog
         File file = fileChooser.showOpenDialog(null);
@@ -0,0 +1,344 @@
+package com.hrs.utils; // Package for utility classes
+
+import java.io.File; // Importing File for locating the properties file
+import java.io.FileInputStream; // Importing FileInputStream for reading the properties file
+import java.io.IOException; // Importing IOException for handling I/O exceptions
+import java.io.InputStream; // Importing InputStream for reading the properties file
+import java.util.Properties; // Importing Properties for key/value settings
+
+/**
+ * AppConfig holds tunable settings such as executor mode and concurrency limits.
+ * Values come from an optional hrs.properties file in the working directory;
+ * -D system properties with the same keys take precedence.
+ */
+public final class AppConfig {
+    // Name of the optional properties file
+    private static final String CONFIG_FILE = "hrs.properties";
+    // Executor mode: "platform" (default) or "virtual"
+    public static final String EXECUTOR = "hrs.executor";
+    // Maximum number of scans running at the same time
+    public static final String SCAN_CONCURRENCY = "hrs.scan.concurrency";
+    // Maximum number of raw HTTP requests in flight at the same time
+    public static final String HTTP_CONCURRENCY = "hrs.http.concurrency";
+    // Raw request I/O: "blocking" (default) or "nio" for non-blocking channels
+    public static final String HTTP_ENGINE = "hrs.http.engine";
+    // Scan engine: "native" (default) or "python" for smuggler.py
+    public static final String SCAN_ENGINE = "hrs.scan.engine";
+    // Connections the native engine may open to one host at the same time
+    public static final String HOST_CONNECTIONS = "hrs.scan.host.connections";
+    // Requests per second the native engine may send to one host
+    public static final String HOST_RATE = "hrs.rate.host";
+    // Connections the native engine may open to one resolved address at the same time
+    public static final String ADDRESS_CONNECTIONS = "hrs.rate.address.connections";
+    // Requests per second the native engine may send to one resolved address
+    public static final String ADDRESS_RATE = "hrs.rate.address";
+    // Requests per second the native engine may send in total
+    public static final String GLOBAL_RATE = "hrs.rate.global";
+    // Connection failures in a row after which a host is skipped
+    public static final String BREAKER_FAILURES = "hrs.breaker.failures";
+    // Window those failures must fall within
+    public static final String BREAKER_WINDOW = "hrs.breaker.window";
+    // How long an unreachable host is skipped before it is tried again
+    public static final String BREAKER_OPEN = "hrs.breaker.open";
+    // Normal requests sent to measure a host's response times before probing it
+    public static final String BASELINE_SAMPLES = "hrs.scan.baseline.samples";
+    // Probe timeout as a multiple of the measured 99th percentile response time
+    public static final String TIMEOUT_MULTIPLIER = "hrs.scan.timeout.multiplier";
+    // Confidence the native engine needs before reporting a timing difference
+    public static final String SCAN_CONFIDENCE = "hrs.scan.confidence";
+    // Lowest accepted confidence
+    public static final double MIN_CONFIDENCE = 0.5;
+    // Highest accepted confidence
+    public static final double MAX_CONFIDENCE = 0.9999;
+    // Long-lived smuggler.py processes for Python batch scans
+    public static final String PYTHON_WORKERS = "hrs.python.workers";
+    // Whether smuggler.py reports findings as JSON events instead of scraped output
+    public static final String PYTHON_EVENTS = "hrs.python.events";
+    // Directory holding compiled custom mutation sets
+    public static final String MUTATION_CACHE = "hrs.mutation.cache";
+    // False positive rate of the duplicate filter for batch URL lists
+    public static final String URL_DEDUPE_FPP = "hrs.urls.dedupe.fpp";
+    // Directory holding the progress journals of batch scans
+    public static final String BATCH_JOURNAL = "hrs.batch.journal";
+    // Interval between writes of the batch journal to disk
+    public static final String BATCH_JOURNAL_FLUSH = "hrs.batch.journal.flush";
+    // Targets of one host a batch scan works on at the same time
+    public static final String BATCH_HOST_TARGETS = "hrs.batch.host.targets";
+    // Whether batch targets are grouped by resolved address rather than host name
+    public static final String BATCH_HOST_RESOLVE = "hrs.batch.host.resolve";
+    // Targets a batch scan reads ahead of the running ones to find other hosts
+    public static final String BATCH_LOOKAHEAD = "hrs.batch.lookahead";
+
+    // Settings loaded from the properties file
+    private static final Properties fileProperties = load();
+
+    private AppConfig() {
+    }
+
+    /**
+     * Reads a setting.
+     * @param key The setting name
+     * @param defaultValue The value used when the setting is absent
+     * @return The configured value or the default
+     */
+    public static String get(String key, String defaultValue) {
+        String value = System.getProperty(key); // System properties take precedence
+        if (value == null) {
+            value = fileProperties.getProperty(key); // Falls back to the properties file
+        }
+        return value == null || value.trim().isEmpty() ? defaultValue : value.trim(); // Uses the default when unset
+    }
+
+    /**
+     * Reads an integer setting.
+     * @param key The setting name
+     * @param defaultValue The value used when the setting is absent or not a number
+     * @return The configured value or the default
+     */
+    public static int getInt(String key, int defaultValue) {
+        String value = get(key, null); // Reads the raw value
+        if (value == null) {
+            return defaultValue; // Setting is absent
+        }
+        try {
+            return Integer.parseInt(value); // Parses the number
+        } catch (NumberFormatException e) {
+            Logger.warn("Ignoring invalid value for " + key + ": " + value); // Logs the bad value
+            return defaultValue; // Falls back to the default
+        }
+    }
+
+    /**
+     * Reads a decimal setting.
+     * @param key The setting name
+     * @param defaultValue The value used when the setting is absent or not a number
+     * @return The configured value or the default
+     */
+    public static double getDouble(String key, double defaultValue) {
+        String value = get(key, null); // Reads the raw value
+        if (value == null) {
+            return defaultValue; // Setting is absent
+        }
+        try {
+            return Double.parseDouble(value); // Parses the number
+        } catch (NumberFormatException e) {
+            Logger.warn("Ignoring invalid value for " + key + ": " + value); // Logs the bad value
+            return defaultValue; // Falls back to the default
+        }
+    }
+
+    /**
+     * @return true if tasks should run on virtual threads (hrs.executor=virtual)
+     */
+    public static boolean useVirtualThreads() {
+        return "virtual".equalsIgnoreCase(get(EXECUTOR, "platform")); // Checks the executor mode
+    }
+
+    /**
+     * @return How many scans may run at once (hrs.scan.concurrency, default 5)
+     */
+    public static int scanConcurrency() {
+        return Math.max(1, getInt(SCAN_CONCURRENCY, 5)); // At least one scan
+    }
+
+    /**
+     * @return How many raw requests may be in flight at once (hrs.http.concurrency);
+     *         defaults to 1024 on virtual threads and 32 on platform threads
+     */
+    public static int httpConcurrency() {
+        return Math.max(1, getInt(HTTP_CONCURRENCY, useVirtualThreads() ? 1024 : 32)); // At least one request
+    }
+
+    /**
+     * @return true if raw requests should go through the non-blocking selector engine
+     *         rather than one blocking socket per request (hrs.http.engine, default blocking)
+     */
+    public static boolean useNioHttpEngine() {
+        return "nio".equalsIgnoreCase(get(HTTP_ENGINE, "blocking")); // Checks the I/O engine setting
+    }
+
+    /**
+     * @return true if scans should use the in-process detection engine rather than
+     *         smuggler.py (hrs.scan.engine, default native)
+     */
+    public static boolean useNativeEngine() {
+        return !"python".equalsIgnoreCase(get(SCAN_ENGINE, "native")); // Checks the engine setting
+    }
+
+    /**
+     * @return How many probe connections the native engine may have open to one host
+     *         (hrs.scan.host.connections, default 4)
+     */
+    public static int hostConnections() {
+        return Math.max(1, getInt(HOST_CONNECTIONS, 4)); // At least one connection
+    }
+
+    /**
+     * @return Requests per second the native engine may send to one host and port
+     *         (hrs.rate.host, default 20; 0 removes the limit and its back-off)
+     */
+    public static double hostRate() {
+        return Math.max(0, getDouble(HOST_RATE, 20)); // Zero removes the limit
+    }
+
+    /**
+     * @return How many probe connections the native engine may have open to one resolved
+     *         address (hrs.rate.address.connections, default 8)
+     */
+    public static int addressConnections() {
+        return Math.max(1, getInt(ADDRESS_CONNECTIONS, 8)); // At least one connection
+    }
+
+    /**
+     * @return Requests per second the native engine may send to one resolved address
+     *         (hrs.rate.address, default 50; 0 removes the limit and its back-off)
+     */
+    public static double addressRate() {
+        return Math.max(0, getDouble(ADDRESS_RATE, 50)); // Zero removes the limit
+    }
+
+    /**
+     * @return Requests per second the native engine may send in total
+     *         (hrs.rate.global, default 0 for no limit)
+     */
+    public static double globalRate() {
+        return Math.max(0, getDouble(GLOBAL_RATE, 0)); // Zero removes the limit
+    }
+
+    /**
+     * @return Connection failures in a row after which targets on a host are skipped
+     *         (hrs.breaker.failures, default 3; 0 never skips)
+     */
+    public static int breakerFailures() {
+        return Math.max(0, getInt(BREAKER_FAILURES, 3)); // Zero disables the breaker
+    }
+
+    /**
+     * @return Milliseconds those failures must fall within (hrs.breaker.window, default 60000)
+     */
+    public static long breakerWindowMs() {
+        return Math.max(1, getInt(BREAKER_WINDOW, 60000)); // At least one millisecond
+    }
+
+    /**
+     * @return Milliseconds an unreachable host is skipped before a trial connection
+     *         (hrs.breaker.open, default 30000; doubles after each failed trial, up to eight times)
+     */
+    public static long breakerOpenMs() {
+        return Math.max(1, getInt(BREAKER_OPEN, 30000)); // At least one millisecond
+    }
+
+    /**
+     * @return How many normal requests measure a host's response times
+     *         (hrs.scan.baseline.samples, default 10; 0 always uses the full timeout)
+     */
+    public static int baselineSamples() {
+        return Math.max(0, getInt(BASELINE_SAMPLES, 10)); // Zero disables the measurement
+    }
+
+    /**
+     * @return Probe timeout as a multiple of the 99th percentile response time
+     *         (hrs.scan.timeout.multiplier, default 4)
+     */
+    public static int timeoutMultiplier() {
+        return Math.max(1, getInt(TIMEOUT_MULTIPLIER, 4)); // Never below the percentile itself
+    }
+
+    /**
+     * @return Confidence a timing difference needs before it is reported
+     *         (hrs.scan.confidence, default 0.99, between 0.5 and 0.9999)
+     */
+    public static double scanConfidence() {
+        return Math.min(MAX_CONFIDENCE, Math.max(MIN_CONFIDENCE, getDouble(SCAN_CONFIDENCE, 0.99))); // Keeps the thresholds finite
+    }
+
+    /**
+     * @return How many smuggler.py workers a Python batch scan keeps running
+     *         (hrs.python.workers, default hrs.scan.concurrency; 0 starts one process per URL)
+     */
+    public static int pythonWorkers() {
+        return Math.max(0, getInt(PYTHON_WORKERS, scanConcurrency())); // Zero disables the pool
+    }
+
+    /**
+     * @return true if smuggler.py should report findings as JSON events on stderr
+     *         (hrs.python.events, default true; false scrapes the START/END blocks)
+     */
+    public static boolean usePythonEvents() {
+        return !"false".equalsIgnoreCase(get(PYTHON_EVENTS, "true")); // Checks the setting
+    }
+
+    /**
+     * @return Directory where compiled custom mutation sets are cached
+     *         (hrs.mutation.cache, default .hrs-cache)
+     */
+    public static String mutationCacheDir() {
+        return get(MUTATION_CACHE, ".hrs-cache"); // Reads the cache directory
+    }
+
+    /**
+     * @return Chance that the duplicate filter drops a URL it has not seen before
+     *         (hrs.urls.dedupe.fpp, default 0.000001; 0 keeps duplicates)
+     */
+    public static double urlDedupeFpp() {
+        return Math.min(0.5, Math.max(0, getDouble(URL_DEDUPE_FPP, 0.000001))); // Zero disables the filter
+    }
+
+    /**
+     * @return Directory where batch scans of URL files journal their progress
+     *         (hrs.batch.journal, default .hrs-journal; empty disables resuming)
+     */
+    public static String batchJournalDir() {
+        String value = System.getProperty(BATCH_JOURNAL, fileProperties.getProperty(BATCH_JOURNAL)); // Set, even if empty
+        return value == null ? ".hrs-journal" : value.trim(); // An empty value disables journaling
+    }
+
+    /**
+     * @return Milliseconds between writes of the batch journal to disk
+     *         (hrs.batch.journal.flush, default 1000)
+     */
+    public static int batchJournalFlushMs() {
+        return Math.max(10, getInt(BATCH_JOURNAL_FLUSH, 1000)); // At least 10 ms
+    }
+
+    /**
+     * @return How many targets of one host a batch scan may work on at once
+     *         (hrs.batch.host.targets, default 2; 0 removes the limit)
+     */
+    public static int batchHostTargets() {
+        return Math.max(0, getInt(BATCH_HOST_TARGETS, 2)); // Zero removes the limit
+    }
+
+    /**
+     * @return true if batch targets are grouped by the address their host resolves to, so
+     *         names sharing a server share its limit (hrs.batch.host.resolve, default true)
+     */
+    public static boolean batchHostResolve() {
+        return !"false".equalsIgnoreCase(get(BATCH_HOST_RESOLVE, "true")); // Checks the setting
+    }
+
+    /**
+     * @return How many targets a batch scan reads ahead of the running ones
+     *         (hrs.batch.lookahead, default 10000)
+     */
+    public static int batchLookahead() {
+        return Math.max(1, getInt(BATCH_LOOKAHEAD, 10000)); // At least one target
+    }
+
+    /**
+     * Loads the optional properties file.
+     * @return The loaded properties, empty if there is no file
+     */
+    private static Properties load() {
+        Properties properties = new Properties(); // Holds the loaded settings
+        File file = new File(CONFIG_FILE); // Looks in the working directory
+        if (file.isFile()) {
+            try (InputStream in = new FileInputStream(file)) {
+                properties.load(in); // Reads the settings
+            } catch (IOException e) {
+                System.err.println("Failed to read " + CONFIG_FILE + ": " + e.getMessage()); // Reports the failure
+            }
+        }
+        return properties; // Returns the settings
+    }
+}
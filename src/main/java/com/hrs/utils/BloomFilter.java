@@ -0,0 +1,92 @@
+package com.hrs.utils; // Package for utility classes
+
+/**
+ * BloomFilter is a fixed-size set of strings that answers "seen before" with a chosen
+ * false positive rate and no false negatives. It is sized once from the expected number
+ * of entries, so memory does not grow as entries are added: about 29 bits per entry at
+ * a rate of one in a million, against several hundred bytes for a String in a HashSet.
+ */
+public final class BloomFilter {
+    // Largest bit array, limited by the long[] index
+    private static final long MAX_BITS = (long) Integer.MAX_VALUE * Long.SIZE;
+
+    // Bit array
+    private final long[] words;
+    // Number of usable bits
+    private final long bits;
+    // Bit positions set per entry
+    private final int hashes;
+
+    /**
+     * Constructor to initialize a BloomFilter.
+     * @param expected Expected number of distinct entries
+     * @param fpp False positive rate wanted at that many entries, between 0 and 1
+     */
+    public BloomFilter(long expected, double fpp) {
+        long n = Math.max(1, expected); // At least one entry
+        double ln2 = Math.log(2); // Used by both formulas
+        long m = (long) Math.ceil(-n * Math.log(fpp) / (ln2 * ln2)); // Optimal number of bits
+        m = Math.min(MAX_BITS, Math.max(Long.SIZE, m)); // At least one word, at most the array limit
+        this.words = new long[(int) ((m + Long.SIZE - 1) / Long.SIZE)]; // Rounds up to whole words
+        this.bits = (long) words.length * Long.SIZE; // Uses the whole last word
+        this.hashes = (int) Math.max(1, Math.min(30, Math.round((double) bits / n * ln2))); // Optimal number of hashes
+    }
+
+    /**
+     * Adds an entry.
+     * @param value The entry
+     * @return true if the entry was definitely not present before, false if it probably was
+     */
+    public synchronized boolean add(CharSequence value) {
+        long h = fnv(value); // One pass over the characters
+        long h1 = mix(h); // First index hash
+        long h2 = mix(h + 0x9E3779B97F4A7C15L) | 1; // Odd step, so the positions differ
+        boolean added = false; // Whether any bit was clear
+        for (int i = 0; i < hashes; i++) {
+            long bit = Long.remainderUnsigned(h1 + i * h2, bits); // Kirsch-Mitzenmacher double hashing
+            int word = (int) (bit >>> 6); // Word holding the bit
+            long mask = 1L << bit; // Bit within the word; shifts use the low 6 bits
+            if ((words[word] & mask) == 0) {
+                words[word] |= mask; // Sets the bit
+                added = true;
+            }
+        }
+        return added; // New if at least one bit was clear
+    }
+
+    /**
+     * Gets the size of the filter.
+     * @return The memory used by the bit array in bytes
+     */
+    public long sizeInBytes() {
+        return (long) words.length * Long.BYTES; // Eight bytes per word
+    }
+
+    /**
+     * 64-bit FNV-1a over the characters.
+     * @param value The characters
+     * @return The hash
+     */
+    private static long fnv(CharSequence value) {
+        long h = 0xcbf29ce484222325L; // FNV offset basis
+        for (int i = 0; i < value.length(); i++) {
+            h ^= value.charAt(i); // Mixes in the character
+            h *= 0x100000001b3L; // FNV prime
+        }
+        return h;
+    }
+
+    /**
+     * MurmurHash3 finalizer, spreads every input bit over the whole result.
+     * @param h The value
+     * @return The mixed value
+     */
+    private static long mix(long h) {
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
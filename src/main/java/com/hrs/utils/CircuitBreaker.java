@@ -0,0 +1,131 @@
+package com.hrs.utils; // Package for utility classes
+
+/**
+ * CircuitBreaker stops work against a target that cannot be reached. It counts
+ * consecutive connection failures; once a set number of them fall within a window it
+ * opens, and requests are refused without trying. After a cool-down it lets a single
+ * trial request through (half-open): if that connects the breaker closes again, if not it
+ * stays open for twice as long, up to eight times the first cool-down. A trial that never
+ * reports back is given up after one cool-down, so another caller may try.
+ */
+public final class CircuitBreaker {
+    /**
+     * Whether requests are let through.
+     */
+    public enum State {
+        /** Requests go through. */
+        CLOSED,
+        /** Requests are refused until the cool-down ends. */
+        OPEN,
+        /** One trial request is out, the rest are refused. */
+        HALF_OPEN
+    }
+
+    // Largest cool-down as a multiple of the first
+    private static final int MAX_BACKOFF = 8;
+
+    // Consecutive failures that open the breaker
+    private final int threshold;
+    // Window the failures must fall within
+    private final long windowMs;
+    // First cool-down
+    private final long openMs;
+    // Current state
+    private State state = State.CLOSED;
+    // Consecutive failures so far
+    private int failures;
+    // Time of the first of them
+    private long firstFailureMs;
+    // Current cool-down
+    private long coolDownMs;
+    // End of the cool-down, or of the trial while half-open
+    private long retryAtMs;
+
+    /**
+     * Constructor to initialize a CircuitBreaker.
+     * @param threshold Consecutive failures that open the breaker, at least one
+     * @param windowMs Window the failures must fall within
+     * @param openMs First cool-down
+     */
+    public CircuitBreaker(int threshold, long windowMs, long openMs) {
+        this.threshold = Math.max(1, threshold); // Assigns the threshold
+        this.windowMs = windowMs; // Assigns the window
+        this.openMs = openMs; // Assigns the cool-down
+        this.coolDownMs = openMs; // Starts at the first cool-down
+    }
+
+    /**
+     * Asks whether a request may be sent. While open, the first caller after the cool-down
+     * becomes the trial and is let through.
+     * @return true to send the request
+     */
+    public synchronized boolean allow() {
+        if (state == State.CLOSED) {
+            return true; // Nothing wrong with the target
+        }
+        long now = System.currentTimeMillis(); // Current time
+        if (now < retryAtMs) {
+            return false; // Cooling down, or another caller's trial is out
+        }
+        state = State.HALF_OPEN; // This caller is the trial
+        retryAtMs = now + coolDownMs; // Gives up on the trial after a cool-down
+        return true;
+    }
+
+    /**
+     * Records a request that reached the target.
+     */
+    public synchronized void success() {
+        state = State.CLOSED; // The target answers
+        failures = 0; // Starts counting again
+        coolDownMs = openMs; // Back to the first cool-down
+    }
+
+    /**
+     * Records a request that could not connect.
+     * @return true if this failure opened the breaker
+     */
+    public synchronized boolean failure() {
+        long now = System.currentTimeMillis(); // Current time
+        if (state == State.HALF_OPEN) {
+            coolDownMs = Math.min(openMs * MAX_BACKOFF, coolDownMs * 2); // The trial failed, waits longer
+            return open(now);
+        }
+        if (state == State.OPEN) {
+            return false; // A request sent before it opened
+        }
+        if (failures == 0 || now - firstFailureMs > windowMs) {
+            failures = 0; // Earlier failures are too old to count
+            firstFailureMs = now; // Starts a new window
+        }
+        return ++failures >= threshold && open(now); // Opens at the threshold
+    }
+
+    /**
+     * Gets the state.
+     * @return The state
+     */
+    public synchronized State getState() {
+        return state; // Returns the state
+    }
+
+    /**
+     * Gets the time left before the next trial.
+     * @return Milliseconds, 0 if a request may be sent now
+     */
+    public synchronized long retryInMs() {
+        return state == State.CLOSED ? 0 : Math.max(0, retryAtMs - System.currentTimeMillis()); // Time left
+    }
+
+    /**
+     * Opens the breaker for the current cool-down.
+     * @param now Current time
+     * @return true
+     */
+    private boolean open(long now) {
+        state = State.OPEN; // Refuses requests
+        failures = 0; // Counted again after the next trial
+        retryAtMs = now + coolDownMs; // End of the cool-down
+        return true;
+    }
+}
@@ -0,0 +1,331 @@
+package com.hrs.utils; // Package for utility classes
+
+import java.io.Closeable; // Importing Closeable for releasing the stream
+import java.io.IOException; // Importing IOException for handling I/O exceptions
+import java.io.Reader; // Importing Reader for the character stream
+import java.util.ArrayList; // Importing ArrayList for JSON arrays
+import java.util.LinkedHashMap; // Importing LinkedHashMap for JSON objects in field order
+import java.util.List; // Importing List interface for JSON arrays
+import java.util.Map; // Importing Map interface for JSON objects
+import java.util.function.Consumer; // Importing Consumer for lines that are not JSON
+
+/**
+ * JsonLinesReader parses a stream of one JSON object per line as the characters arrive,
+ * without buffering whole lines or matching patterns. Objects become LinkedHashMaps,
+ * arrays ArrayLists, numbers Long or Double, and true/false/null their Java values.
+ * Lines that are not a JSON object, such as a Python traceback on the same stream, are
+ * handed back as plain text instead of failing the stream.
+ */
+public final class JsonLinesReader implements Closeable {
+    // Marks "no character pushed back"
+    private static final int NONE = -2;
+
+    // Underlying character stream
+    private final Reader in;
+    // Character read ahead and not yet consumed, or NONE
+    private int peeked = NONE;
+    // Characters consumed on the current line, reported if the line is not JSON
+    private final StringBuilder line = new StringBuilder();
+
+    /**
+     * Constructor to initialize the JsonLinesReader.
+     * @param in The character stream; buffering it is up to the caller
+     */
+    public JsonLinesReader(Reader in) {
+        this.in = in; // Assigns the stream
+    }
+
+    /**
+     * Reads the next JSON object, blocking until it is complete.
+     * @param nonJson Receives each line that is not a JSON object, without its line break
+     * @return The object, or null at the end of the stream
+     * @throws IOException If the stream fails
+     */
+    public Map<String, Object> next(Consumer<String> nonJson) throws IOException {
+        while (true) {
+            line.setLength(0); // Starts a new line
+            int c = skipBlanks(); // First significant character of the line
+            if (c == -1) {
+                return null; // End of stream
+            }
+            if (c == '{') {
+                try {
+                    Map<String, Object> object = readObject(); // Parses the object
+                    int after = skipBlanks(); // Anything after the object on the same line
+                    if (after == '\n' || after == -1) {
+                        read(); // Consumes the line break
+                        return object; // Returns the object
+                    }
+                    throw malformed("Trailing characters after JSON object"); // Not a JSON line after all
+                } catch (IOException e) {
+                    if (e instanceof MalformedJsonException) {
+                        skipLine(); // Takes the rest of the line
+                        nonJson.accept(line.toString().trim()); // Hands back the whole line
+                        continue;
+                    }
+                    throw e; // The stream itself failed
+                }
+            }
+            if (c == '\n') {
+                read(); // Skips an empty line
+                continue;
+            }
+            skipLine(); // Takes the rest of the line
+            nonJson.accept(line.toString()); // Hands back the plain text
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        in.close(); // Closes the stream
+    }
+
+    /**
+     * Parses an object; the next character must be '{'.
+     * @return The object
+     * @throws IOException If the stream fails or the JSON is malformed
+     */
+    private Map<String, Object> readObject() throws IOException {
+        expect('{'); // Opening brace
+        Map<String, Object> object = new LinkedHashMap<>(); // Keeps field order
+        if (skipBlanks() == '}') {
+            read(); // Empty object
+            return object;
+        }
+        while (true) {
+            if (skipBlanks() != '"') {
+                throw malformed("Expected a field name"); // Names are always strings
+            }
+            String name = readString(); // Field name
+            skipBlanks();
+            expect(':'); // Name separator
+            object.put(name, readValue()); // Field value
+            int c = skipBlanks(); // Comma or closing brace
+            read();
+            if (c == '}') {
+                return object; // End of the object
+            }
+            if (c != ',') {
+                throw malformed("Expected ',' or '}'"); // Anything else is invalid
+            }
+        }
+    }
+
+    /**
+     * Parses an array; the next character must be '['.
+     * @return The array
+     * @throws IOException If the stream fails or the JSON is malformed
+     */
+    private List<Object> readArray() throws IOException {
+        expect('['); // Opening bracket
+        List<Object> array = new ArrayList<>(); // Holds the elements
+        if (skipBlanks() == ']') {
+            read(); // Empty array
+            return array;
+        }
+        while (true) {
+            array.add(readValue()); // Element
+            int c = skipBlanks(); // Comma or closing bracket
+            read();
+            if (c == ']') {
+                return array; // End of the array
+            }
+            if (c != ',') {
+                throw malformed("Expected ',' or ']'"); // Anything else is invalid
+            }
+        }
+    }
+
+    /**
+     * Parses any value.
+     * @return The value
+     * @throws IOException If the stream fails or the JSON is malformed
+     */
+    private Object readValue() throws IOException {
+        int c = skipBlanks(); // First character decides the type
+        switch (c) {
+            case '{': return readObject();
+            case '[': return readArray();
+            case '"': return readString();
+            case 't': expectWord("true"); return Boolean.TRUE;
+            case 'f': expectWord("false"); return Boolean.FALSE;
+            case 'n': expectWord("null"); return null;
+            default:
+                if (c == '-' || (c >= '0' && c <= '9')) {
+                    return readNumber(); // Number
+                }
+                throw malformed("Unexpected character"); // Not a JSON value
+        }
+    }
+
+    /**
+     * Parses a string; the next character must be '"'.
+     * @return The string
+     * @throws IOException If the stream fails or the JSON is malformed
+     */
+    private String readString() throws IOException {
+        expect('"'); // Opening quote
+        StringBuilder sb = new StringBuilder(); // Holds the characters
+        while (true) {
+            int c = read(); // Next character
+            if (c == -1 || c == '\n') {
+                throw malformed("Unterminated string"); // Strings never span lines in JSON lines
+            }
+            if (c == '"') {
+                return sb.toString(); // Closing quote
+            }
+            if (c != '\\') {
+                sb.append((char) c); // Plain character
+                continue;
+            }
+            int e = read(); // Escape character
+            switch (e) {
+                case '"': sb.append('"'); break;
+                case '\\': sb.append('\\'); break;
+                case '/': sb.append('/'); break;
+                case 'b': sb.append('\b'); break;
+                case 'f': sb.append('\f'); break;
+                case 'n': sb.append('\n'); break;
+                case 'r': sb.append('\r'); break;
+                case 't': sb.append('\t'); break;
+                case 'u':
+                    int code = 0; // Four hex digits
+                    for (int i = 0; i < 4; i++) {
+                        int digit = Character.digit(read(), 16); // Next hex digit
+                        if (digit < 0) {
+                            throw malformed("Invalid \\u escape"); // Not a hex digit
+                        }
+                        code = code * 16 + digit;
+                    }
+                    sb.append((char) code); // UTF-16 code unit
+                    break;
+                default:
+                    throw malformed("Invalid escape"); // Unknown escape
+            }
+        }
+    }
+
+    /**
+     * Parses a number.
+     * @return A Long for integers, otherwise a Double
+     * @throws IOException If the stream fails or the JSON is malformed
+     */
+    private Number readNumber() throws IOException {
+        StringBuilder sb = new StringBuilder(); // Holds the digits
+        boolean decimal = false; // Whether a fraction or exponent was seen
+        while (true) {
+            int c = peek(); // Next character, not consumed yet
+            if ((c >= '0' && c <= '9') || c == '-' || c == '+') {
+                sb.append((char) read()); // Digit or sign
+            } else if (c == '.' || c == 'e' || c == 'E') {
+                decimal = true; // Not an integer
+                sb.append((char) read());
+            } else {
+                break; // End of the number
+            }
+        }
+        try {
+            return decimal ? (Number) Double.parseDouble(sb.toString()) : (Number) Long.parseLong(sb.toString()); // Converts the digits
+        } catch (NumberFormatException e) {
+            throw malformed("Invalid number"); // Digits do not form a number
+        }
+    }
+
+    /**
+     * Consumes a literal word such as "true".
+     * @param word The expected word
+     * @throws IOException If the stream fails or the word does not match
+     */
+    private void expectWord(String word) throws IOException {
+        for (int i = 0; i < word.length(); i++) {
+            expect(word.charAt(i)); // Each character in turn
+        }
+    }
+
+    /**
+     * Consumes one expected character.
+     * @param expected The character
+     * @throws IOException If the stream fails or another character follows
+     */
+    private void expect(char expected) throws IOException {
+        if (read() != expected) {
+            throw malformed("Expected '" + expected + "'"); // Wrong character
+        }
+    }
+
+    /**
+     * Skips spaces, tabs and carriage returns, but not line breaks.
+     * @return The next character without consuming it, -1 at the end of the stream
+     * @throws IOException If the stream fails
+     */
+    private int skipBlanks() throws IOException {
+        int c = peek(); // Next character
+        while (c == ' ' || c == '\t' || c == '\r') {
+            read(); // Skips the blank
+            c = peek();
+        }
+        return c; // Returns the significant character
+    }
+
+    /**
+     * Consumes the rest of the current line, including its line break, unless the
+     * line break was already consumed.
+     * @throws IOException If the stream fails
+     */
+    private void skipLine() throws IOException {
+        int c = line.length() > 0 ? line.charAt(line.length() - 1) : 0; // Last consumed character
+        while (c != -1 && c != '\n') {
+            c = read(); // Consumes one character
+        }
+        if (line.length() > 0 && line.charAt(line.length() - 1) == '\n') {
+            line.setLength(line.length() - 1); // Drops the line break from the text
+        }
+        if (line.length() > 0 && line.charAt(line.length() - 1) == '\r') {
+            line.setLength(line.length() - 1); // Drops a Windows line ending too
+        }
+    }
+
+    /**
+     * @return The next character without consuming it, -1 at the end of the stream
+     * @throws IOException If the stream fails
+     */
+    private int peek() throws IOException {
+        if (peeked == NONE) {
+            peeked = in.read(); // Reads ahead one character
+        }
+        return peeked; // Returns it without consuming
+    }
+
+    /**
+     * @return The next character, -1 at the end of the stream
+     * @throws IOException If the stream fails
+     */
+    private int read() throws IOException {
+        int c = peek(); // Uses the read-ahead character if there is one
+        peeked = NONE; // Consumes it
+        if (c != -1) {
+            line.append((char) c); // Remembers it for non-JSON lines
+        }
+        return c; // Returns the character
+    }
+
+    /**
+     * @param message What was wrong
+     * @return An exception marking the current line as not JSON
+     */
+    private static MalformedJsonException malformed(String message) {
+        return new MalformedJsonException(message); // Creates the exception
+    }
+
+    /**
+     * Signals a line that is not valid JSON, as opposed to a failing stream.
+     */
+    private static final class MalformedJsonException extends IOException {
+        // Version of the serialized form
+        private static final long serialVersionUID = 1L;
+
+        MalformedJsonException(String message) {
+            super(message); // Passes the message
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package com.hrs.utils; // Package for utility classes
+
+import java.lang.reflect.Method; // Importing Method for calling Java 21 APIs reflectively
+import java.util.concurrent.ExecutorService; // Importing ExecutorService for task execution
+import java.util.concurrent.Executors; // Importing Executors for creating thread pools
+import java.util.concurrent.ThreadFactory; // Importing ThreadFactory for naming threads
+import java.util.concurrent.atomic.AtomicInteger; // Importing AtomicInteger for thread numbering
+
+/**
+ * TaskExecutors creates executors in the mode chosen by {@link AppConfig#useVirtualThreads()}:
+ * one virtual thread per task on Java 21+, or a fixed pool of daemon platform threads.
+ * The build targets Java 11, so the virtual-thread API is looked up reflectively and the
+ * platform pool is used when it is not available.
+ */
+public final class TaskExecutors {
+    // Whether the virtual-thread unavailability warning was already logged
+    private static volatile boolean fallbackLogged;
+
+    private TaskExecutors() {
+    }
+
+    /**
+     * Creates an executor for blocking tasks. Callers bound their own concurrency.
+     * @param name Prefix for thread names, e.g. "hrs-scan"
+     * @param platformThreads Pool size when running on platform threads
+     * @return The executor
+     */
+    public static ExecutorService newExecutor(String name, int platformThreads) {
+        if (AppConfig.useVirtualThreads()) { // Virtual threads were requested
+            ExecutorService virtual = newVirtualThreadExecutor(name); // Tries the Java 21 API
+            if (virtual != null) {
+                return virtual; // Returns the virtual-thread executor
+            }
+        }
+        AtomicInteger counter = new AtomicInteger(); // Numbers the pool threads
+        ThreadFactory factory = r -> {
+            Thread thread = new Thread(r, name + "-" + counter.incrementAndGet()); // Names the thread
+            thread.setDaemon(true); // Does not keep the JVM alive
+            return thread;
+        };
+        return Executors.newFixedThreadPool(Math.max(1, platformThreads), factory); // Returns the platform pool
+    }
+
+    /**
+     * @return true if this JVM can create virtual threads
+     */
+    public static boolean virtualThreadsAvailable() {
+        try {
+            Thread.class.getMethod("ofVirtual"); // Present from Java 21 (preview in 19/20)
+            return true;
+        } catch (NoSuchMethodException e) {
+            return false; // Older JVM
+        }
+    }
+
+    /**
+     * Creates a virtual-thread-per-task executor with named threads.
+     * @param name Prefix for thread names
+     * @return The executor, or null if virtual threads are not available
+     */
+    private static ExecutorService newVirtualThreadExecutor(String name) {
+        try {
+            Object builder = Thread.class.getMethod("ofVirtual").invoke(null); // Thread.ofVirtual()
+            Class<?> builderType = Class.forName("java.lang.Thread$Builder"); // Thread.Builder interface
+            builder = builderType.getMethod("name", String.class, long.class).invoke(builder, name + "-", 0L); // .name(prefix, 0)
+            ThreadFactory factory = (ThreadFactory) builderType.getMethod("factory").invoke(builder); // .factory()
+            Method perTask = Executors.class.getMethod("newThreadPerTaskExecutor", ThreadFactory.class); // Java 21 factory method
+            Logger.info("Using virtual threads for " + name); // Logs the executor mode
+            return (ExecutorService) perTask.invoke(null, factory); // Creates the executor
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            if (!fallbackLogged) { // Logs the fallback once
+                fallbackLogged = true;
+                Logger.warn("Virtual threads requested but not available on Java "
+                        + System.getProperty("java.version") + "; using platform threads"); // Logs the fallback
+            }
+            return null; // Caller falls back to platform threads
+        }
+    }
+}
@@ -0,0 +1,139 @@
+package com.hrs.utils; // Package for utility classes
+
+/**
+ * TokenBucket paces requests to a rate with room for short bursts. Tokens refill at the
+ * current rate up to the burst size and every request takes one; a request that finds the
+ * bucket empty is told how long to wait rather than refused, so callers can delay without
+ * holding a thread. The rate adapts additive-increase, multiplicative-decrease: a sign of
+ * overload halves it, at most once per second so a burst of complaints counts once, and
+ * every second without one raises it by a tenth of the configured rate until that is
+ * reached again. A server's Retry-After pauses the bucket outright.
+ */
+public final class TokenBucket {
+    // Shortest time between two decreases, and between two increases
+    private static final long ADJUST_INTERVAL_MS = 1000;
+    // Share of the configured rate added per increase
+    private static final double INCREASE_SHARE = 0.1;
+
+    // Configured rate in requests per second
+    private final double maxRate;
+    // Lowest rate a decrease goes to
+    private final double minRate;
+    // Tokens the bucket holds when full
+    private final double burst;
+    // Current rate in requests per second
+    private double rate;
+    // Tokens available; negative when requests are waiting for future tokens
+    private double tokens;
+    // Time of the last refill in nanoseconds
+    private long refilledNanos = System.nanoTime();
+    // Time of the last rate change in milliseconds
+    private long adjustedMs;
+    // No request goes out before this time, in milliseconds
+    private long pausedUntilMs;
+    // Time of the last request in milliseconds
+    private long lastUsedMs = System.currentTimeMillis();
+
+    /**
+     * Constructor to initialize a TokenBucket.
+     * @param rate Configured rate in requests per second, above zero
+     * @param burst Requests that may go out at once after a quiet spell, at least one
+     */
+    public TokenBucket(double rate, int burst) {
+        this.maxRate = rate; // Assigns the configured rate
+        this.minRate = Math.min(rate, 1.0); // One request per second at worst
+        this.burst = Math.max(1, burst); // Assigns the burst size
+        this.rate = rate; // Starts at the configured rate
+        this.tokens = this.burst; // Starts full
+    }
+
+    /**
+     * Takes a token.
+     * @return Milliseconds to wait before sending, 0 to send at once
+     */
+    public synchronized long reserve() {
+        long now = System.currentTimeMillis(); // Current time
+        refill(); // Adds the tokens earned since the last call
+        tokens -= 1; // Takes this request's token, possibly one not earned yet
+        lastUsedMs = now; // Marks the bucket in use
+        long wait = tokens >= 0 ? 0 : (long) Math.ceil(-tokens / rate * 1000); // Until the token is earned
+        return Math.max(wait, pausedUntilMs - now); // Honours a pause
+    }
+
+    /**
+     * Halves the rate after a sign of overload, such as a reset or a 429 or 503 response.
+     * @param retryAfterMs How long the server asked to be left alone, 0 if it did not say
+     * @return true if the rate or pause changed
+     */
+    public synchronized boolean backOff(long retryAfterMs) {
+        long now = System.currentTimeMillis(); // Current time
+        boolean changed = false;
+        if (retryAfterMs > 0 && now + retryAfterMs > pausedUntilMs) {
+            pausedUntilMs = now + retryAfterMs; // Leaves the server alone as asked
+            changed = true;
+        }
+        if (now - adjustedMs >= ADJUST_INTERVAL_MS && rate > minRate) {
+            refill(); // Settles the tokens at the old rate
+            rate = Math.max(minRate, rate / 2); // Multiplicative decrease
+            tokens = Math.min(tokens, 0); // Drops the saved-up burst
+            adjustedMs = now; // Starts the interval
+            changed = true;
+        }
+        return changed;
+    }
+
+    /**
+     * Raises the rate after a normal response, if it was lowered and a second has passed
+     * since the last change.
+     */
+    public synchronized void recover() {
+        long now = System.currentTimeMillis(); // Current time
+        if (rate < maxRate && now - adjustedMs >= ADJUST_INTERVAL_MS) {
+            refill(); // Settles the tokens at the old rate
+            rate = Math.min(maxRate, rate + maxRate * INCREASE_SHARE); // Additive increase
+            adjustedMs = now; // Starts the interval
+        }
+    }
+
+    /**
+     * Gets the current rate.
+     * @return Requests per second
+     */
+    public synchronized double getRate() {
+        return rate; // Returns the current rate
+    }
+
+    /**
+     * Gets the configured rate.
+     * @return Requests per second
+     */
+    public double getMaxRate() {
+        return maxRate; // Returns the configured rate
+    }
+
+    /**
+     * Checks whether the bucket is slowed down or paused.
+     * @return true if the rate is below the configured rate or a pause is running
+     */
+    public synchronized boolean isThrottled() {
+        return rate < maxRate || pausedUntilMs > System.currentTimeMillis(); // Backed off or paused
+    }
+
+    /**
+     * Checks whether the bucket went unused for a while and holds no state worth keeping.
+     * @param idleMs How long it must have been unused
+     * @return true if it may be dropped
+     */
+    public synchronized boolean isIdle(long idleMs) {
+        return !isThrottled() && System.currentTimeMillis() - lastUsedMs >= idleMs; // Unused and at full rate
+    }
+
+    /**
+     * Adds the tokens earned at the current rate since the last refill.
+     */
+    private void refill() {
+        long now = System.nanoTime(); // Current time
+        tokens = Math.min(burst, tokens + (now - refilledNanos) / 1e9 * rate); // Never beyond the burst size
+        refilledNanos = now; // Marks the refill
+    }
+}
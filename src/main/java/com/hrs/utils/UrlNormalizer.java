@@ -0,0 +1,91 @@
+package com.hrs.utils; // Package for utility classes
+
+import java.util.Locale; // Importing Locale for case conversion
+
+/**
+ * UrlNormalizer brings target URLs to one spelling, so the same target listed twice is
+ * recognised as a duplicate: https:// is assumed when the scheme is missing, as both scan
+ * engines do; scheme and host are lower-cased; the scheme's default port is dropped; an
+ * empty path becomes "/"; and the fragment, which is never sent, is removed. The path and
+ * query are kept as written, since their case and encoding matter to the server.
+ */
+public final class UrlNormalizer {
+    private UrlNormalizer() {
+    }
+
+    /**
+     * Normalizes one URL.
+     * @param raw The URL as listed, possibly with surrounding whitespace
+     * @return The normalized URL, or null if it is not an http or https URL with a host
+     */
+    public static String normalize(String raw) {
+        String url = raw.trim(); // Ignores surrounding whitespace
+        int schemeEnd = url.indexOf("://"); // End of the scheme, if any
+        String scheme = schemeEnd < 0 ? "https" : url.substring(0, schemeEnd).toLowerCase(Locale.ROOT); // Same default as the engines
+        if (!scheme.equals("http") && !scheme.equals("https")) {
+            return null; // Only HTTP targets can be scanned
+        }
+        String rest = schemeEnd < 0 ? url : url.substring(schemeEnd + 3); // Authority and path
+        int pathStart = rest.length(); // End of the authority
+        for (int i = 0; i < rest.length(); i++) {
+            char c = rest.charAt(i);
+            if (c == '/' || c == '?' || c == '#') {
+                pathStart = i; // First character after the authority
+                break;
+            }
+        }
+        String authority = rest.substring(0, pathStart); // User info, host and optional port
+        String path = rest.substring(pathStart); // Path, query and fragment
+        int fragment = path.indexOf('#'); // Start of the fragment, if any
+        if (fragment >= 0) {
+            path = path.substring(0, fragment); // Drops the fragment
+        }
+        if (!path.startsWith("/")) {
+            path = "/" + path; // Empty path, or a query right after the host
+        }
+
+        int at = authority.lastIndexOf('@'); // End of user info, if any
+        String userInfo = at < 0 ? "" : authority.substring(0, at + 1); // Kept as written
+        String hostPort = authority.substring(at + 1); // Host and optional port
+        int colon = hostPort.lastIndexOf(':'); // Port separator, if any
+        if (colon >= 0 && hostPort.indexOf(']', colon) >= 0) {
+            colon = -1; // The colon belongs to an IPv6 literal
+        }
+        String host = (colon < 0 ? hostPort : hostPort.substring(0, colon)).toLowerCase(Locale.ROOT); // Hosts are case-insensitive
+        if (host.isEmpty()) {
+            return null; // No host to connect to
+        }
+        String port = ""; // Explicit non-default port, with its colon
+        if (colon >= 0 && colon < hostPort.length() - 1) {
+            int number;
+            try {
+                number = Integer.parseInt(hostPort.substring(colon + 1)); // Port number
+            } catch (NumberFormatException e) {
+                return null; // Not a port
+            }
+            if (number < 1 || number > 65535) {
+                return null; // Out of range
+            }
+            int defaultPort = scheme.equals("https") ? 443 : 80; // Port implied by the scheme
+            port = number == defaultPort ? "" : ":" + number; // Drops the default port
+        }
+        return scheme + "://" + userInfo + host + port + path; // Reassembles the URL
+    }
+
+    /**
+     * Gets the host of a normalized URL.
+     * @param url A URL returned by {@link #normalize(String)}
+     * @return The host, without IPv6 brackets
+     */
+    public static String host(String url) {
+        int start = url.indexOf("://") + 3; // Start of the authority
+        int end = url.indexOf('/', start); // Normalized URLs always have a path
+        int at = url.lastIndexOf('@', end); // End of user info, if any
+        String hostPort = url.substring(Math.max(start, at + 1), end); // Drops user info
+        if (hostPort.startsWith("[")) {
+            return hostPort.substring(1, hostPort.indexOf(']')); // IPv6 literal
+        }
+        int colon = hostPort.indexOf(':'); // Port separator, if any
+        return colon < 0 ? hostPort : hostPort.substring(0, colon); // Drops the port
+    }
+}